@@ -0,0 +1,64 @@
+package org.example.simulation;
+
+import org.example.Vector2;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One ParticleSystem.step on a spring grid after the buffers have settled. Bytes per step are the gc.alloc.rate.norm
+ * column of the gc profiler, which should stay at zero.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocationBenchmark {
+    private static final float SPACING = 0.2f;
+    private static final float DT = 0.001f;
+    private static final int SETTLE_STEPS = 200;
+
+    @Param({"100"})
+    public int width;
+
+    private ParticleSystem system;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        system = createGrid(width);
+        //The first steps size the scratch arrays, they are not what is measured
+        for(int i = 0; i < SETTLE_STEPS; i++){
+            system.step(DT);
+        }
+    }
+
+    @Benchmark
+    public ParticleSystem step(){
+        system.step(DT);
+        return system;
+    }
+
+    private static ParticleSystem createGrid(int width){
+        ParticleSystem system = new ParticleSystem(new Vector2(width * SPACING * 2, width * SPACING * 2), 0.05f);
+        SceneBuilder builder = new SceneBuilder(0);
+        builder.setSpring(1000, 10);
+        int first = builder.addLattice(new Vector2(0, 0), width, width, SPACING);
+        for(int y = 0; y < width; y++){
+            for(int x = 0; x < width; x++){
+                int i = first + y * width + x;
+                if(x + 1 < width){
+                    builder.link(i, i + 1);
+                }
+                if(y + 1 < width){
+                    builder.link(i, i + width);
+                }
+            }
+        }
+        builder.build(system);
+        system.addForce(new GravitationalForce(9.82f));
+        system.addForce(new ViscousDragForce(0.01f));
+        return system;
+    }
+}
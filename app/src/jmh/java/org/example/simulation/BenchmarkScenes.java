@@ -0,0 +1,118 @@
+package org.example.simulation;
+
+import org.example.Vector2;
+
+/*
+ * Generated scenes of roughly a given number of particles for the benchmarks. Sleeping is turned off so every step
+ * does the full work.
+ */
+public final class BenchmarkScenes {
+    static final float RADIUS = 0.05f;
+    static final float SPACING = 0.2f;
+    static final float SPRING_CONSTANT = 1000;
+    static final float DAMPING_CONSTANT = 10;
+    static final long SEED = 1;
+
+    public enum Scene {
+        Grid, Rope, Cloth, ConstrainedCloth
+    }
+
+    private BenchmarkScenes(){}
+
+    static ParticleSystem create(Scene scene, int particles){
+        return switch (scene) {
+            case Grid -> grid(particles);
+            case Rope -> rope(particles);
+            case Cloth -> cloth(particles, false);
+            case ConstrainedCloth -> cloth(particles, true);
+        };
+    }
+
+    /*
+     * A square box of loose particles falling onto the floor and into each other
+     */
+    static ParticleSystem grid(int particles){
+        int side = side(particles);
+        ParticleSystem system = createSystem(side * SPACING * 2, side * SPACING * 2);
+        SceneBuilder builder = createBuilder();
+        builder.addLattice(new Vector2(side * SPACING / 2, side * SPACING / 2), side, side, SPACING);
+        builder.build(system);
+        system.setParticleCollisions(true);
+        addForces(system);
+        return system;
+    }
+
+    /*
+     * A horizontal chain of springs pinned at its first particle
+     */
+    static ParticleSystem rope(int particles){
+        ParticleSystem system = createSystem(particles * SPACING * 2, particles * SPACING * 2);
+        SceneBuilder builder = createBuilder();
+        Vector2 start = new Vector2(particles * SPACING / 2, SPACING);
+        builder.pin(builder.addRope(start, start.add(new Vector2((particles - 1) * SPACING, 0)), particles));
+        builder.build(system);
+        addForces(system);
+        return system;
+    }
+
+    /*
+     * A square cloth hanging from its two top corners. With constrained its structural links are distance
+     * constraints and it has shear springs only, otherwise it has structural, shear and bend springs.
+     */
+    static ParticleSystem cloth(int particles, boolean constrained){
+        int side = side(particles);
+        ParticleSystem system = createSystem(side * SPACING * 3, side * SPACING * 3);
+        SceneBuilder builder = createBuilder();
+        Vector2 topLeft = new Vector2(side * SPACING, SPACING);
+        int first = constrained ? addConstrainedCloth(builder, topLeft, side) : builder.addCloth(topLeft, side, side, SPACING);
+        builder.pin(first);
+        builder.pin(first + side - 1);
+        builder.build(system);
+        addForces(system);
+        return system;
+    }
+
+    private static int addConstrainedCloth(SceneBuilder builder, Vector2 topLeft, int side){
+        int first = builder.addLattice(topLeft, side, side, SPACING);
+        builder.setStiff(true);
+        for(int y = 0; y < side; y++){
+            for(int x = 0; x < side; x++){
+                int i = first + y * side + x;
+                if(x + 1 < side){
+                    builder.link(i, i + 1);
+                }
+                if(y + 1 < side){
+                    builder.link(i, i + side);
+                }
+            }
+        }
+        builder.setStiff(false);
+        for(int y = 0; y + 1 < side; y++){
+            for(int x = 0; x + 1 < side; x++){
+                int i = first + y * side + x;
+                builder.link(i, i + side + 1);
+                builder.link(i + 1, i + side);
+            }
+        }
+        return first;
+    }
+
+    private static SceneBuilder createBuilder(){
+        SceneBuilder builder = new SceneBuilder(SEED);
+        builder.setSpring(SPRING_CONSTANT, DAMPING_CONSTANT);
+        return builder;
+    }
+
+    private static ParticleSystem createSystem(float width, float height){
+        return new ParticleSystem(new Vector2(width, height), RADIUS);
+    }
+
+    private static void addForces(ParticleSystem system){
+        system.addForce(new GravitationalForce(9.82f));
+        system.addForce(new ViscousDragForce(0.01f));
+    }
+
+    private static int side(int particles){
+        return Math.max(2, (int) Math.round(Math.sqrt(particles)));
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.simulation;
+
+import org.example.Force;
+import org.example.ImmutableList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One evaluation of a single force on the spring cloth, without the rest of the step
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForceBenchmark {
+    public enum ForceType {
+        Gravitational, ViscousDrag, SpringNetwork, SpringForce, BarnesHut
+    }
+
+    @Param
+    public ForceType force;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int particles;
+
+    private ParticleStore store;
+    private Force[] forces;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        ParticleSystem system = BenchmarkScenes.cloth(particles, false);
+        //Binds the spring network and fills in the active particles
+        system.step(StepBenchmark.DT);
+        store = system.getStore();
+
+        SpringNetwork network = null;
+        for(Force f : system.getForces()){
+            if(f instanceof SpringNetwork springNetwork){
+                network = springNetwork;
+            }
+        }
+        forces = switch (force) {
+            case Gravitational -> new Force[]{new GravitationalForce(9.82f)};
+            case ViscousDrag -> new Force[]{new ViscousDragForce(0.01f)};
+            case SpringNetwork -> new Force[]{network};
+            case SpringForce -> springForces(system, network);
+            case BarnesHut -> new Force[]{new BarnesHutForce(1, BenchmarkScenes.SPACING)};
+        };
+    }
+
+    //The same springs as single SpringForces, the way they were applied before SpringNetwork
+    private static Force[] springForces(ParticleSystem system, SpringNetwork network){
+        ImmutableList<SimulationParticle> simulationParticles = system.getParticles();
+        List<Force> forces = new ArrayList<>();
+        for(int k = 0; k < network.size(); k++){
+            forces.add(new SpringForce(simulationParticles.get(network.getParticleA(k)), simulationParticles.get(network.getParticleB(k)),
+                                       network.getSpringLength(k), BenchmarkScenes.SPRING_CONSTANT, BenchmarkScenes.DAMPING_CONSTANT));
+        }
+        return forces.toArray(new Force[0]);
+    }
+
+    @Benchmark
+    public ParticleStore apply(){
+        store.clearForces();
+        for(Force f : forces){
+            f.apply(store);
+        }
+        return store;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.simulation;
+
+import org.example.EOdeSolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One step of the spring cloth with each ODE solver
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    @Param
+    public EOdeSolver solver;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int particles;
+
+    private ParticleSystem system;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        system = BenchmarkScenes.cloth(particles, false);
+        system.setSolver(solver.getSolver());
+    }
+
+    @Benchmark
+    public ParticleSystem step(){
+        system.step(StepBenchmark.DT);
+        return system;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.simulation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * ParticleSystem.step with the default solvers on each generated scene. Every invocation restarts the scene and runs
+ * the same fixed batch of steps, and the time is reported per step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StepBenchmark {
+    static final float DT = 0.001f;
+    static final int STEPS = 100;
+
+    @Param
+    public BenchmarkScenes.Scene scene;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int particles;
+
+    private ParticleSystem system;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        system = BenchmarkScenes.create(scene, particles);
+    }
+
+    //Back to the start positions at rest, so every batch measures the same stretch of motion
+    @Setup(Level.Invocation)
+    public void restart(){
+        system.reset();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public ParticleSystem step(){
+        for(int k = 0; k < STEPS; k++){
+            system.step(DT);
+        }
+        return system;
+    }
+}
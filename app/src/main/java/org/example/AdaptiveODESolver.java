@@ -0,0 +1,8 @@
+package org.example;
+
+public interface AdaptiveODESolver extends ODESolver {
+    public void setTolerance(double absoluteTolerance, double relativeTolerance);
+
+    public int getAcceptedSteps();
+    public int getRejectedSteps();
+}
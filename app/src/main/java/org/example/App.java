@@ -7,6 +7,7 @@ import java.util.Enumeration;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.swing.*;
 
@@ -14,35 +15,58 @@ import org.example.editor.Editor;
 import org.example.simulation.*;
 
 public class App extends JFrame{
-	private static final Scale SCALE = new Scale(60f,60f);
-	private float radius = 0.1f;
+	private static final Scale SCALE = new Scale(AppConfig.PIXELS_PER_METER, AppConfig.PIXELS_PER_METER);
+	private float radius = AppConfig.PARTICLE_RADIUS;
 	private static final Dimension WINDOW_SIZE = new Dimension(800, 600);
 
-	private static final float DEFAULT_GRAVITY = 9.82f;
+	private static final float DEFAULT_GRAVITY = AppConfig.DEFAULT_GRAVITY;
 	private static final float MIN_GRAVITY = -100f;
 	private static final float MAX_GRAVITY = 100f;
 	private static final float GRAVITY_STEP = 1f;
 
-	private static final float DEFAULT_VISCOUS_DRAG = 0.01f;
+	private static final float DEFAULT_VISCOUS_DRAG = AppConfig.DEFAULT_VISCOUS_DRAG;
 	private static final float MIN_VISCOUS_DRAG = -100f;
 	private static final float MAX_VISCOUS_DRAG = 100f;
 	private static final float VISCOUS_DRAG_STEP = 0.01f;
 
+	private static final float MIN_BARNES_HUT_STRENGTH = -100f;
+	private static final float MAX_BARNES_HUT_STRENGTH = 100f;
+	private static final float BARNES_HUT_STRENGTH_STEP = 0.1f;
+
 
-	private static final float DEFAULT_BOUNCE_KEEP_PERCENTAGE = ParticleSystem.DEFAULT_BOUNCE_KEEP * 100;
 	private static final float MIN_BOUNCE_KEEP_PERCENTAGE = 0;
 	private static final float MAX_BOUNCE_KEEP_PERCENTAGE = 100;
 	private static final float BOUNCE_KEEP_PERCENTAGE_STEP = 1;
 
+	private static final float MIN_TIME_STEP_MS = 0.01f;
+	private static final float MAX_TIME_STEP_MS = 100f;
+	private static final float TIME_STEP_MS_STEP = 1f;
+
+	private static final int MIN_SUBSTEPS = 1;
+	private static final int MAX_SUBSTEPS = 1000;
+
+	private static final int MAX_STEPS_PER_FRAME = 4;
+	private static final float FRAMES_PER_SECOND = 60;
+
 	private static final String CONFIG_FILE_NAME = "config";
 	private static final String TEMP_EDITOR_SAVE = "temp-build";
+	private static final String TRAJECTORY_EXTENSION = ".ptraj";
 
 	private JSpinner gravitySpinner;
 	private JSpinner bounceKeepSpinner;
 	private JSpinner viscousDragSpinner;
+	private JSpinner barnesHutSpinner;
+	private JSpinner timeStepSpinner;
+	private JSpinner substepsSpinner;
+	private JCheckBox collisionsBox;
+	private JCheckBox sleepBox;
 
 	private GravitationalForce gravity;
 	private ViscousDragForce viscousDrag;
+	//Only in the system while its strength is not zero, touched on the simulation thread
+	private BarnesHutForce barnesHut;
+	private float barnesHutSoftening;
+	private float barnesHutTheta;
 
 	private JTabbedPane tabbedPane;
 	private JPanel simulationPanel;
@@ -51,10 +75,27 @@ public class App extends JFrame{
 	private Optional<File> currFile;
 	private ParticleSystem system;
 	private EOdeSolver currentSolver;
+	private EConstraintSolver currentConstraintSolver;
+	private SimulationClock clock;
+	private InterpolatedPositions positions = new InterpolatedPositions();
 
 	private Thread simulationThread;
 	private BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
 
+	//Recording is only touched on the simulation thread
+	private JToggleButton recordButton;
+	private TrajectoryRecorder recorder;
+	private double recordedTime;
+
+	private volatile TrajectoryPlayback playback;
+	private volatile int playbackFrame;
+	private volatile boolean playing;
+	private boolean updatingSlider;
+	private JPanel playbackBar;
+	private JToggleButton playButton;
+	private JSlider frameSlider;
+	private JLabel frameLabel;
+
 	public App() throws Exception{
 		UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 
@@ -65,6 +106,9 @@ public class App extends JFrame{
 
 		AppConfig config = readConfig();
 		this.currFile = Optional.ofNullable(config.currFile);
+		this.barnesHutSoftening = config.barnesHutSoftening;
+		this.barnesHutTheta = config.barnesHutTheta;
+		this.clock = new SimulationClock(config.timeStep, config.substeps, MAX_STEPS_PER_FRAME, FRAMES_PER_SECOND);
 		this.system = new ParticleSystem(new Vector2(0, 0), 0);
 		this.viscousDrag = new ViscousDragForce(DEFAULT_VISCOUS_DRAG);
 		this.gravity = new GravitationalForce(DEFAULT_GRAVITY);
@@ -81,7 +125,9 @@ public class App extends JFrame{
 			@Override
 			public void windowClosing(WindowEvent e){
 				super.windowClosed(e);
-				saveConfig(new AppConfig(App.this.currentSolver, getGravity(), getBounceKeep(), getViscousDrag(), App.this.currFile.orElse(null)));
+				stopSimulationThread();
+				saveConfig(new AppConfig(App.this.currentSolver, App.this.currentConstraintSolver, getGravity(), getBounceKeep(), getViscousDrag(), getTimeStep(), getSubsteps(), App.this.collisionsBox.isSelected(), App.this.sleepBox.isSelected(),
+						getBarnesHutStrength(), App.this.barnesHutSoftening, App.this.barnesHutTheta, App.this.currFile.orElse(null)));
 				saveTempEditorState(App.this.editor);
 			}
 		});
@@ -104,19 +150,46 @@ public class App extends JFrame{
 				if(system == null){
 					return;
 				}
-				for (SimulationParticle particle : system.getParticles()){
-					Point point = getPosition(particle.getPosition(), radius);
-					Point size = SCALE.scaleToPixels(new Vector2(radius * 2, radius * 2)).toPoint();
+				Point size = SCALE.scaleToPixels(new Vector2(radius * 2, radius * 2)).toPoint();
+				for (int i = 0; i < positions.size(); i++){
+					Point point = getPosition(positions.getPosition(i), radius);
 					g.fillOval(point.x, point.y, size.x, size.y);
 				}
 
+				TrajectoryPlayback playback = App.this.playback;
+				if(playback != null){
+					paintRecording(g, playback);
+					return;
+				}
+
+				for (Line line : system.getColliders()){
+					Point start = SCALE.scaleToPixels(line.start).toPoint();
+					Point end = SCALE.scaleToPixels(line.end).toPoint();
+					g.drawLine(start.x, start.y, end.x, end.y);
+				}
+
 				for (Force force : system.getForces()){
 					switch(force){
 						case SpringForce sf:
-							Point p1 = SCALE.scaleToPixels(sf.getParticleA().getPosition()).toPoint();
-							Point p2 = SCALE.scaleToPixels(sf.getParticleB().getPosition()).toPoint();
+							if(sf.getParticleA().getIndex() >= positions.size() || sf.getParticleB().getIndex() >= positions.size()){
+								break;
+							}
+							Point p1 = SCALE.scaleToPixels(positions.getPosition(sf.getParticleA().getIndex())).toPoint();
+							Point p2 = SCALE.scaleToPixels(positions.getPosition(sf.getParticleB().getIndex())).toPoint();
 							g.drawLine(p1.x, p1.y, p2.x, p2.y);
 							break;
+						case SpringNetwork sn:
+							for (int k = 0; k < sn.size(); k++){
+								int a = sn.getParticleA(k);
+								int b = sn.getParticleB(k);
+								if(a >= positions.size() || b >= positions.size()){
+									continue;
+								}
+								Point start = SCALE.scaleToPixels(positions.getPosition(a)).toPoint();
+								Point end = SCALE.scaleToPixels(positions.getPosition(b)).toPoint();
+								g.drawLine(start.x, start.y, end.x, end.y);
+							}
+							break;
 						default:
 							break;
 					}
@@ -138,13 +211,20 @@ public class App extends JFrame{
 			private void updateSimulatorSize(){
 				if(system != null){
 					Vector2 worldSize = SCALE.scaleToMeters(content.getSize());
-					system.setSize(worldSize);
+					//Resizing wakes every particle, which only the simulation thread may do
+					ParticleSystem resized = system;
+					tasks.add(() -> {
+						resized.setSize(worldSize);
+						resized.setWalls();
+					});
 				}
 			}
 		});
 		content.setBorder(BorderFactory.createLineBorder(Color.GRAY, 1, true));
 		simulation.add(content, BorderLayout.CENTER);
 		this.simulationContent = content; //FIXME: Hack
+		this.playbackBar = createPlaybackBar();
+		simulation.add(this.playbackBar, BorderLayout.SOUTH);
 
 		return simulation;
 	}
@@ -160,9 +240,26 @@ public class App extends JFrame{
 		JButton restartButton = new JButton("Restart");
 		restartButton.addActionListener(e -> tasks.add(() -> {
 			system.reset();
+			positions.capture(system);
 		}));
 		toolBar.add(restartButton);
 
+		this.recordButton = new JToggleButton("Record");
+		this.recordButton.setToolTipText("Record the running simulation to a " + TRAJECTORY_EXTENSION + " file");
+		this.recordButton.addActionListener(e -> {
+			if(!this.recordButton.isSelected()){
+				tasks.add(this::stopRecording);
+				return;
+			}
+			File file = selectRecordingFile();
+			if(file == null){
+				this.recordButton.setSelected(false);
+				return;
+			}
+			tasks.add(() -> startRecording(file));
+		});
+		toolBar.add(this.recordButton);
+
 		final String solverKey = "solver";
 		ButtonGroup solverGroup = new ButtonGroup();
 		EOdeSolver[] solvers = EOdeSolver.values();
@@ -190,24 +287,96 @@ public class App extends JFrame{
 
 		toolBar.addSeparator();
 
+		JLabel constraintSolverLabel = new JLabel("Constraints");
+		JComboBox<EConstraintSolver> constraintSolverBox = new JComboBox<>(EConstraintSolver.values());
+		constraintSolverBox.setRenderer(new DefaultListCellRenderer(){
+			@Override
+			public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus){
+				return super.getListCellRendererComponent(list, ((EConstraintSolver) value).displayName, index, isSelected, cellHasFocus);
+			}
+		});
+		this.currentConstraintSolver = config.constraintSolver;
+		this.system.setConstraintSolver(this.currentConstraintSolver);
+		constraintSolverBox.setSelectedItem(this.currentConstraintSolver);
+		constraintSolverBox.addActionListener(e -> {
+			EConstraintSolver constraintSolver = (EConstraintSolver) constraintSolverBox.getSelectedItem();
+			this.currentConstraintSolver = constraintSolver;
+			tasks.add(() -> system.setConstraintSolver(constraintSolver));
+		});
+		toolBar.add(constraintSolverLabel);
+		toolBar.add(constraintSolverBox);
+		toolBar.addSeparator();
+
 		JLabel gravityLabel = new JLabel("Gravity");
 		this.gravitySpinner = new JSpinner(new SpinnerNumberModel(config.gravity, MIN_GRAVITY, MAX_GRAVITY, GRAVITY_STEP));
-		this.gravitySpinner.addChangeListener(e -> this.gravity.setAcceleration(getGravity()));
+		this.gravitySpinner.addChangeListener(e -> {
+			this.gravity.setAcceleration(getGravity());
+			tasks.add(() -> this.system.wakeAll());
+		});
 		toolBar.add(gravityLabel);
 		toolBar.add(this.gravitySpinner);
 		toolBar.addSeparator();
 
 		JLabel viscousDragLabel = new JLabel("Viscous drag");
 		this.viscousDragSpinner = new JSpinner(new SpinnerNumberModel(config.viscousDrag, MIN_VISCOUS_DRAG, MAX_VISCOUS_DRAG, VISCOUS_DRAG_STEP));
-		this.viscousDragSpinner.addChangeListener(e -> this.viscousDrag.setDrag(getViscousDrag()));
+		this.viscousDragSpinner.addChangeListener(e -> {
+			this.viscousDrag.setDrag(getViscousDrag());
+			tasks.add(() -> this.system.wakeAll());
+		});
 		toolBar.add(viscousDragLabel);
 		toolBar.add(this.viscousDragSpinner);
 
+		JLabel barnesHutLabel = new JLabel("Attraction");
+		this.barnesHutSpinner = new JSpinner(new SpinnerNumberModel(config.barnesHutStrength, MIN_BARNES_HUT_STRENGTH, MAX_BARNES_HUT_STRENGTH, BARNES_HUT_STRENGTH_STEP));
+		this.barnesHutSpinner.addChangeListener(e -> {
+			float strength = getBarnesHutStrength();
+			tasks.add(() -> setBarnesHutStrength(strength));
+		});
+		toolBar.add(barnesHutLabel);
+		toolBar.add(this.barnesHutSpinner);
+
 		JLabel bounceLabel = new JLabel("Bounce");
 		this.bounceKeepSpinner = new JSpinner(new SpinnerNumberModel(config.bounce, MIN_BOUNCE_KEEP_PERCENTAGE, MAX_BOUNCE_KEEP_PERCENTAGE, BOUNCE_KEEP_PERCENTAGE_STEP));
-		this.bounceKeepSpinner.addChangeListener(e -> this.system.setBounceKeep(getBounceKeep() / 100));
+		this.bounceKeepSpinner.addChangeListener(e -> {
+			float bounceKeep = getBounceKeep() / 100;
+			tasks.add(() -> this.system.setBounceKeep(bounceKeep));
+		});
 		toolBar.add(bounceLabel);
 		toolBar.add(this.bounceKeepSpinner);
+
+		this.collisionsBox = new JCheckBox("Collisions", config.collisions);
+		this.collisionsBox.addActionListener(e -> {
+			boolean collisions = this.collisionsBox.isSelected();
+			tasks.add(() -> this.system.setParticleCollisions(collisions));
+		});
+		toolBar.add(this.collisionsBox);
+
+		this.sleepBox = new JCheckBox("Sleep", config.sleeping);
+		this.sleepBox.setToolTipText("Stop simulating groups of particles that have come to rest until something touches them");
+		this.sleepBox.addActionListener(e -> {
+			double threshold = getSleepThreshold();
+			tasks.add(() -> this.system.setSleepThreshold(threshold));
+		});
+		toolBar.add(this.sleepBox);
+		toolBar.addSeparator();
+
+		JLabel timeStepLabel = new JLabel("Step (ms)");
+		this.timeStepSpinner = new JSpinner(new SpinnerNumberModel(config.timeStep * 1000, MIN_TIME_STEP_MS, MAX_TIME_STEP_MS, TIME_STEP_MS_STEP));
+		this.timeStepSpinner.addChangeListener(e -> {
+			float timeStep = getTimeStep();
+			tasks.add(() -> this.clock.setTimeStep(timeStep));
+		});
+		toolBar.add(timeStepLabel);
+		toolBar.add(this.timeStepSpinner);
+
+		JLabel substepsLabel = new JLabel("Substeps");
+		this.substepsSpinner = new JSpinner(new SpinnerNumberModel(config.substeps, MIN_SUBSTEPS, MAX_SUBSTEPS, 1));
+		this.substepsSpinner.addChangeListener(e -> {
+			int substeps = getSubsteps();
+			tasks.add(() -> this.clock.setSubsteps(substeps));
+		});
+		toolBar.add(substepsLabel);
+		toolBar.add(this.substepsSpinner);
 		toolBar.addSeparator();
 
 		return toolBar;
@@ -229,27 +398,39 @@ public class App extends JFrame{
 		run.addActionListener(e -> loadAndRun());
 		menu.add(run);
 
+		JMenuItem play = new JMenuItem("Play Recording...");
+		play.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_P, InputEvent.CTRL_DOWN_MASK));
+		play.addActionListener(e -> openRecording());
+		menu.add(play);
+
 		return menu;
 	}
 
 	private void loadAndRun(){
-		if(simulationThread != null){
-			simulationThread.interrupt();
-		}
+		stopSimulationThread();
+		closePlayback();
 
 		Vector2 worldSize = SCALE.scaleToMeters(this.simulationContent.getSize());
 		system = new ParticleSystem(worldSize, radius);
 		system.setSolver(this.currentSolver.getSolver());
+		system.setConstraintSolver(this.currentConstraintSolver);
 		this.editor.initializeSystem(system);
 		this.gravity = new GravitationalForce(getGravity());
 		this.viscousDrag = new ViscousDragForce(getViscousDrag());
 		system.addForce(this.gravity);
 		system.addForce(this.viscousDrag);
+		this.barnesHut = null;
+		setBarnesHutStrength(getBarnesHutStrength());
 		MouseForce mouseForce = new MouseForce(SCALE);
 		this.simulationContent.addMouseListener(mouseForce);
 		this.simulationContent.addMouseMotionListener(mouseForce);
 		system.addForce(mouseForce);
 		system.setBounceKeep(getBounceKeep() / 100);
+		system.setParticleCollisions(this.collisionsBox.isSelected());
+		system.setSleepThreshold(getSleepThreshold());
+		system.setWalls();
+		clock.setTimeStep(getTimeStep());
+		clock.setSubsteps(getSubsteps());
 
 		simulationThread = new Thread(){
 			@Override
@@ -434,30 +615,269 @@ public class App extends JFrame{
     }
 
 	private AppConfig getDefaultConfig(){
-		return new AppConfig(EOdeSolver.RungeKutta, DEFAULT_GRAVITY, DEFAULT_BOUNCE_KEEP_PERCENTAGE, DEFAULT_VISCOUS_DRAG, null);
+		return AppConfig.getDefault();
 	}
 
 	private void simulate(){
-		long lastTime = System.nanoTime();
-		while(true){
-			long time = System.nanoTime();
-			long dt = time - lastTime;
-			lastTime = time;
-
-			system.step(dt / 1000_000_000f);
-//			system.step(0.00002f);
+		ParticleSystem system = this.system;
+		positions.capture(system);
+		clock.start(System.nanoTime());
+		while(!Thread.currentThread().isInterrupted()){
+			int steps = clock.advance(System.nanoTime());
+			for(int i = 0; i < steps; i++){
+				if(i == steps - 1){
+					positions.capturePrevious(system);
+				}
+				for(int j = 0; j < clock.getSubsteps(); j++){
+					system.step(clock.getSubstepTime());
+				}
+				if(this.recorder != null){
+					this.recordedTime += clock.getTimeStep();
+					this.recorder.record(system, this.recordedTime);
+				}
+			}
+			if(steps > 0){
+				positions.captureCurrent(system);
+			}
+			positions.setAlpha(clock.getAlpha());
 			this.repaint();
 
-			Runnable task = tasks.poll();
-			if(task != null){
+			Runnable task;
+			while((task = tasks.poll()) != null){
 				task.run();
 			}
 
-			try {
-				Thread.sleep(0);
-			} catch (InterruptedException e) {
+			LockSupport.parkNanos(clock.nextFrame(System.nanoTime()));
+		}
+		stopRecording();
+		SwingUtilities.invokeLater(() -> this.recordButton.setSelected(false));
+	}
+
+	/*
+	 * Interrupts the simulation or playback thread and waits for it to finish, so a recording is closed first
+	 */
+	private void stopSimulationThread(){
+		if(simulationThread == null){
+			return;
+		}
+		simulationThread.interrupt();
+		try {
+			simulationThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		simulationThread = null;
+	}
+
+	private File selectRecordingFile(){
+		FileDialog dialog = new FileDialog(this, "Record To", FileDialog.SAVE);
+		String name = currFile.map(File::getName).orElse("Untitled.psim");
+		dialog.setFile(name.substring(0, name.lastIndexOf('.') < 0 ? name.length() : name.lastIndexOf('.')) + TRAJECTORY_EXTENSION);
+		dialog.setFilenameFilter((dir, fileName) -> fileName.endsWith(TRAJECTORY_EXTENSION));
+		dialog.setVisible(true);
+		if(dialog.getFile() == null){
+			return null;
+		}
+		return new File(dialog.getDirectory(), dialog.getFile());
+	}
+
+	/*
+	 * Runs on the simulation thread, every following time step is recorded
+	 */
+	private void startRecording(File file){
+		stopRecording();
+		try {
+			this.recorder = new TrajectoryRecorder(file, this.system, false);
+			this.recordedTime = 0;
+			System.out.println("Recording to " + file);
+		} catch (IOException e) {
+			System.out.println("Could not record to " + file + ": " + e.getMessage());
+			SwingUtilities.invokeLater(() -> this.recordButton.setSelected(false));
+		}
+	}
+
+	private void stopRecording(){
+		if(this.recorder == null){
+			return;
+		}
+		try {
+			this.recorder.close();
+			System.out.println("Recorded " + this.recorder.getFrameCount() + " frames");
+		} catch (IOException e) {
+			System.out.println("Recording failed: " + e.getMessage());
+		}
+		this.recorder = null;
+	}
+
+	private void openRecording(){
+		FileDialog dialog = new FileDialog(this, "Play Recording", FileDialog.LOAD);
+		dialog.setFilenameFilter((dir, name) -> name.endsWith(TRAJECTORY_EXTENSION));
+		dialog.setVisible(true);
+		if(dialog.getFile() == null){
+			return;
+		}
+		File file = new File(dialog.getDirectory(), dialog.getFile());
+
+		stopSimulationThread();
+		closePlayback();
+		TrajectoryPlayback playback;
+		try {
+			playback = new TrajectoryPlayback(file);
+		} catch (IOException e) {
+			System.out.println("Could not open " + file + ": " + e.getMessage());
+			return;
+		}
+		if(playback.getFrameCount() == 0){
+			System.out.println(file + " has no frames");
+			closePlayback(playback);
+			return;
+		}
+
+		this.playback = playback;
+		this.playing = false;
+		this.playButton.setSelected(false);
+		this.recordButton.setEnabled(false);
+		this.updatingSlider = true;
+		this.frameSlider.setMaximum(playback.getFrameCount() - 1);
+		this.frameSlider.setValue(0);
+		this.updatingSlider = false;
+		seek(0);
+		this.playbackBar.setVisible(true);
+
+		simulationThread = new Thread(this::play);
+		simulationThread.start();
+		this.tabbedPane.setSelectedComponent(simulationPanel);
+	}
+
+	private void closePlayback(){
+		TrajectoryPlayback playback = this.playback;
+		if(playback == null){
+			return;
+		}
+		this.playback = null;
+		this.playing = false;
+		this.playbackBar.setVisible(false);
+		this.recordButton.setEnabled(true);
+		closePlayback(playback);
+	}
+
+	private void closePlayback(TrajectoryPlayback playback){
+		try {
+			playback.close();
+		} catch (IOException e) {
+			System.out.println("Could not close recording: " + e.getMessage());
+		}
+	}
+
+	private JPanel createPlaybackBar(){
+		JPanel bar = new JPanel(new BorderLayout(5, 0));
+		bar.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+		this.playButton = new JToggleButton("Play");
+		this.playButton.addActionListener(e -> {
+			TrajectoryPlayback playback = this.playback;
+			if(playback == null){
 				return;
 			}
+			if(this.playButton.isSelected() && this.playbackFrame == playback.getFrameCount() - 1){
+				seek(0);
+				this.updatingSlider = true;
+				this.frameSlider.setValue(0);
+				this.updatingSlider = false;
+			}
+			this.playing = this.playButton.isSelected();
+		});
+		bar.add(this.playButton, BorderLayout.WEST);
+
+		this.frameSlider = new JSlider(0, 0, 0);
+		this.frameSlider.addChangeListener(e -> {
+			if(!this.updatingSlider && this.playback != null){
+				seek(this.frameSlider.getValue());
+			}
+		});
+		bar.add(this.frameSlider, BorderLayout.CENTER);
+
+		this.frameLabel = new JLabel();
+		bar.add(this.frameLabel, BorderLayout.EAST);
+
+		bar.setVisible(false);
+		return bar;
+	}
+
+	/*
+	 * Shows a frame of the open recording, straight from the file without stepping anything
+	 */
+	private void seek(int frame){
+		TrajectoryPlayback playback = this.playback;
+		if(playback == null){
+			return;
+		}
+		this.playbackFrame = frame;
+		positions.capture(playback, frame);
+		this.frameLabel.setText(String.format("Frame %d / %d, %.2f s", frame + 1, playback.getFrameCount(), playback.getTime(frame)));
+		this.simulationContent.repaint();
+	}
+
+	/*
+	 * Plays the open recording at its recorded speed while the play button is down
+	 */
+	private void play(){
+		TrajectoryPlayback playback = this.playback;
+		int shown = this.playbackFrame;
+		double time = playback.getTime(shown);
+		long frameNanos = (long) (1_000_000_000 / FRAMES_PER_SECOND);
+		while(!Thread.currentThread().isInterrupted()){
+			int frame = this.playbackFrame;
+			if(frame != shown){
+				//Seeked with the slider
+				shown = frame;
+				time = playback.getTime(frame);
+			}
+			if(this.playing){
+				time += 1 / FRAMES_PER_SECOND;
+				int next = frame;
+				while(next + 1 < playback.getFrameCount() && playback.getTime(next + 1) <= time){
+					next++;
+				}
+				boolean ended = next == playback.getFrameCount() - 1;
+				if(next != frame || ended){
+					int target = next;
+					shown = next;
+					this.playbackFrame = next;
+					SwingUtilities.invokeLater(() -> {
+						if(this.playback != playback){
+							return;
+						}
+						this.updatingSlider = true;
+						this.frameSlider.setValue(target);
+						this.updatingSlider = false;
+						seek(target);
+						if(ended){
+							this.playing = false;
+							this.playButton.setSelected(false);
+						}
+					});
+				}
+			}
+			LockSupport.parkNanos(frameNanos);
+		}
+	}
+
+	private void paintRecording(Graphics g, TrajectoryPlayback playback){
+		for (Line line : playback.getColliders()){
+			Point start = SCALE.scaleToPixels(line.start).toPoint();
+			Point end = SCALE.scaleToPixels(line.end).toPoint();
+			g.drawLine(start.x, start.y, end.x, end.y);
+		}
+		for (int k = 0; k < playback.getSpringCount(); k++){
+			int a = playback.getSpringA(k);
+			int b = playback.getSpringB(k);
+			if(a >= positions.size() || b >= positions.size()){
+				continue;
+			}
+			Point start = SCALE.scaleToPixels(positions.getPosition(a)).toPoint();
+			Point end = SCALE.scaleToPixels(positions.getPosition(b)).toPoint();
+			g.drawLine(start.x, start.y, end.x, end.y);
 		}
 	}
 
@@ -469,10 +889,39 @@ public class App extends JFrame{
 		return (float)(double)this.viscousDragSpinner.getValue();
 	}
 
+	private float getBarnesHutStrength(){
+		return (float)(double)this.barnesHutSpinner.getValue();
+	}
+
+	/*
+	 * Adds the Barnes-Hut force the first time its strength is not zero, a strength of zero makes it do nothing
+	 */
+	private void setBarnesHutStrength(float strength){
+		if(this.barnesHut != null){
+			this.barnesHut.setStrength(strength);
+		}else if(strength != 0){
+			this.barnesHut = new BarnesHutForce(strength, this.barnesHutSoftening, this.barnesHutTheta);
+			this.system.addForce(this.barnesHut);
+		}
+		this.system.wakeAll();
+	}
+
+	private double getSleepThreshold(){
+		return this.sleepBox.isSelected() ? AppConfig.SLEEP_THRESHOLD : 0;
+	}
+
 	private float getBounceKeep(){
 		return (float)(double)this.bounceKeepSpinner.getValue();
 	}
 
+	private float getTimeStep(){
+		return (float)(double)this.timeStepSpinner.getValue() / 1000;
+	}
+
+	private int getSubsteps(){
+		return (int)this.substepsSpinner.getValue();
+	}
+
 	private Point getPosition(Vector2 v, float radius){
 		return SCALE.scaleToPixels(v.sub(new Vector2(radius, radius))).toPoint();
 	}
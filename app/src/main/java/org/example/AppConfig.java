@@ -1,21 +1,85 @@
 package org.example;
 
+import org.example.simulation.BarnesHutForce;
+import org.example.simulation.ParticleSystem;
+
 import java.io.File;
+import java.io.Serial;
 import java.io.Serializable;
 
 public class AppConfig implements Serializable {
+    //Pinned to the computed value of the first version of this class, so the configs it saved still load
+    @Serial
+    private static final long serialVersionUID = -9051492605621696446L;
+
+    //Shared by the app and headless runs, so a scene behaves the same in both
+    public static final float PIXELS_PER_METER = 60f;
+    public static final float PARTICLE_RADIUS = 0.1f;
+    public static final float DEFAULT_GRAVITY = 9.82f;
+    public static final float DEFAULT_VISCOUS_DRAG = 0.01f;
+    public static final float DEFAULT_BOUNCE_KEEP_PERCENTAGE = ParticleSystem.DEFAULT_BOUNCE_KEEP * 100;
+    public static final float DEFAULT_TIME_STEP = 1 / 60f;
+    public static final int DEFAULT_SUBSTEPS = 16;
+    //Used when sleeping is turned on
+    public static final double SLEEP_THRESHOLD = 0.01;
+    //Barnes-Hut strength 0 leaves the force out
+    public static final float DEFAULT_BARNES_HUT_STRENGTH = 0;
+    public static final float DEFAULT_BARNES_HUT_SOFTENING = PARTICLE_RADIUS;
+    public static final float DEFAULT_BARNES_HUT_THETA = BarnesHutForce.DEFAULT_THETA;
+
     public final EOdeSolver odeSolver;
+    public final EConstraintSolver constraintSolver;
     public final float gravity;
     public final float bounce;
     public final float viscousDrag;
+    public final float timeStep;
+    public final int substeps;
+    public final boolean collisions;
+    public final boolean sleeping;
+    public final float barnesHutStrength;
+    public final float barnesHutSoftening;
+    public final float barnesHutTheta;
     public final File currFile;
 
-    public AppConfig(EOdeSolver odeSolver, float gravity, float bounce, float viscousDrag, File currFile) {
+    public AppConfig(EOdeSolver odeSolver, EConstraintSolver constraintSolver, float gravity, float bounce, float viscousDrag, float timeStep, int substeps, boolean collisions, boolean sleeping,
+                     float barnesHutStrength, float barnesHutSoftening, float barnesHutTheta, File currFile) {
         this.odeSolver = odeSolver;
+        this.constraintSolver = constraintSolver;
         this.gravity = gravity;
         this.bounce = bounce;
         this.viscousDrag = viscousDrag;
+        this.timeStep = timeStep;
+        this.substeps = substeps;
+        this.collisions = collisions;
+        this.sleeping = sleeping;
+        this.barnesHutStrength = barnesHutStrength;
+        this.barnesHutSoftening = barnesHutSoftening;
+        this.barnesHutTheta = barnesHutTheta;
         this.currFile = currFile;
     }
 
+    /*
+     * Configs saved by the first version only hold the ODE solver, gravity, bounce, drag and the current file.
+     * Everything added since comes out of the stream as zero and is replaced by its default.
+     */
+    @Serial
+    private Object readResolve(){
+        if(constraintSolver != null){
+            return this;
+        }
+        AppConfig defaults = getDefault();
+        return new AppConfig(odeSolver, defaults.constraintSolver, gravity, bounce, viscousDrag, defaults.timeStep, defaults.substeps,
+                             defaults.collisions, defaults.sleeping, defaults.barnesHutStrength, defaults.barnesHutSoftening,
+                             defaults.barnesHutTheta, currFile);
+    }
+
+    public boolean hasBarnesHut(){
+        return barnesHutStrength != 0;
+    }
+
+    public static AppConfig getDefault(){
+        return new AppConfig(EOdeSolver.RungeKutta, EConstraintSolver.ConjugateGradient, DEFAULT_GRAVITY, DEFAULT_BOUNCE_KEEP_PERCENTAGE,
+                             DEFAULT_VISCOUS_DRAG, DEFAULT_TIME_STEP, DEFAULT_SUBSTEPS, false, false,
+                             DEFAULT_BARNES_HUT_STRENGTH, DEFAULT_BARNES_HUT_SOFTENING, DEFAULT_BARNES_HUT_THETA, null);
+    }
 }
@@ -0,0 +1,119 @@
+package org.example;
+
+import java.util.Arrays;
+
+/*
+ * Linearly implicit Euler for stiff second order systems. Each step solves
+ * (M - h dF/dv - h^2 dF/dx) dv = h (F + h dF/dx v)
+ * with conjugate gradients, then moves with the new velocity. Coordinates with zero inverse mass are held fixed.
+ * A solve that does not converge keeps its last iterate and is counted, one that blew up is replaced by an
+ * explicit velocity update.
+ */
+public class BackwardEulerSolver implements ODESolver{
+    public static final int DEFAULT_MAX_ITERATIONS = 200;
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+
+    private ConjugateGradientSolver cg = new ConjugateGradientSolver(DEFAULT_MAX_ITERATIONS, DEFAULT_TOLERANCE);
+    private LinearOperator operator = this::multiply;
+    private ImplicitODE ode;
+    private double h;
+    private int n;
+    private int failedSolves;
+
+    private double[] dx = new double[0];
+    private double[] inverseMass = new double[0];
+    private double[] velocity = new double[0];
+    private double[] zero = new double[0];
+    private double[] b = new double[0];
+    private double[] deltaV = new double[0];
+    private double[] scaled = new double[0];
+
+    @Override
+    public void step(double[] state, ODE ode, float time) {
+        if(!(ode instanceof ImplicitODE implicitODE)){
+            throw new IllegalArgumentException("Backward Euler needs an ImplicitODE, got " + ode.getClass());
+        }
+        int half = state.length / 2;
+        if(dx.length != state.length){
+            dx = new double[state.length];
+            inverseMass = new double[half];
+            velocity = new double[half];
+            zero = new double[half];
+            b = new double[half];
+            deltaV = new double[half];
+            scaled = new double[half];
+        }
+
+        double h = time;
+        implicitODE.f(state, dx);
+        implicitODE.linearize(state);
+        implicitODE.getInverseMass(inverseMass);
+
+        for(int i = 0; i < half; i++){
+            velocity[i] = state[half + i] * h;
+        }
+        implicitODE.forceDifferential(velocity, zero, b);
+        for(int i = 0; i < half; i++){
+            b[i] = inverseMass[i] == 0 ? 0 : h * (dx[half + i] / inverseMass[i] + b[i]);
+        }
+
+        this.ode = implicitODE;
+        this.h = h;
+        this.n = half;
+        Arrays.fill(deltaV, 0);
+        boolean converged = cg.solve(operator, b, deltaV, half);
+        this.ode = null;
+        if(!converged){
+            failedSolves++;
+            if(!Double.isFinite(cg.getResidual())){
+                for(int i = 0; i < half; i++){
+                    deltaV[i] = inverseMass[i] == 0 ? 0 : dx[half + i] * h;
+                }
+            }
+        }
+
+        for(int i = 0; i < half; i++){
+            state[half + i] += deltaV[i];
+            state[i] += state[half + i] * h;
+        }
+    }
+
+    /*
+     * out = (M - h dF/dv - h^2 dF/dx) x on the free coordinates, identity on the fixed ones
+     */
+    private void multiply(double[] x, double[] out){
+        for(int i = 0; i < n; i++){
+            scaled[i] = x[i] * h;
+        }
+        ode.forceDifferential(scaled, x, out);
+        for(int i = 0; i < n; i++){
+            out[i] = inverseMass[i] == 0 ? x[i] : x[i] / inverseMass[i] - h * out[i];
+        }
+    }
+
+    /*
+     * Iterations and residual of the linear solve in the last step
+     */
+    public int getIterations(){
+        return cg.getIterations();
+    }
+
+    public double getResidual(){
+        return cg.getResidual();
+    }
+
+    /*
+     * Number of steps whose linear solve did not converge since the solver was created
+     */
+    public int getFailedSolves(){
+        return failedSolves;
+    }
+
+    public void setMaxIterations(int maxIterations){
+        cg.setMaxIterations(maxIterations);
+    }
+
+    public void setTolerance(double tolerance){
+        cg.setTolerance(tolerance);
+    }
+}
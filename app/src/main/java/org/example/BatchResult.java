@@ -0,0 +1,49 @@
+package org.example;
+
+import org.example.simulation.ParticleSystem;
+import org.example.simulation.SimulationParticle;
+
+public class BatchResult {
+    public final ParticleSystem system;
+    public final int steps;
+    public final double simulatedTime; //Seconds
+    public final long elapsedNanos;
+
+    public BatchResult(ParticleSystem system, int steps, double simulatedTime, long elapsedNanos) {
+        this.system = system;
+        this.steps = steps;
+        this.simulatedTime = simulatedTime;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public double getStepsPerSecond(){
+        return elapsedNanos == 0 ? 0 : steps / (elapsedNanos / 1e9);
+    }
+
+    /*
+     * Simulated seconds per wall clock second, above one is faster than real time
+     */
+    public double getRealTimeFactor(){
+        return elapsedNanos == 0 ? 0 : simulatedTime / (elapsedNanos / 1e9);
+    }
+
+    public double getKineticEnergy(){
+        double energy = 0;
+        for(SimulationParticle particle : system.getParticles()){
+            Vector2 velocity = particle.getVelocity();
+            energy += particle.getMass() * velocity.dot(velocity) / 2;
+        }
+        return energy;
+    }
+
+    public Vector2 getCentreOfMass(){
+        double mass = 0, x = 0, y = 0;
+        for(SimulationParticle particle : system.getParticles()){
+            Vector2 position = particle.getPosition();
+            mass += particle.getMass();
+            x += particle.getMass() * position.getX();
+            y += particle.getMass() * position.getY();
+        }
+        return mass == 0 ? new Vector2(0, 0) : new Vector2((float)(x / mass), (float)(y / mass));
+    }
+}
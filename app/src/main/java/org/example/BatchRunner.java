@@ -0,0 +1,99 @@
+package org.example;
+
+import org.example.editor.EditorScene;
+import org.example.simulation.*;
+
+/*
+ * Runs a scene without any user interface, as fast as it can. The system is set up the same way as the app sets
+ * it up from its config, minus the mouse, and every step advances it by one app substep.
+ */
+public class BatchRunner {
+    //The app's default window, in meters
+    public static final Vector2 DEFAULT_WORLD_SIZE = new Vector2(800 / AppConfig.PIXELS_PER_METER, 600 / AppConfig.PIXELS_PER_METER);
+
+    private final EditorScene scene;
+    private final AppConfig config;
+    private Vector2 worldSize = DEFAULT_WORLD_SIZE;
+    private float particleRadius = AppConfig.PARTICLE_RADIUS;
+    private TrajectoryRecorder recorder;
+    private int recordInterval;
+    private long stepsRun;
+
+    public BatchRunner(EditorScene scene, AppConfig config){
+        this.scene = scene;
+        this.config = config;
+    }
+
+    public void setWorldSize(Vector2 worldSize){
+        if(worldSize.getX() <= 0 || worldSize.getY() <= 0){
+            throw new IllegalArgumentException("World size must be greater than zero. Provided value was " + worldSize);
+        }
+        this.worldSize = worldSize;
+    }
+
+    public void setParticleRadius(float particleRadius){
+        if(particleRadius <= 0){
+            throw new IllegalArgumentException("Particle radius must be greater than zero. Provided value was " + particleRadius);
+        }
+        this.particleRadius = particleRadius;
+    }
+
+    /*
+     * Records a frame every interval steps from now on, or nothing with a null recorder
+     */
+    public void setRecorder(TrajectoryRecorder recorder, int interval){
+        if(interval < 1){
+            throw new IllegalArgumentException("Record interval must be at least one step. Provided value was " + interval);
+        }
+        this.recorder = recorder;
+        this.recordInterval = interval;
+    }
+
+    /*
+     * Length of one step, the app's time step divided into its substeps
+     */
+    public float getStepTime(){
+        return config.timeStep / config.substeps;
+    }
+
+    public ParticleSystem createSystem(){
+        ParticleSystem system = new ParticleSystem(worldSize, particleRadius);
+        system.setSolver(config.odeSolver.getSolver());
+        system.setConstraintSolver(config.constraintSolver);
+        scene.initializeSystem(system, new Scale(AppConfig.PIXELS_PER_METER, AppConfig.PIXELS_PER_METER));
+        system.addForce(new GravitationalForce(config.gravity));
+        system.addForce(new ViscousDragForce(config.viscousDrag));
+        if(config.hasBarnesHut()){
+            system.addForce(new BarnesHutForce(config.barnesHutStrength, config.barnesHutSoftening, config.barnesHutTheta));
+        }
+        system.setBounceKeep(config.bounce / 100);
+        system.setParticleCollisions(config.collisions);
+        system.setSleepThreshold(config.sleeping ? AppConfig.SLEEP_THRESHOLD : 0);
+        system.setWalls();
+        return system;
+    }
+
+    public BatchResult run(int steps){
+        return run(createSystem(), steps);
+    }
+
+    /*
+     * Steps the system steps times with the fixed step time
+     */
+    public BatchResult run(ParticleSystem system, int steps){
+        if(steps < 0){
+            throw new IllegalArgumentException("Steps can not be negative. Provided value was " + steps);
+        }
+        float stepTime = getStepTime();
+        long start = System.nanoTime();
+        for(int i = 0; i < steps; i++){
+            system.step(stepTime);
+            stepsRun++;
+            if(recorder != null && stepsRun % recordInterval == 0){
+                recorder.record(system, (double) stepsRun * stepTime);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new BatchResult(system, steps, (double) steps * stepTime, elapsed);
+    }
+}
@@ -0,0 +1,137 @@
+package org.example;
+
+import java.util.Arrays;
+
+/*
+ * Conjugate gradients for symmetric positive definite systems. The work vectors are kept between calls,
+ * so solving systems of the same size again allocates nothing.
+ */
+public final class ConjugateGradientSolver {
+    private int maxIterations;
+    private double tolerance;
+
+    private double[] r = new double[0];
+    private double[] z = new double[0];
+    private double[] p = new double[0];
+    private double[] ap = new double[0];
+
+    private int iterations;
+    private double residual;
+    private boolean converged;
+
+    public ConjugateGradientSolver(int maxIterations, double tolerance){
+        this.setMaxIterations(maxIterations);
+        this.setTolerance(tolerance);
+    }
+
+    /*
+     * Solves A x = b for the first n entries, starting from the values already in x. Stops when the residual norm
+     * is below tolerance times the norm of b, a zero b gives a zero x. Returns whether it converged within the max number of iterations.
+     */
+    public boolean solve(LinearOperator a, double[] b, double[] x, int n){
+        return solve(a, null, b, x, n);
+    }
+
+    /*
+     * Same as above, preconditioned with a diagonal matrix given by its inverse. A null preconditioner means none.
+     */
+    public boolean solve(LinearOperator a, double[] inverseDiagonal, double[] b, double[] x, int n){
+        if(r.length < n){
+            r = new double[n];
+            z = new double[n];
+            p = new double[n];
+            ap = new double[n];
+        }
+
+        //The threshold is relative to b, so a zero b could never be met by a warm start that is not zero
+        double bb = dot(b, b, n);
+        if(bb == 0){
+            Arrays.fill(x, 0, n, 0);
+            iterations = 0;
+            residual = 0;
+            converged = true;
+            return true;
+        }
+
+        a.operate(x, ap);
+        for(int i = 0; i < n; i++){
+            r[i] = b[i] - ap[i];
+        }
+        precondition(inverseDiagonal, n);
+        System.arraycopy(z, 0, p, 0, n);
+
+        double threshold = tolerance * tolerance * bb;
+        double rr = dot(r, r, n);
+        double rz = dot(r, z, n);
+        iterations = 0;
+        while(rr > threshold && iterations < maxIterations){
+            a.operate(p, ap);
+            double pap = dot(p, ap, n);
+            if(pap <= 0){
+                break;
+            }
+            double alpha = rz / pap;
+            for(int i = 0; i < n; i++){
+                x[i] += alpha * p[i];
+                r[i] -= alpha * ap[i];
+            }
+            precondition(inverseDiagonal, n);
+            double rzNew = dot(r, z, n);
+            double beta = rzNew / rz;
+            for(int i = 0; i < n; i++){
+                p[i] = z[i] + beta * p[i];
+            }
+            rz = rzNew;
+            rr = dot(r, r, n);
+            iterations++;
+        }
+
+        residual = Math.sqrt(rr);
+        converged = rr <= threshold;
+        return converged;
+    }
+
+    private void precondition(double[] inverseDiagonal, int n){
+        if(inverseDiagonal == null){
+            System.arraycopy(r, 0, z, 0, n);
+            return;
+        }
+        for(int i = 0; i < n; i++){
+            z[i] = inverseDiagonal[i] * r[i];
+        }
+    }
+
+    static double dot(double[] a, double[] b, int n){
+        double sum = 0;
+        for(int i = 0; i < n; i++){
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    public int getIterations(){
+        return iterations;
+    }
+
+    public double getResidual(){
+        return residual;
+    }
+
+    public boolean isConverged(){
+        return converged;
+    }
+
+    public void setMaxIterations(int maxIterations){
+        if(maxIterations < 1){
+            throw new IllegalArgumentException("Max iterations must be at least one. Provided value was " + maxIterations);
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    public void setTolerance(double tolerance){
+        if(tolerance <= 0){
+            throw new IllegalArgumentException("Tolerance must be greater than zero. Provided value was " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+}
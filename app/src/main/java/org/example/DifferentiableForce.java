@@ -0,0 +1,8 @@
+package org.example;
+
+import org.example.simulation.ForceJacobian;
+import org.example.simulation.ParticleStore;
+
+public interface DifferentiableForce extends Force {
+    void addJacobian(ParticleStore particles, ForceJacobian jacobian);
+}
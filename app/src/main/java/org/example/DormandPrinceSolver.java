@@ -0,0 +1,141 @@
+package org.example;
+
+/*
+ * Embedded Runge-Kutta 5(4) with adaptive step size. A call to step covers the requested time with as many
+ * internal steps as the tolerances need, and the last accepted step size is carried over to the next call.
+ */
+public final class DormandPrinceSolver implements AdaptiveODESolver{
+    public static final double DEFAULT_ABSOLUTE_TOLERANCE = 1e-6;
+    public static final double DEFAULT_RELATIVE_TOLERANCE = 1e-4;
+    public static final double DEFAULT_MIN_STEP = 1e-7;
+
+    private static final double[][] A = {
+            {},
+            {1 / 5.0},
+            {3 / 40.0, 9 / 40.0},
+            {44 / 45.0, -56 / 15.0, 32 / 9.0},
+            {19372 / 6561.0, -25360 / 2187.0, 64448 / 6561.0, -212 / 729.0},
+            {9017 / 3168.0, -355 / 33.0, 46732 / 5247.0, 49 / 176.0, -5103 / 18656.0},
+            {35 / 384.0, 0, 500 / 1113.0, 125 / 192.0, -2187 / 6784.0, 11 / 84.0}
+    };
+    //Difference between the fifth and fourth order weights
+    private static final double[] E = {71 / 57600.0, 0, -71 / 16695.0, 71 / 1920.0, -17253 / 339200.0, 22 / 525.0, -1 / 40.0};
+
+    private static final double SAFETY = 0.9;
+    private static final double MIN_FACTOR = 0.2;
+    private static final double MAX_FACTOR = 5;
+
+    private double absoluteTolerance;
+    private double relativeTolerance;
+    private double minStep = DEFAULT_MIN_STEP;
+
+    private double h = 0;
+    private int acceptedSteps;
+    private int rejectedSteps;
+
+    private double[][] k = new double[7][0];
+    private double[] stage = new double[0];
+
+    public DormandPrinceSolver(){
+        this(DEFAULT_ABSOLUTE_TOLERANCE, DEFAULT_RELATIVE_TOLERANCE);
+    }
+
+    public DormandPrinceSolver(double absoluteTolerance, double relativeTolerance){
+        this.setTolerance(absoluteTolerance, relativeTolerance);
+    }
+
+    @Override
+    public void step(double[] state, ODE ode, float time) {
+        int n = state.length;
+        if(stage.length != n){
+            k = new double[7][n];
+            stage = new double[n];
+        }
+        if(h <= 0){
+            h = time;
+        }
+
+        this.acceptedSteps = 0;
+        this.rejectedSteps = 0;
+
+        double remaining = time;
+        ode.f(state, k[0]);
+        while(remaining > 0){
+            double step = Math.min(h, remaining);
+            boolean last = step == remaining;
+
+            for(int s = 1; s < 7; s++){
+                double[] a = A[s];
+                for(int i = 0; i < n; i++){
+                    double sum = 0;
+                    for(int j = 0; j < s; j++){
+                        sum += a[j] * k[j][i];
+                    }
+                    stage[i] = state[i] + step * sum;
+                }
+                ode.f(stage, k[s]);
+            }
+            //stage now holds the fifth order solution and k[6] the derivative there
+
+            double error = 0;
+            for(int i = 0; i < n; i++){
+                double e = 0;
+                for(int j = 0; j < 7; j++){
+                    e += E[j] * k[j][i];
+                }
+                double scale = absoluteTolerance + relativeTolerance * Math.max(Math.abs(state[i]), Math.abs(stage[i]));
+                double ratio = step * e / scale;
+                error += ratio * ratio;
+            }
+            error = n == 0 ? 0 : Math.sqrt(error / n);
+
+            //A state that is no longer finite can not be judged, so it is rejected with the largest cut
+            boolean finite = Double.isFinite(error);
+            if(!finite && step <= minStep){
+                throw new IllegalStateException("State is not finite even with the min step. Provided step was " + step);
+            }
+            double factor = !finite ? MIN_FACTOR : error == 0 ? MAX_FACTOR : Math.min(MAX_FACTOR, Math.max(MIN_FACTOR, SAFETY * Math.pow(error, -0.2)));
+            if(finite && (error <= 1 || step <= minStep)){
+                System.arraycopy(stage, 0, state, 0, n);
+                double[] first = k[0];
+                k[0] = k[6];
+                k[6] = first;
+                remaining = last ? 0 : remaining - step;
+                acceptedSteps++;
+                //Don't let a short final step shrink the step size carried to the next call
+                if(!last || factor < 1){
+                    h = step * factor;
+                }
+            }else{
+                rejectedSteps++;
+                h = Math.max(step * factor, minStep);
+            }
+        }
+    }
+
+    @Override
+    public void setTolerance(double absoluteTolerance, double relativeTolerance){
+        if(absoluteTolerance <= 0 || relativeTolerance < 0){
+            throw new IllegalArgumentException("Tolerances must be positive. Provided values were " + absoluteTolerance + " and " + relativeTolerance);
+        }
+        this.absoluteTolerance = absoluteTolerance;
+        this.relativeTolerance = relativeTolerance;
+    }
+
+    public void setMinStep(double minStep){
+        if(minStep <= 0){
+            throw new IllegalArgumentException("Min step must be greater than zero. Provided value was " + minStep);
+        }
+        this.minStep = minStep;
+    }
+
+    @Override
+    public int getAcceptedSteps(){
+        return acceptedSteps;
+    }
+
+    @Override
+    public int getRejectedSteps(){
+        return rejectedSteps;
+    }
+}
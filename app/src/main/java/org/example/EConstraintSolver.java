@@ -0,0 +1,13 @@
+package org.example;
+
+public enum EConstraintSolver {
+    ConjugateGradient("Iterative"),
+    Cholesky("Direct"),
+    PositionBased("XPBD");
+
+    public final String displayName;
+
+    EConstraintSolver(String displayName){
+        this.displayName = displayName;
+    }
+}
@@ -4,18 +4,22 @@ import java.util.function.Supplier;
 
 public enum EOdeSolver {
     Euler(EulerSolver::new, "Euler"),
+    SymplecticEuler(SymplecticEulerSolver::new, "Symplectic Euler"),
+    Verlet(VerletSolver::new, "Verlet"),
     MidPoint(MidPointSolver::new, "Midpoint"),
-    RungeKutta(RungeKuttaSolver::new, "RungeKutta");
+    RungeKutta(RungeKuttaSolver::new, "RungeKutta"),
+    DormandPrince(DormandPrinceSolver::new, "Adaptive"),
+    BackwardEuler(BackwardEulerSolver::new, "Implicit");
 
-    private final Supplier<ODESolver<?,?>> supplier;
+    private final Supplier<ODESolver> supplier;
     public final String displayName;
 
-    EOdeSolver(Supplier<ODESolver<?, ?>> supplier, String displayName){
+    EOdeSolver(Supplier<ODESolver> supplier, String displayName){
         this.supplier = supplier;
         this.displayName = displayName;
     }
 
-    public ODESolver<?,?> getSolver(){
+    public ODESolver getSolver(){
         return supplier.get();
     }
 
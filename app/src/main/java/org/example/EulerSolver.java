@@ -1,9 +1,15 @@
 package org.example;
 
-public class EulerSolver<X, DX> implements  ODESolver<X, DX>{
+public class EulerSolver implements ODESolver{
+    private double[] dx = new double[0];
+
     @Override
-    public X step(X state, ODE<X, DX> ode, float time) {
-        DX dx = ode.f(state);
-        return ode.add(state, ode.scale(dx, time));
+    public void step(double[] state, ODE ode, float time) {
+        if(dx.length != state.length){
+            dx = new double[state.length];
+        }
+
+        ode.f(state, dx);
+        Kernels.get().addScaled(state, dx, time, 0, state.length);
     }
 }
@@ -1,9 +1,7 @@
 package org.example;
 
-import org.example.simulation.Particle;
-
-import java.util.List;
+import org.example.simulation.ParticleStore;
 
 public interface Force {
-    void apply(List<Particle> particles);
+    void apply(ParticleStore particles);
 }
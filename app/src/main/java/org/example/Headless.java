@@ -0,0 +1,128 @@
+package org.example;
+
+import org.example.editor.EditorScene;
+import org.example.simulation.ParticleSystem;
+import org.example.simulation.SimulationParticle;
+import org.example.simulation.TrajectoryRecorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/*
+ * Runs a .psim scene for a number of fixed steps without opening a window and reports how fast it ran.
+ * Usage: Headless <scene.psim> <steps> [--solver=RungeKutta] [--constraints=ConjugateGradient] [--dt=0.0166]
+ *        [--substeps=16] [--gravity=9.82] [--drag=0.01] [--bounce=percent] [--collisions] [--sleep] [--width=m] [--height=m]
+ *        [--barnes-hut=strength[,theta]] [--warmup=steps] [--state=out.csv] [--record=out.ptraj] [--velocities]
+ */
+public class Headless {
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        if(args.length < 2){
+            System.out.println("Usage: Headless <scene.psim> <steps> [--solver=name] [--constraints=name] [--dt=seconds] " +
+                    "[--substeps=n] [--gravity=g] [--drag=d] [--bounce=percent] [--collisions] [--sleep] [--width=meters] " +
+                    "[--height=meters] [--barnes-hut=strength[,theta]] [--warmup=steps] [--state=out.csv] [--record=out.ptraj] [--velocities]");
+            System.exit(1);
+        }
+        File sceneFile = new File(args[0]);
+        int steps = Integer.parseInt(args[1]);
+
+        AppConfig defaults = AppConfig.getDefault();
+        EOdeSolver solver = defaults.odeSolver;
+        EConstraintSolver constraintSolver = defaults.constraintSolver;
+        float timeStep = defaults.timeStep;
+        int substeps = defaults.substeps;
+        float gravity = defaults.gravity;
+        float drag = defaults.viscousDrag;
+        float bounce = defaults.bounce;
+        boolean collisions = defaults.collisions;
+        boolean sleeping = defaults.sleeping;
+        float barnesHutStrength = defaults.barnesHutStrength;
+        float barnesHutTheta = defaults.barnesHutTheta;
+        Vector2 worldSize = BatchRunner.DEFAULT_WORLD_SIZE;
+        int warmup = 0;
+        File stateFile = null;
+        File recordFile = null;
+        boolean velocities = false;
+
+        for(int i = 2; i < args.length; i++){
+            String arg = args[i];
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            switch (arg.contains("=") ? arg.substring(0, arg.indexOf('=')) : arg) {
+                case "--solver" -> solver = EOdeSolver.valueOf(value);
+                case "--constraints" -> constraintSolver = EConstraintSolver.valueOf(value);
+                case "--dt" -> timeStep = Float.parseFloat(value);
+                case "--substeps" -> substeps = Integer.parseInt(value);
+                case "--gravity" -> gravity = Float.parseFloat(value);
+                case "--drag" -> drag = Float.parseFloat(value);
+                case "--bounce" -> bounce = Float.parseFloat(value);
+                case "--collisions" -> collisions = true;
+                case "--sleep" -> sleeping = true;
+                case "--width" -> worldSize = new Vector2(Float.parseFloat(value), worldSize.getY());
+                case "--height" -> worldSize = new Vector2(worldSize.getX(), Float.parseFloat(value));
+                case "--barnes-hut" -> {
+                    String[] parts = value.split(",");
+                    if(parts.length > 2){
+                        throw new IllegalArgumentException("Barnes-Hut takes a strength and an optional theta. Provided value was " + value);
+                    }
+                    barnesHutStrength = Float.parseFloat(parts[0]);
+                    if(parts.length == 2){
+                        barnesHutTheta = Float.parseFloat(parts[1]);
+                    }
+                }
+                case "--warmup" -> warmup = Integer.parseInt(value);
+                case "--state" -> stateFile = new File(value);
+                case "--record" -> recordFile = new File(value);
+                case "--velocities" -> velocities = true;
+                default -> throw new IllegalArgumentException("Unknown option. Provided value was " + arg);
+            }
+        }
+        if(timeStep <= 0 || substeps <= 0){
+            throw new IllegalArgumentException("Time step and substeps must be greater than zero. Provided values were " + timeStep + " and " + substeps);
+        }
+
+        EditorScene scene = EditorScene.load(sceneFile);
+        AppConfig config = new AppConfig(solver, constraintSolver, gravity, bounce, drag, timeStep, substeps, collisions, sleeping,
+                                         barnesHutStrength, defaults.barnesHutSoftening, barnesHutTheta, sceneFile);
+        BatchRunner runner = new BatchRunner(scene, config);
+        runner.setWorldSize(worldSize);
+
+        System.out.println("Loaded " + sceneFile + ": " + scene.getParticleCount() + " particles, " + scene.getSpringCount() + " springs");
+        ParticleSystem system = runner.createSystem();
+        if(warmup > 0){
+            //Lets the JIT compile the step before it is timed, the timed run continues from the warmed up state
+            runner.run(system, warmup);
+        }
+        TrajectoryRecorder recorder = null;
+        if(recordFile != null){
+            //One frame per app time step, like recording in the app
+            recorder = new TrajectoryRecorder(recordFile, system, velocities);
+            runner.setRecorder(recorder, substeps);
+        }
+        BatchResult result = runner.run(system, steps);
+        if(recorder != null){
+            recorder.close();
+            System.out.println("Recorded " + recorder.getFrameCount() + " frames to " + recordFile);
+        }
+
+        System.out.println("Solver: " + solver.displayName + ", constraints: " + constraintSolver.displayName + ", step: " + runner.getStepTime() + " s"
+                + ", kernels: " + (Kernels.get() instanceof VectorKernels vector ? vector.getLanes() + " lane vector" : "scalar"));
+        if(config.hasBarnesHut()){
+            System.out.println("Barnes-Hut strength: " + barnesHutStrength + ", theta: " + barnesHutTheta);
+        }
+        System.out.println("Steps: " + result.steps + ", simulated: " + String.format("%.3f", result.simulatedTime) + " s, wall: " + String.format("%.3f", result.elapsedNanos / 1e9) + " s");
+        System.out.println("Steps per second: " + String.format("%.1f", result.getStepsPerSecond()) + ", real time factor: " + String.format("%.2f", result.getRealTimeFactor()) + "x");
+        System.out.println("Centre of mass: " + result.getCentreOfMass() + ", kinetic energy: " + String.format("%.6g", result.getKineticEnergy()) + " J");
+
+        if(stateFile != null){
+            try (PrintWriter writer = new PrintWriter(stateFile)){
+                writer.println("index,x,y,vx,vy");
+                for(SimulationParticle particle : system.getParticles()){
+                    Vector2 position = particle.getPosition();
+                    Vector2 velocity = particle.getVelocity();
+                    writer.println(particle.getIndex() + "," + position.getX() + "," + position.getY() + "," + velocity.getX() + "," + velocity.getY());
+                }
+            }
+            System.out.println("Wrote final state to " + stateFile);
+        }
+    }
+}
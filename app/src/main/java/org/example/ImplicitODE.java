@@ -0,0 +1,22 @@
+package org.example;
+
+/*
+ * A second order ODE (positions followed by velocities) that can also be linearised, which implicit solvers need.
+ */
+public interface ImplicitODE extends ODE {
+    /*
+     * Prepares the force Jacobians at the given state
+     */
+    public void linearize(double[] x);
+
+    /*
+     * Change in force for a change dx in position and dv in velocity around the linearisation point,
+     * df = dF/dx * dx + dF/dv * dv. All three vectors are half the length of the state.
+     */
+    public void forceDifferential(double[] dx, double[] dv, double[] df);
+
+    /*
+     * Inverse mass for every position coordinate, zero for coordinates that can not move
+     */
+    public void getInverseMass(double[] inverseMass);
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+/*
+ * The data parallel loops of the forces and solvers over plain arrays. There is a scalar version and one using the
+ * incubating Vector API, which is only available when the JVM runs with --add-modules jdk.incubator.vector.
+ * The vector version is used when available unless -Dsimulation.vector=false is given, and can be switched at
+ * runtime. Both versions do the same operations in the same order, so they give the same results.
+ */
+public abstract class Kernels {
+    private static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    private static final Kernels SCALAR = new ScalarKernels();
+    private static Kernels vector;
+    private static volatile Kernels current = SCALAR;
+
+    static {
+        if(VECTOR_AVAILABLE && !"false".equals(System.getProperty("simulation.vector"))){
+            setVectorized(true);
+        }
+    }
+
+    public static Kernels get(){
+        return current;
+    }
+
+    public static boolean isVectorAvailable(){
+        return VECTOR_AVAILABLE;
+    }
+
+    public static boolean isVectorized(){
+        return current != SCALAR;
+    }
+
+    public static synchronized void setVectorized(boolean vectorized){
+        if(!vectorized){
+            current = SCALAR;
+            return;
+        }
+        if(!VECTOR_AVAILABLE){
+            throw new IllegalStateException("Vector kernels need the JVM option --add-modules jdk.incubator.vector");
+        }
+        if(vector == null){
+            vector = new VectorKernels();
+        }
+        current = vector;
+    }
+
+    /*
+     * y[i] += x[i] * a for from <= i < to
+     */
+    public abstract void addScaled(double[] y, double[] x, double a, int from, int to);
+
+    /*
+     * out[i] = y[i] + x[i] * a for 0 <= i < n
+     */
+    public abstract void scaledSum(double[] out, double[] y, double[] x, double a, int n);
+
+    /*
+     * y[i] += h * (w0 k0[i] + w1 k1[i] + w2 k2[i] + w3 k3[i]) for 0 <= i < n
+     */
+    public abstract void addWeighted(double[] y, double h, double[] k0, double w0, double[] k1, double w1,
+                                     double[] k2, double w2, double[] k3, double w3, int n);
+
+    /*
+     * Damped springs s in [from, to) between particles a[s] and b[s]. Adds the spring forces to fx and fy.
+     * forceX and forceY are scratch space at the same positions as the springs.
+     */
+    public abstract void applySprings(double[] x, double[] y, double[] vx, double[] vy, double[] fx, double[] fy,
+                                      int[] a, int[] b, double[] restLength, double[] stiffness, double[] damping,
+                                      double[] forceX, double[] forceY, int from, int to);
+}
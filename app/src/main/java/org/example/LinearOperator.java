@@ -0,0 +1,8 @@
+package org.example;
+
+public interface LinearOperator {
+    /*
+     * out = A x
+     */
+    public void operate(double[] x, double[] out);
+}
@@ -1,10 +1,20 @@
 package org.example;
 
-public class MidPointSolver<X, DX> implements ODESolver<X, DX>{
+public class MidPointSolver implements ODESolver{
+    private double[] dx = new double[0];
+    private double[] midpoint = new double[0];
+
     @Override
-    public X step(X state, ODE<X, DX> ode, float time) {
-        X midpoint = ode.add(state, ode.scale(ode.f(state), time / 2));
-        DX dx = ode.f(midpoint);
-        return ode.add(state, ode.scale(dx, time));
+    public void step(double[] state, ODE ode, float time) {
+        if(dx.length != state.length){
+            dx = new double[state.length];
+            midpoint = new double[state.length];
+        }
+
+        ode.f(state, dx);
+        Kernels.get().scaledSum(midpoint, state, dx, time / 2.0, state.length);
+
+        ode.f(midpoint, dx);
+        Kernels.get().addScaled(state, dx, time, 0, state.length);
     }
 }
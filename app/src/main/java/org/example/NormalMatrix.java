@@ -0,0 +1,127 @@
+package org.example;
+
+import java.util.Arrays;
+
+/*
+ * The symmetric product A diag(w) A^T of a frozen sparse matrix. Its pattern and the list of scalar products that
+ * make up every entry are worked out once, so update() only redoes the multiplications.
+ */
+public class NormalMatrix {
+    private final SparseMatrix source;
+    private final SparseMatrix matrix;
+    private final int[] diagonalSlot;
+
+    //Entry productTarget[k] receives source[productLeft[k]] * w[productColumn[k]] * source[productRight[k]]
+    private final int[] productTarget;
+    private final int[] productLeft;
+    private final int[] productRight;
+    private final int[] productColumn;
+
+    public NormalMatrix(SparseMatrix source){
+        this.source = source;
+        int rows = source.getRowDimension();
+        int columns = source.getColumnDimension();
+        int[] rowStart = source.getRowStart();
+        int[] columnIndex = source.getColumnIndex();
+
+        //Transposed pattern, so the rows sharing a column can be found
+        int[] columnStart = new int[columns + 1];
+        for(int column : columnIndex){
+            columnStart[column + 1]++;
+        }
+        for(int c = 0; c < columns; c++){
+            columnStart[c + 1] += columnStart[c];
+        }
+        int[] columnRows = new int[columnIndex.length];
+        int[] columnSlots = new int[columnIndex.length];
+        int[] next = Arrays.copyOf(columnStart, columns);
+        for(int r = 0; r < rows; r++){
+            for(int i = rowStart[r]; i < rowStart[r + 1]; i++){
+                int p = next[columnIndex[i]]++;
+                columnRows[p] = r;
+                columnSlots[p] = i;
+            }
+        }
+
+        int[] normalStart = new int[rows + 1];
+        int[] normalColumns = new int[Math.max(rows, 16)];
+        int productCount = 0;
+        for(int c = 0; c < columns; c++){
+            int degree = columnStart[c + 1] - columnStart[c];
+            productCount += degree * degree;
+        }
+        productTarget = new int[productCount];
+        productLeft = new int[productCount];
+        productRight = new int[productCount];
+        productColumn = new int[productCount];
+        diagonalSlot = new int[rows];
+
+        int[] marker = new int[rows];
+        Arrays.fill(marker, -1);
+        int[] position = new int[rows];
+        int count = 0;
+        int product = 0;
+        for(int r = 0; r < rows; r++){
+            normalStart[r] = count;
+            for(int i = rowStart[r]; i < rowStart[r + 1]; i++){
+                int c = columnIndex[i];
+                for(int p = columnStart[c]; p < columnStart[c + 1]; p++){
+                    int s = columnRows[p];
+                    if(marker[s] != r){
+                        marker[s] = r;
+                        if(count == normalColumns.length){
+                            normalColumns = Arrays.copyOf(normalColumns, count * 2);
+                        }
+                        normalColumns[count++] = s;
+                    }
+                }
+            }
+            //Every row touches itself, even when it has no entries
+            if(marker[r] != r){
+                marker[r] = r;
+                if(count == normalColumns.length){
+                    normalColumns = Arrays.copyOf(normalColumns, count * 2);
+                }
+                normalColumns[count++] = r;
+            }
+            Arrays.sort(normalColumns, normalStart[r], count);
+            for(int slot = normalStart[r]; slot < count; slot++){
+                position[normalColumns[slot]] = slot;
+            }
+            diagonalSlot[r] = position[r];
+
+            for(int i = rowStart[r]; i < rowStart[r + 1]; i++){
+                int c = columnIndex[i];
+                for(int p = columnStart[c]; p < columnStart[c + 1]; p++){
+                    productTarget[product] = position[columnRows[p]];
+                    productLeft[product] = i;
+                    productRight[product] = columnSlots[p];
+                    productColumn[product] = c;
+                    product++;
+                }
+            }
+        }
+        normalStart[rows] = count;
+
+        this.matrix = SparseMatrix.withPattern(rows, rows, normalStart, Arrays.copyOf(normalColumns, count));
+    }
+
+    /*
+     * Recomputes the entries from the current source values, adding regularization to the diagonal
+     */
+    public void update(double[] w, double regularization){
+        double[] a = source.getValues();
+        double[] values = matrix.getValues();
+        Arrays.fill(values, 0);
+        for(int k = 0; k < productTarget.length; k++){
+            values[productTarget[k]] += a[productLeft[k]] * w[productColumn[k]] * a[productRight[k]];
+        }
+        for(int slot : diagonalSlot){
+            values[slot] += regularization;
+        }
+    }
+
+    public SparseMatrix getMatrix(){
+        return matrix;
+    }
+}
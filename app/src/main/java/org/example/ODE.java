@@ -1,7 +1,5 @@
 package org.example;
 
-public interface ODE<X, DX> {
-    public DX f(X x);
-    public X add(X x, DX dx);
-    public DX scale(DX x, float factor);
+public interface ODE {
+    public void f(double[] x, double[] dx);
 }
@@ -1,5 +1,5 @@
 package org.example;
 
-public interface ODESolver<X, DX> {
-    public X step(X state, ODE<X, DX> ode, float time);
+public interface ODESolver {
+    public void step(double[] state, ODE ode, float time);
 }
@@ -0,0 +1,16 @@
+package org.example;
+
+import org.example.simulation.ParticleStore;
+
+/*
+ * A force acting on every particle on its own. apply(particles, from, to) only touches the active particles from
+ * position from up to to in the active list, so disjoint ranges can be applied at the same time.
+ */
+public interface ParticleForce extends Force {
+    void apply(ParticleStore particles, int from, int to);
+
+    @Override
+    default void apply(ParticleStore particles){
+        apply(particles, 0, particles.activeSize());
+    }
+}
@@ -1,26 +1,29 @@
 package org.example;
 
-import java.util.ArrayList;
-import java.util.List;
-
 //Of order 4, don't know how to do other orders
-public class RungeKuttaSolver<X, DX> implements ODESolver<X, DX>{
-    @Override
-    public X step(X state, ODE<X, DX> ode, float time) {
-        List<DX> k = new ArrayList<>();
+public class RungeKuttaSolver implements ODESolver{
+    private static final double[] STAGE_FACTORS = {0.5, 0.5, 1};
+    private static final double[] WEIGHTS = {1/6.0, 1/3.0, 1/3.0, 1/6.0};
 
-        k.add(ode.scale(ode.f(state), time));
+    private double[][] k = new double[4][0];
+    private double[] stage = new double[0];
 
-        for(int i = 1; i < 4; i++){
-            k.add(ode.scale(ode.f(ode.add(state, ode.scale(k.get(i-1), 0.5f))), time));
+    @Override
+    public void step(double[] state, ODE ode, float time) {
+        if(stage.length != state.length){
+            k = new double[4][state.length];
+            stage = new double[state.length];
         }
 
-        float[] factors = {1/6.0f, 1/3.0f, 1/3.0f, 1/6.0f};
-        X res = state;
-        for(int i = 0; i < 4; i++){
-            res = ode.add(res, ode.scale(k.get(i), factors[i]));
+        ode.f(state, k[0]);
+
+        for(int i = 1; i < 4; i++){
+            double factor = STAGE_FACTORS[i - 1] * time;
+            double[] previous = k[i - 1];
+            Kernels.get().scaledSum(stage, state, previous, factor, state.length);
+            ode.f(stage, k[i]);
         }
 
-        return res;
+        Kernels.get().addWeighted(state, time, k[0], WEIGHTS[0], k[1], WEIGHTS[1], k[2], WEIGHTS[2], k[3], WEIGHTS[3], state.length);
     }
 }
@@ -0,0 +1,55 @@
+package org.example;
+
+class ScalarKernels extends Kernels {
+    @Override
+    public void addScaled(double[] y, double[] x, double a, int from, int to) {
+        for(int i = from; i < to; i++){
+            y[i] += x[i] * a;
+        }
+    }
+
+    @Override
+    public void scaledSum(double[] out, double[] y, double[] x, double a, int n) {
+        for(int i = 0; i < n; i++){
+            out[i] = y[i] + x[i] * a;
+        }
+    }
+
+    @Override
+    public void addWeighted(double[] y, double h, double[] k0, double w0, double[] k1, double w1,
+                            double[] k2, double w2, double[] k3, double w3, int n) {
+        for(int i = 0; i < n; i++){
+            y[i] += h * (w0 * k0[i] + w1 * k1[i] + w2 * k2[i] + w3 * k3[i]);
+        }
+    }
+
+    @Override
+    public void applySprings(double[] x, double[] y, double[] vx, double[] vy, double[] fx, double[] fy,
+                             int[] a, int[] b, double[] restLength, double[] stiffness, double[] damping,
+                             double[] forceX, double[] forceY, int from, int to) {
+        for(int s = from; s < to; s++){
+            int i = a[s];
+            int j = b[s];
+
+            double lx = x[i] - x[j];
+            double ly = y[i] - y[j];
+            double length = Math.sqrt(lx * lx + ly * ly);
+            if(length == 0){
+                continue;
+            }
+
+            double dlx = vx[i] - vx[j];
+            double dly = vy[i] - vy[j];
+            double magnitudeSpring = (length - restLength[s]) * stiffness[s];
+            double magnitudeDamping = (dlx * lx + dly * ly) * damping[s] / length;
+            double scale = (magnitudeSpring + magnitudeDamping) / length;
+
+            double springX = lx * scale;
+            double springY = ly * scale;
+            fx[j] += springX;
+            fy[j] += springY;
+            fx[i] -= springX;
+            fy[i] -= springY;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.example;
+
+public final class SimulationClock {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private float timeStep;
+    private int substeps;
+    private int maxStepsPerFrame;
+    private long frameNanos;
+
+    private long lastTime;
+    private long accumulator;
+    private long nextFrame;
+
+    public SimulationClock(float timeStep, int substeps, int maxStepsPerFrame, float framesPerSecond){
+        this.setTimeStep(timeStep);
+        this.setSubsteps(substeps);
+        this.setMaxStepsPerFrame(maxStepsPerFrame);
+        if(framesPerSecond <= 0){
+            throw new IllegalArgumentException("Frames per second must be greater than zero. Provided value was " + framesPerSecond);
+        }
+        this.frameNanos = (long)(NANOS_PER_SECOND / framesPerSecond);
+    }
+
+    public void start(long now){
+        this.lastTime = now;
+        this.accumulator = 0;
+        this.nextFrame = now + frameNanos;
+    }
+
+    /*
+     * Returns the number of fixed steps to take to catch up with the given time. Time that can not be
+     * caught up within maxStepsPerFrame steps is dropped, so a long pause does not turn into a huge step.
+     */
+    public int advance(long now){
+        this.accumulator += now - lastTime;
+        this.lastTime = now;
+
+        long stepNanos = getStepNanos();
+        int steps = (int)Math.min(accumulator / stepNanos, maxStepsPerFrame);
+        this.accumulator -= steps * stepNanos;
+        if(steps == maxStepsPerFrame){
+            this.accumulator = Math.min(accumulator, stepNanos);
+        }
+        return steps;
+    }
+
+    /*
+     * How far the simulation is between the last step and the next one, in [0, 1]
+     */
+    public float getAlpha(){
+        return Math.min(1, accumulator / (float)getStepNanos());
+    }
+
+    /*
+     * Returns the time left until the next frame and moves on to the frame after that
+     */
+    public long nextFrame(long now){
+        long wait = nextFrame - now;
+        this.nextFrame += frameNanos;
+        if(wait < 0){
+            this.nextFrame = now + frameNanos;
+            return 0;
+        }
+        return wait;
+    }
+
+    private long getStepNanos(){
+        return Math.max(1, (long)(timeStep * NANOS_PER_SECOND));
+    }
+
+    public float getTimeStep(){
+        return timeStep;
+    }
+
+    public float getSubstepTime(){
+        return timeStep / substeps;
+    }
+
+    public int getSubsteps(){
+        return substeps;
+    }
+
+    public void setTimeStep(float timeStep){
+        if(timeStep <= 0){
+            throw new IllegalArgumentException("Time step must be greater than zero. Provided value was " + timeStep);
+        }
+        this.timeStep = timeStep;
+    }
+
+    public void setSubsteps(int substeps){
+        if(substeps < 1){
+            throw new IllegalArgumentException("Substeps must be at least one. Provided value was " + substeps);
+        }
+        this.substeps = substeps;
+    }
+
+    public void setMaxStepsPerFrame(int maxStepsPerFrame){
+        if(maxStepsPerFrame < 1){
+            throw new IllegalArgumentException("Max steps per frame must be at least one. Provided value was " + maxStepsPerFrame);
+        }
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+}
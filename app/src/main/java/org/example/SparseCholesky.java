@@ -0,0 +1,296 @@
+package org.example;
+
+import java.util.Arrays;
+
+/*
+ * Sparse Cholesky factorisation P A P^T = L L^T of a symmetric positive definite matrix with a fixed pattern.
+ * analyze() picks a reverse Cuthill-McKee ordering and works out the pattern of L once. factor() then only does the
+ * numeric work, row by row (up-looking), and solve() the two triangular solves.
+ */
+public class SparseCholesky {
+    private int n;
+    private int[] permutation; //permutation[new] = old
+    private int[] inverse; //inverse[old] = new
+
+    //Upper triangle of the permuted matrix by column, with the slot of every entry in the source values
+    private int[] upperStart;
+    private int[] upperRow;
+    private int[] upperSlot;
+
+    private int[] parent; //Elimination tree
+
+    //Columns of row k of L, in the order they have to be eliminated
+    private int[] reachStart;
+    private int[] reach;
+
+    //L by column, diagonal first
+    private int[] lowerStart;
+    private int[] lowerRow;
+    private double[] lowerValues;
+
+    private int[] nextSlot;
+    private double[] work;
+    private double[] solution;
+    private boolean analyzed = false;
+    private boolean factored = false;
+
+    /*
+     * Ordering and symbolic factorisation. Only needs to be redone when the pattern of the matrix changes.
+     */
+    public void analyze(SparseMatrix a){
+        if(a.getRowDimension() != a.getColumnDimension()){
+            throw new IllegalArgumentException("Cholesky needs a square matrix. Provided matrix was " + a.getRowDimension() + "x" + a.getColumnDimension());
+        }
+        n = a.getRowDimension();
+        int[] rowStart = a.getRowStart();
+        int[] columnIndex = a.getColumnIndex();
+
+        permutation = reverseCuthillMcKee(n, rowStart, columnIndex);
+        inverse = new int[n];
+        for(int k = 0; k < n; k++){
+            inverse[permutation[k]] = k;
+        }
+
+        upperStart = new int[n + 1];
+        for(int k = 0; k < n; k++){
+            int old = permutation[k];
+            for(int i = rowStart[old]; i < rowStart[old + 1]; i++){
+                if(inverse[columnIndex[i]] <= k){
+                    upperStart[k + 1]++;
+                }
+            }
+        }
+        for(int k = 0; k < n; k++){
+            upperStart[k + 1] += upperStart[k];
+        }
+        upperRow = new int[upperStart[n]];
+        upperSlot = new int[upperStart[n]];
+        for(int k = 0; k < n; k++){
+            int old = permutation[k];
+            int p = upperStart[k];
+            for(int i = rowStart[old]; i < rowStart[old + 1]; i++){
+                int row = inverse[columnIndex[i]];
+                if(row <= k){
+                    upperRow[p] = row;
+                    upperSlot[p] = i;
+                    p++;
+                }
+            }
+        }
+
+        //Elimination tree, with path compression through ancestor
+        parent = new int[n];
+        int[] ancestor = new int[n];
+        for(int k = 0; k < n; k++){
+            parent[k] = -1;
+            ancestor[k] = -1;
+            for(int p = upperStart[k]; p < upperStart[k + 1]; p++){
+                int i = upperRow[p];
+                while(i != -1 && i < k){
+                    int next = ancestor[i];
+                    ancestor[i] = k;
+                    if(next == -1){
+                        parent[i] = k;
+                    }
+                    i = next;
+                }
+            }
+        }
+
+        //Row patterns of L, each in topological order of the elimination tree
+        reachStart = new int[n + 1];
+        reach = new int[Math.max(n, 16)];
+        int[] columnCount = new int[n];
+        int[] marker = new int[n];
+        Arrays.fill(marker, -1);
+        int[] path = new int[n];
+        int[] stack = new int[n];
+        int count = 0;
+        for(int k = 0; k < n; k++){
+            reachStart[k] = count;
+            marker[k] = k;
+            int top = n;
+            for(int p = upperStart[k]; p < upperStart[k + 1]; p++){
+                int length = 0;
+                for(int i = upperRow[p]; marker[i] != k; i = parent[i]){
+                    path[length++] = i;
+                    marker[i] = k;
+                }
+                while(length > 0){
+                    stack[--top] = path[--length];
+                }
+            }
+            if(count + n - top > reach.length){
+                reach = Arrays.copyOf(reach, Math.max(reach.length * 2, count + n - top));
+            }
+            for(int i = top; i < n; i++){
+                reach[count++] = stack[i];
+                columnCount[stack[i]]++;
+            }
+        }
+        reachStart[n] = count;
+
+        lowerStart = new int[n + 1];
+        for(int j = 0; j < n; j++){
+            lowerStart[j + 1] = lowerStart[j] + columnCount[j] + 1;
+        }
+        lowerRow = new int[lowerStart[n]];
+        lowerValues = new double[lowerStart[n]];
+        nextSlot = new int[n];
+        for(int j = 0; j < n; j++){
+            lowerRow[lowerStart[j]] = j;
+            nextSlot[j] = lowerStart[j] + 1;
+        }
+        for(int k = 0; k < n; k++){
+            for(int q = reachStart[k]; q < reachStart[k + 1]; q++){
+                lowerRow[nextSlot[reach[q]]++] = k;
+            }
+        }
+
+        work = new double[n];
+        solution = new double[n];
+        analyzed = true;
+        factored = false;
+    }
+
+    /*
+     * Numeric factorisation of a matrix with the pattern given to analyze(). Returns false if the matrix turned out
+     * not to be positive definite.
+     */
+    public boolean factor(SparseMatrix a){
+        if(!analyzed){
+            throw new IllegalStateException("The matrix must be analyzed before it is factored");
+        }
+        double[] values = a.getValues();
+        for(int j = 0; j < n; j++){
+            nextSlot[j] = lowerStart[j] + 1;
+        }
+
+        factored = false;
+        for(int k = 0; k < n; k++){
+            for(int p = upperStart[k]; p < upperStart[k + 1]; p++){
+                work[upperRow[p]] += values[upperSlot[p]];
+            }
+            double d = work[k];
+            work[k] = 0;
+            for(int q = reachStart[k]; q < reachStart[k + 1]; q++){
+                int j = reach[q];
+                double lkj = work[j] / lowerValues[lowerStart[j]];
+                work[j] = 0;
+                for(int p = lowerStart[j] + 1; p < nextSlot[j]; p++){
+                    work[lowerRow[p]] -= lowerValues[p] * lkj;
+                }
+                d -= lkj * lkj;
+                lowerValues[nextSlot[j]++] = lkj;
+            }
+            if(!(d > 0)){
+                Arrays.fill(work, 0);
+                return false;
+            }
+            lowerValues[lowerStart[k]] = Math.sqrt(d);
+        }
+        factored = true;
+        return true;
+    }
+
+    /*
+     * x = A^-1 b using the last factorisation. b and x may be the same array.
+     */
+    public void solve(double[] b, double[] x){
+        if(!factored){
+            throw new IllegalStateException("There is no valid factorisation to solve with");
+        }
+        for(int k = 0; k < n; k++){
+            solution[k] = b[permutation[k]];
+        }
+        for(int j = 0; j < n; j++){
+            double value = solution[j] / lowerValues[lowerStart[j]];
+            solution[j] = value;
+            for(int p = lowerStart[j] + 1; p < lowerStart[j + 1]; p++){
+                solution[lowerRow[p]] -= lowerValues[p] * value;
+            }
+        }
+        for(int j = n - 1; j >= 0; j--){
+            double value = solution[j];
+            for(int p = lowerStart[j] + 1; p < lowerStart[j + 1]; p++){
+                value -= lowerValues[p] * solution[lowerRow[p]];
+            }
+            solution[j] = value / lowerValues[lowerStart[j]];
+        }
+        for(int k = 0; k < n; k++){
+            x[permutation[k]] = solution[k];
+        }
+    }
+
+    /*
+     * Breadth first ordering starting from a lowest degree node of every connected component, visiting neighbours
+     * by increasing degree, reversed. Keeps the profile of banded systems like chains narrow.
+     */
+    private static int[] reverseCuthillMcKee(int n, int[] rowStart, int[] columnIndex){
+        int[] degree = new int[n];
+        int maxDegree = 0;
+        for(int i = 0; i < n; i++){
+            degree[i] = rowStart[i + 1] - rowStart[i];
+            maxDegree = Math.max(maxDegree, degree[i]);
+        }
+
+        //Nodes sorted by degree, to pick the start of every component
+        int[] degreeStart = new int[maxDegree + 2];
+        for(int i = 0; i < n; i++){
+            degreeStart[degree[i] + 1]++;
+        }
+        for(int d = 0; d <= maxDegree; d++){
+            degreeStart[d + 1] += degreeStart[d];
+        }
+        int[] byDegree = new int[n];
+        for(int i = 0; i < n; i++){
+            byDegree[degreeStart[degree[i]]++] = i;
+        }
+
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int count = 0;
+        for(int start : byDegree){
+            if(visited[start]){
+                continue;
+            }
+            visited[start] = true;
+            order[count++] = start;
+            for(int head = count - 1; head < count; head++){
+                int v = order[head];
+                int first = count;
+                for(int i = rowStart[v]; i < rowStart[v + 1]; i++){
+                    int u = columnIndex[i];
+                    if(!visited[u]){
+                        visited[u] = true;
+                        order[count++] = u;
+                    }
+                }
+                for(int i = first + 1; i < count; i++){
+                    int u = order[i];
+                    int j = i - 1;
+                    while(j >= first && degree[order[j]] > degree[u]){
+                        order[j + 1] = order[j];
+                        j--;
+                    }
+                    order[j + 1] = u;
+                }
+            }
+        }
+
+        for(int i = 0, j = n - 1; i < j; i++, j--){
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    public boolean isFactored(){
+        return factored;
+    }
+
+    public int getFactorNonZeros(){
+        return analyzed ? lowerStart[n] : 0;
+    }
+}
@@ -0,0 +1,241 @@
+package org.example;
+
+import java.util.Arrays;
+
+/*
+ * Sparse matrix in compressed sparse row form with a fixed sparsity pattern.
+ * The pattern is collected from setEntry calls until freeze() is called. After that only existing entries can be
+ * written, and the products below cost O(non zeros).
+ */
+public class SparseMatrix {
+    private final int rows;
+    private final int columns;
+
+    private int[] rowStart;
+    private int[] columnIndex;
+    private double[] values;
+    private boolean frozen = false;
+
+    //Entries collected before the pattern is frozen
+    private int[] entryRows = new int[16];
+    private int[] entryColumns = new int[16];
+    private double[] entryValues = new double[16];
+    private int entryCount = 0;
+
+    public SparseMatrix(int rows, int columns){
+        if(rows < 0 || columns < 0){
+            throw new IllegalArgumentException("Dimensions can not be negative. Provided values were " + rows + "x" + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /*
+     * Creates a frozen matrix with the given compressed row pattern. Columns within a row keep the given order,
+     * so a caller that knows the pattern can write straight into getValues().
+     */
+    public static SparseMatrix withPattern(int rows, int columns, int[] rowStart, int[] columnIndex){
+        if(rowStart.length != rows + 1 || rowStart[rows] != columnIndex.length){
+            throw new IllegalArgumentException("Row starts do not match a " + rows + " row matrix with " + columnIndex.length + " entries");
+        }
+        SparseMatrix matrix = new SparseMatrix(rows, columns);
+        matrix.rowStart = rowStart;
+        matrix.columnIndex = columnIndex;
+        matrix.values = new double[columnIndex.length];
+        matrix.frozen = true;
+        matrix.entryRows = null;
+        matrix.entryColumns = null;
+        matrix.entryValues = null;
+        return matrix;
+    }
+
+    public void setEntry(int row, int column, double value){
+        checkIndex(row, column);
+        if(!frozen){
+            if(entryCount == entryRows.length){
+                entryRows = Arrays.copyOf(entryRows, entryCount * 2);
+                entryColumns = Arrays.copyOf(entryColumns, entryCount * 2);
+                entryValues = Arrays.copyOf(entryValues, entryCount * 2);
+            }
+            entryRows[entryCount] = row;
+            entryColumns[entryCount] = column;
+            entryValues[entryCount] = value;
+            entryCount++;
+            return;
+        }
+
+        int slot = findSlot(row, column);
+        if(slot < 0){
+            throw new IllegalStateException("Entry (" + row + ", " + column + ") is not part of the sparsity pattern");
+        }
+        values[slot] = value;
+    }
+
+    public double getEntry(int row, int column){
+        checkIndex(row, column);
+        if(!frozen){
+            double value = 0;
+            for(int i = 0; i < entryCount; i++){
+                if(entryRows[i] == row && entryColumns[i] == column){
+                    value = entryValues[i];
+                }
+            }
+            return value;
+        }
+        int slot = findSlot(row, column);
+        return slot < 0 ? 0 : values[slot];
+    }
+
+    /*
+     * Fixes the sparsity pattern to the entries set so far. Later writes to the same entry keep the last value.
+     */
+    public void freeze(){
+        if(frozen){
+            return;
+        }
+
+        rowStart = new int[rows + 1];
+        for(int i = 0; i < entryCount; i++){
+            rowStart[entryRows[i] + 1]++;
+        }
+        for(int r = 0; r < rows; r++){
+            rowStart[r + 1] += rowStart[r];
+        }
+
+        int[] next = Arrays.copyOf(rowStart, rows);
+        int[] columnsByRow = new int[entryCount];
+        double[] valuesByRow = new double[entryCount];
+        for(int i = 0; i < entryCount; i++){
+            int slot = next[entryRows[i]]++;
+            columnsByRow[slot] = entryColumns[i];
+            valuesByRow[slot] = entryValues[i];
+        }
+
+        //Drop duplicate columns within a row, keeping the last value written
+        int[] compactStart = new int[rows + 1];
+        int count = 0;
+        for(int r = 0; r < rows; r++){
+            compactStart[r] = count;
+            for(int i = rowStart[r]; i < rowStart[r + 1]; i++){
+                int existing = -1;
+                for(int j = compactStart[r]; j < count; j++){
+                    if(columnsByRow[j] == columnsByRow[i]){
+                        existing = j;
+                        break;
+                    }
+                }
+                if(existing >= 0){
+                    valuesByRow[existing] = valuesByRow[i];
+                }else{
+                    columnsByRow[count] = columnsByRow[i];
+                    valuesByRow[count] = valuesByRow[i];
+                    count++;
+                }
+            }
+        }
+        compactStart[rows] = count;
+
+        this.rowStart = compactStart;
+        this.columnIndex = Arrays.copyOf(columnsByRow, count);
+        this.values = Arrays.copyOf(valuesByRow, count);
+        this.frozen = true;
+
+        this.entryRows = null;
+        this.entryColumns = null;
+        this.entryValues = null;
+    }
+
+    public boolean isFrozen(){
+        return frozen;
+    }
+
+    /*
+     * out = A x
+     */
+    public void operate(double[] x, double[] out){
+        checkFrozen();
+        for(int r = 0; r < rows; r++){
+            double sum = 0;
+            for(int i = rowStart[r]; i < rowStart[r + 1]; i++){
+                sum += values[i] * x[columnIndex[i]];
+            }
+            out[r] = sum;
+        }
+    }
+
+    /*
+     * out = A^T x
+     */
+    public void operateTranspose(double[] x, double[] out){
+        checkFrozen();
+        Arrays.fill(out, 0, columns, 0);
+        for(int r = 0; r < rows; r++){
+            double xr = x[r];
+            if(xr == 0){
+                continue;
+            }
+            for(int i = rowStart[r]; i < rowStart[r + 1]; i++){
+                out[columnIndex[i]] += values[i] * xr;
+            }
+        }
+    }
+
+    /*
+     * out = A diag(w) A^T x, using temp (columns long) as scratch space
+     */
+    public void operateNormal(double[] w, double[] x, double[] temp, double[] out){
+        operateTranspose(x, temp);
+        for(int c = 0; c < columns; c++){
+            temp[c] *= w[c];
+        }
+        operate(temp, out);
+    }
+
+    private int findSlot(int row, int column){
+        for(int i = rowStart[row]; i < rowStart[row + 1]; i++){
+            if(columnIndex[i] == column){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void checkIndex(int row, int column){
+        if(row < 0 || row >= rows || column < 0 || column >= columns){
+            throw new IndexOutOfBoundsException("Entry (" + row + ", " + column + ") is outside a " + rows + "x" + columns + " matrix");
+        }
+    }
+
+    private void checkFrozen(){
+        if(!frozen){
+            throw new IllegalStateException("The sparsity pattern must be frozen before the matrix is used");
+        }
+    }
+
+    public int getRowDimension(){
+        return rows;
+    }
+
+    public int getColumnDimension(){
+        return columns;
+    }
+
+    public int getNonZeros(){
+        return frozen ? values.length : entryCount;
+    }
+
+    public int[] getRowStart(){
+        checkFrozen();
+        return rowStart;
+    }
+
+    public int[] getColumnIndex(){
+        checkFrozen();
+        return columnIndex;
+    }
+
+    public double[] getValues(){
+        checkFrozen();
+        return values;
+    }
+}
@@ -0,0 +1,25 @@
+package org.example;
+
+/*
+ * Semi-implicit Euler for second order systems. The state must hold positions in its first half and the
+ * matching velocities in its second half, so the derivative is velocities followed by accelerations.
+ */
+public class SymplecticEulerSolver implements ODESolver{
+    private double[] dx = new double[0];
+
+    @Override
+    public void step(double[] state, ODE ode, float time) {
+        if(dx.length != state.length){
+            dx = new double[state.length];
+        }
+        int half = state.length / 2;
+
+        ode.f(state, dx);
+        for(int i = half; i < state.length; i++){
+            state[i] += dx[i] * time;
+        }
+        for(int i = 0; i < half; i++){
+            state[i] += state[half + i] * time;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * Kernels over the preferred vector width of the machine. Loop tails are left to the scalar kernels.
+ * Only loaded when the jdk.incubator.vector module is present.
+ */
+class VectorKernels extends Kernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final ScalarKernels scalar = new ScalarKernels();
+
+    int getLanes(){
+        return SPECIES.length();
+    }
+
+    @Override
+    public void addScaled(double[] y, double[] x, double a, int from, int to) {
+        int i = from;
+        for(int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()){
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, i);
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, i);
+            vy.add(vx.mul(a)).intoArray(y, i);
+        }
+        scalar.addScaled(y, x, a, i, to);
+    }
+
+    @Override
+    public void scaledSum(double[] out, double[] y, double[] x, double a, int n) {
+        int i = 0;
+        for(int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()){
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, i);
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, i);
+            vy.add(vx.mul(a)).intoArray(out, i);
+        }
+        for(; i < n; i++){
+            out[i] = y[i] + x[i] * a;
+        }
+    }
+
+    @Override
+    public void addWeighted(double[] y, double h, double[] k0, double w0, double[] k1, double w1,
+                            double[] k2, double w2, double[] k3, double w3, int n) {
+        int i = 0;
+        for(int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()){
+            DoubleVector sum = DoubleVector.fromArray(SPECIES, k0, i).mul(w0)
+                    .add(DoubleVector.fromArray(SPECIES, k1, i).mul(w1))
+                    .add(DoubleVector.fromArray(SPECIES, k2, i).mul(w2))
+                    .add(DoubleVector.fromArray(SPECIES, k3, i).mul(w3));
+            DoubleVector.fromArray(SPECIES, y, i).add(sum.mul(h)).intoArray(y, i);
+        }
+        for(; i < n; i++){
+            y[i] += h * (w0 * k0[i] + w1 * k1[i] + w2 * k2[i] + w3 * k3[i]);
+        }
+    }
+
+    /*
+     * The forces are computed a vector of springs at a time with gathered particle data and written to the scratch
+     * arrays. They are added to the particles afterwards one spring at a time, since springs in one vector may share
+     * a particle.
+     */
+    @Override
+    public void applySprings(double[] x, double[] y, double[] vx, double[] vy, double[] fx, double[] fy,
+                             int[] a, int[] b, double[] restLength, double[] stiffness, double[] damping,
+                             double[] forceX, double[] forceY, int from, int to) {
+        int s = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for(; s < bound; s += SPECIES.length()){
+            DoubleVector lx = DoubleVector.fromArray(SPECIES, x, 0, a, s).sub(DoubleVector.fromArray(SPECIES, x, 0, b, s));
+            DoubleVector ly = DoubleVector.fromArray(SPECIES, y, 0, a, s).sub(DoubleVector.fromArray(SPECIES, y, 0, b, s));
+            DoubleVector length = lx.mul(lx).add(ly.mul(ly)).lanewise(VectorOperators.SQRT);
+            VectorMask<Double> degenerate = length.eq(0);
+
+            DoubleVector dlx = DoubleVector.fromArray(SPECIES, vx, 0, a, s).sub(DoubleVector.fromArray(SPECIES, vx, 0, b, s));
+            DoubleVector dly = DoubleVector.fromArray(SPECIES, vy, 0, a, s).sub(DoubleVector.fromArray(SPECIES, vy, 0, b, s));
+            DoubleVector magnitudeSpring = length.sub(DoubleVector.fromArray(SPECIES, restLength, s))
+                    .mul(DoubleVector.fromArray(SPECIES, stiffness, s));
+            DoubleVector magnitudeDamping = dlx.mul(lx).add(dly.mul(ly))
+                    .mul(DoubleVector.fromArray(SPECIES, damping, s)).div(length);
+            DoubleVector scale = magnitudeSpring.add(magnitudeDamping).div(length).blend(0, degenerate);
+
+            lx.mul(scale).intoArray(forceX, s);
+            ly.mul(scale).intoArray(forceY, s);
+        }
+        for(int k = from; k < bound; k++){
+            int i = a[k];
+            int j = b[k];
+            fx[j] += forceX[k];
+            fy[j] += forceY[k];
+            fx[i] -= forceX[k];
+            fy[i] -= forceY[k];
+        }
+        scalar.applySprings(x, y, vx, vy, fx, fy, a, b, restLength, stiffness, damping, forceX, forceY, bound, to);
+    }
+}
@@ -0,0 +1,29 @@
+package org.example;
+
+/*
+ * Leapfrog in drift-kick-drift form, which needs one evaluation per step. The state must hold positions in its
+ * first half and the matching velocities in its second half.
+ */
+public class VerletSolver implements ODESolver{
+    private double[] dx = new double[0];
+
+    @Override
+    public void step(double[] state, ODE ode, float time) {
+        if(dx.length != state.length){
+            dx = new double[state.length];
+        }
+        int half = state.length / 2;
+        double halfTime = time / 2.0;
+
+        for(int i = 0; i < half; i++){
+            state[i] += state[half + i] * halfTime;
+        }
+        ode.f(state, dx);
+        for(int i = half; i < state.length; i++){
+            state[i] += dx[i] * time;
+        }
+        for(int i = 0; i < half; i++){
+            state[i] += state[half + i] * halfTime;
+        }
+    }
+}
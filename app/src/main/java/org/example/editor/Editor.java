@@ -140,13 +140,13 @@ public class Editor extends JPanel {
     }
 
     public void save(ObjectOutputStream oos) throws IOException {
-        oos.writeObject(particles);
-        oos.writeObject(editorSprings);
+        getScene().write(oos);
     }
 
     public void load(ObjectInputStream ois) throws ClassNotFoundException, IOException {
-        this.particles = (List<EditorParticle>) ois.readObject();
-        this.editorSprings = (List<EditorSpring>) ois.readObject();
+        EditorScene scene = EditorScene.read(ois);
+        this.particles = scene.particles;
+        this.editorSprings = scene.springs;
         this.clearSelection();
         this.repaint();
     }
@@ -177,41 +177,20 @@ public class Editor extends JPanel {
     }
 
     public void initializeSystem(ParticleSystem system){
-        List<Particle> particles = new ArrayList<>();
-        Map<EditorParticle, Integer> mapping = new HashMap<>();
-        for (EditorParticle particle : this.particles){
-            mapping.put(particle, particles.size());
-            particles.add(new Particle(scale.scaleToMeters(particle.getPosition()), particle.getMass()));
-        }
-        List<SimulationParticle> simulationParticles = ParticleFactory.createSimulationParticles(particles);
-        system.addAllParticles(simulationParticles);
-
-        for (EditorParticle particle : this.particles){
-            if(!particle.isMoveable()){
-                int index = mapping.get(particle);
-                system.addConstraints(new ImmovableConstraint(simulationParticles.get(index)));
-            }
-        }
-
-//        for (int i = 0; i < Math.min(simulationParticles.size(), 2); i++){
-//            system.addConstraints(new ImmovableConstraint(simulationParticles.get(i)));
-//        }
+        getScene().initializeSystem(system, scale);
+    }
 
-        for (EditorSpring editorSpring : editorSprings){
-            SimulationParticle p1 = simulationParticles.get(mapping.get(editorSpring.p1));
-            SimulationParticle p2 = simulationParticles.get(mapping.get(editorSpring.p2));
-            Vector2 diff = p2.getPosition().sub(p1.getPosition());
-            if(editorSpring.isStiff){
-                system.addConstraints(new DistanceConstraint(p1, p2, diff.length()));
+    public EditorScene getScene(){
+        return new EditorScene(particles, editorSprings);
+    }
 
-                //Hack to get stiff constraints to display
-                SpringForce force = new SpringForce(p1, p2, diff.length(), 0, 0);
-                system.addForce(force);
-            }else{
-                SpringForce force = new SpringForce(p1, p2, diff.length(), editorSpring.springConstant, editorSpring.dampingConstant);
-                system.addForce(force);
-            }
-        }
+    /*
+     * Adds the particles and springs of the scene to the ones already in the editor
+     */
+    public void addScene(EditorScene scene){
+        this.particles.addAll(scene.particles);
+        this.editorSprings.addAll(scene.springs);
+        this.repaint();
     }
 
     ImmutableList<EditorParticle> getEditorParticles(){
@@ -0,0 +1,107 @@
+package org.example.editor;
+
+import org.example.Scale;
+import org.example.Vector2;
+import org.example.simulation.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.List;
+
+/*
+ * The particles and springs of a scene, without any Swing. This is what a .psim file holds, and what the editor
+ * and headless runs turn into a particle system.
+ */
+public class EditorScene {
+    final List<EditorParticle> particles;
+    final List<EditorSpring> springs;
+
+    EditorScene(List<EditorParticle> particles, List<EditorSpring> springs){
+        this.particles = particles;
+        this.springs = springs;
+    }
+
+    /*
+     * The scene of a builder in editor pixels, converted from meters by scale
+     */
+    public static EditorScene of(SceneBuilder builder, Scale scale){
+        List<EditorParticle> particles = new ArrayList<>(builder.getParticleCount());
+        for(int i = 0; i < builder.getParticleCount(); i++){
+            Vector2 position = scale.scaleToPixels(builder.getPosition(i));
+            particles.add(builder.isPinned(i) ? EditorParticle.createImmovable(position)
+                                              : EditorParticle.createMoveable(position, builder.getMass(i)));
+        }
+        List<EditorSpring> springs = new ArrayList<>(builder.getLinkCount());
+        for(int k = 0; k < builder.getLinkCount(); k++){
+            EditorParticle p1 = particles.get(builder.getLinkA(k));
+            EditorParticle p2 = particles.get(builder.getLinkB(k));
+            springs.add(builder.isLinkStiff(k) ? new EditorSpring(p1, p2)
+                                               : new EditorSpring(p1, p2, builder.getLinkSpringConstant(k), builder.getLinkDampingConstant(k)));
+        }
+        return new EditorScene(particles, springs);
+    }
+
+    public static EditorScene load(File file) throws IOException, ClassNotFoundException {
+        try (FileInputStream is = new FileInputStream(file)){
+            return read(new ObjectInputStream(is));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static EditorScene read(ObjectInputStream ois) throws ClassNotFoundException, IOException {
+        List<EditorParticle> particles = (List<EditorParticle>) ois.readObject();
+        List<EditorSpring> springs = (List<EditorSpring>) ois.readObject();
+        return new EditorScene(particles, springs);
+    }
+
+    public void write(ObjectOutputStream oos) throws IOException {
+        oos.writeObject(particles);
+        oos.writeObject(springs);
+    }
+
+    public int getParticleCount(){
+        return particles.size();
+    }
+
+    public int getSpringCount(){
+        return springs.size();
+    }
+
+    /*
+     * Adds the particles, pins, springs and stiff constraints of the scene to the system, with editor positions
+     * converted to meters by scale
+     */
+    public void initializeSystem(ParticleSystem system, Scale scale){
+        List<Particle> particles = new ArrayList<>();
+        Map<EditorParticle, Integer> mapping = new HashMap<>();
+        for (EditorParticle particle : this.particles){
+            mapping.put(particle, particles.size());
+            particles.add(new Particle(scale.scaleToMeters(particle.getPosition()), particle.getMass()));
+        }
+        List<SimulationParticle> simulationParticles = ParticleFactory.createSimulationParticles(particles);
+        system.addAllParticles(simulationParticles);
+
+        for (EditorParticle particle : this.particles){
+            if(!particle.isMoveable()){
+                int index = mapping.get(particle);
+                system.addConstraints(new ImmovableConstraint(simulationParticles.get(index)));
+            }
+        }
+
+        SpringNetwork network = new SpringNetwork(springs.size());
+        for (EditorSpring editorSpring : springs){
+            SimulationParticle p1 = simulationParticles.get(mapping.get(editorSpring.p1));
+            SimulationParticle p2 = simulationParticles.get(mapping.get(editorSpring.p2));
+            Vector2 diff = p2.getPosition().sub(p1.getPosition());
+            if(editorSpring.isStiff){
+                system.addConstraints(new DistanceConstraint(p1, p2, diff.length()));
+
+                //Hack to get stiff constraints to display
+                network.add(p1, p2, diff.length(), 0, 0);
+            }else{
+                network.add(p1, p2, diff.length(), editorSpring.springConstant, editorSpring.dampingConstant);
+            }
+        }
+        system.addForce(network);
+    }
+}
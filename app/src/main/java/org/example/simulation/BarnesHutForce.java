@@ -0,0 +1,278 @@
+package org.example.simulation;
+
+import org.example.Force;
+
+import java.util.Arrays;
+
+/*
+ * Mutual inverse square force between every pair of particles, with their masses as charges. A positive strength
+ * attracts like gravitation, a negative one repels like equal charges. Softening keeps close pairs finite.
+ *
+ * A quadtree over all particles is rebuilt every evaluation and each awake particle walks it from the root. A node
+ * whose width seen from the particle is below the opening angle theta acts as one body at its centre of mass, so an
+ * evaluation costs O(n log n). Theta 0 opens every node and sums all pairs directly, nodes containing the particle
+ * are opened whatever theta is.
+ */
+public final class BarnesHutForce implements Force {
+    public static final float DEFAULT_THETA = 0.5f;
+    private static final int MAX_DEPTH = 32; //Deeper nodes keep all their particles, so coincident particles end there
+    private static final int LEAF_SIZE = 1;
+
+    private float strength;
+    private float softening;
+    private float theta;
+
+    //Node n is a square of half width nodeHalf[n] around nodeX[n], nodeY[n] holding nodeMass[n] with its centre of
+    //mass at nodeComX[n], nodeComY[n]. Inner nodes have four children from nodeChild[n], leaves hold the particles
+    //order[nodeStart[n]] up to order[nodeStart[n] + nodeCount[n]]
+    private double[] nodeX = new double[0];
+    private double[] nodeY = new double[0];
+    private double[] nodeHalf = new double[0];
+    private double[] nodeMass = new double[0];
+    private double[] nodeComX = new double[0];
+    private double[] nodeComY = new double[0];
+    private int[] nodeChild = new int[0];
+    private int[] nodeStart = new int[0];
+    private int[] nodeCount = new int[0];
+    private int nodes;
+
+    private int[] order = new int[0];
+    private final int[] stack = new int[MAX_DEPTH * 3 + 4];
+
+    public BarnesHutForce(float strength, float softening){
+        this(strength, softening, DEFAULT_THETA);
+    }
+
+    public BarnesHutForce(float strength, float softening, float theta){
+        this.strength = strength;
+        this.setSoftening(softening);
+        this.setTheta(theta);
+    }
+
+    @Override
+    public void apply(ParticleStore particles) {
+        int n = particles.size();
+        if(n < 2 || strength == 0){
+            return;
+        }
+        build(particles);
+
+        double[] x = particles.x;
+        double[] y = particles.y;
+        double[] mass = particles.mass;
+        double squaredTheta = (double) theta * theta;
+        double squaredSoftening = (double) softening * softening;
+        for(int k = 0; k < particles.activeCount; k++){
+            int i = particles.active[k];
+            double px = x[i];
+            double py = y[i];
+            double ax = 0;
+            double ay = 0;
+
+            int top = 0;
+            stack[top++] = 0;
+            while(top > 0){
+                int node = stack[--top];
+                double dx = nodeComX[node] - px;
+                double dy = nodeComY[node] - py;
+                double squaredDistance = dx * dx + dy * dy;
+                double half = nodeHalf[node];
+                double width = half * 2;
+                //A node holding the particle is always opened, otherwise a large theta would let it pull on itself
+                boolean inside = Math.abs(px - nodeX[node]) <= half && Math.abs(py - nodeY[node]) <= half;
+
+                if(nodeChild[node] >= 0 && (inside || width * width >= squaredTheta * squaredDistance)){
+                    int child = nodeChild[node];
+                    for(int c = 0; c < 4; c++){
+                        if(nodeMass[child + c] > 0){
+                            stack[top++] = child + c;
+                        }
+                    }
+                    continue;
+                }
+
+                if(nodeChild[node] >= 0){
+                    //Far enough away to act as one body
+                    double r2 = squaredDistance + squaredSoftening;
+                    double scale = nodeMass[node] / (r2 * Math.sqrt(r2));
+                    ax += dx * scale;
+                    ay += dy * scale;
+                    continue;
+                }
+
+                for(int p = nodeStart[node]; p < nodeStart[node] + nodeCount[node]; p++){
+                    int j = order[p];
+                    if(j == i){
+                        continue;
+                    }
+                    double ox = x[j] - px;
+                    double oy = y[j] - py;
+                    double r2 = ox * ox + oy * oy + squaredSoftening;
+                    if(r2 == 0){
+                        continue;
+                    }
+                    double scale = mass[j] / (r2 * Math.sqrt(r2));
+                    ax += ox * scale;
+                    ay += oy * scale;
+                }
+            }
+
+            particles.fx[i] += strength * mass[i] * ax;
+            particles.fy[i] += strength * mass[i] * ay;
+        }
+    }
+
+    private void build(ParticleStore particles){
+        int n = particles.size();
+        double[] x = particles.x;
+        double[] y = particles.y;
+        if(order.length < n){
+            order = new int[n];
+        }
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < n; i++){
+            order[i] = i;
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        double half = Math.max(Math.max(maxX - minX, maxY - minY) / 2, 1e-9);
+
+        nodes = 0;
+        addNode((minX + maxX) / 2, (minY + maxY) / 2, half);
+        fill(particles, 0, 0, n, 0);
+    }
+
+    /*
+     * Fills in the node for the particles order[from] up to order[to]. Its four children are allocated together
+     * before any of them is filled, so they sit next to each other.
+     */
+    private void fill(ParticleStore particles, int node, int from, int to, int depth){
+        double cx = nodeX[node];
+        double cy = nodeY[node];
+
+        if(to - from <= LEAF_SIZE || depth >= MAX_DEPTH){
+            double[] x = particles.x;
+            double[] y = particles.y;
+            double[] mass = particles.mass;
+            double m = 0, mx = 0, my = 0;
+            for(int p = from; p < to; p++){
+                int i = order[p];
+                m += mass[i];
+                mx += mass[i] * x[i];
+                my += mass[i] * y[i];
+            }
+            setMass(node, m, mx, my);
+            nodeStart[node] = from;
+            nodeCount[node] = to - from;
+            return;
+        }
+
+        //Quadrants in the order top left, top right, bottom left, bottom right
+        int middle = partition(particles.y, from, to, cy);
+        int top = partition(particles.x, from, middle, cx);
+        int bottom = partition(particles.x, middle, to, cx);
+
+        double quarter = nodeHalf[node] / 2;
+        int child = addNode(cx - quarter, cy - quarter, quarter);
+        addNode(cx + quarter, cy - quarter, quarter);
+        addNode(cx - quarter, cy + quarter, quarter);
+        addNode(cx + quarter, cy + quarter, quarter);
+        nodeChild[node] = child;
+        fill(particles, child, from, top, depth + 1);
+        fill(particles, child + 1, top, middle, depth + 1);
+        fill(particles, child + 2, middle, bottom, depth + 1);
+        fill(particles, child + 3, bottom, to, depth + 1);
+
+        double m = 0, mx = 0, my = 0;
+        for(int c = child; c < child + 4; c++){
+            m += nodeMass[c];
+            mx += nodeMass[c] * nodeComX[c];
+            my += nodeMass[c] * nodeComY[c];
+        }
+        setMass(node, m, mx, my);
+    }
+
+    private void setMass(int node, double m, double mx, double my){
+        nodeMass[node] = m;
+        nodeComX[node] = m > 0 ? mx / m : nodeX[node];
+        nodeComY[node] = m > 0 ? my / m : nodeY[node];
+    }
+
+    private int addNode(double cx, double cy, double half){
+        if(nodes == nodeX.length){
+            int capacity = Math.max(64, nodes * 2);
+            nodeX = Arrays.copyOf(nodeX, capacity);
+            nodeY = Arrays.copyOf(nodeY, capacity);
+            nodeHalf = Arrays.copyOf(nodeHalf, capacity);
+            nodeMass = Arrays.copyOf(nodeMass, capacity);
+            nodeComX = Arrays.copyOf(nodeComX, capacity);
+            nodeComY = Arrays.copyOf(nodeComY, capacity);
+            nodeChild = Arrays.copyOf(nodeChild, capacity);
+            nodeStart = Arrays.copyOf(nodeStart, capacity);
+            nodeCount = Arrays.copyOf(nodeCount, capacity);
+        }
+        int node = nodes++;
+        nodeX[node] = cx;
+        nodeY[node] = cy;
+        nodeHalf[node] = half;
+        nodeChild[node] = -1;
+        nodeStart[node] = 0;
+        nodeCount[node] = 0;
+        return node;
+    }
+
+    /*
+     * Moves the particles of order[from..to) with coordinate below split to the front and returns where the rest start
+     */
+    private int partition(double[] coordinate, int from, int to, double split){
+        int i = from;
+        int j = to - 1;
+        while(i <= j){
+            if(coordinate[order[i]] < split){
+                i++;
+            }else{
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+                j--;
+            }
+        }
+        return i;
+    }
+
+    public float getStrength() {
+        return strength;
+    }
+
+    public void setStrength(float strength) {
+        this.strength = strength;
+    }
+
+    public float getSoftening() {
+        return softening;
+    }
+
+    public void setSoftening(float softening) {
+        if(softening < 0){
+            throw new IllegalArgumentException("Softening can not be negative. Provided value was " + softening);
+        }
+        this.softening = softening;
+    }
+
+    public float getTheta() {
+        return theta;
+    }
+
+    /*
+     * Opening angle, the largest node width over distance that is still treated as one body
+     */
+    public void setTheta(float theta) {
+        if(theta < 0){
+            throw new IllegalArgumentException("Theta can not be negative. Provided value was " + theta);
+        }
+        this.theta = theta;
+    }
+}
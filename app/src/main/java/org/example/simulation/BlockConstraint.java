@@ -0,0 +1,33 @@
+package org.example.simulation;
+
+/*
+ * Constraint that only touches a fixed set of particles. The particles are read once when the system sets up its
+ * matrices, and from then on the constraint writes its rows into slots the system reserved for it.
+ *
+ * The Jacobian block of a constraint is getRows() x (2 * particles) in row major order, with the columns of each
+ * particle ordered x, y and the particles ordered as returned by getParticles().
+ */
+public interface BlockConstraint {
+    SimulationParticle[] getParticles();
+
+    int getRows();
+
+    /*
+     * Writes the constraint values from constraint[row] and the Jacobian and its time derivative from jacobian[slot].
+     * The store indices of the particles are indices[first] onwards.
+     */
+    void evaluate(ParticleStore particles, int[] indices, int first, double[] constraint, int row,
+                  double[] jacobian, double[] jacobianDerivative, int slot);
+
+    /*
+     * Inverse stiffness used by the position based solver, zero for a hard constraint
+     */
+    default double getCompliance(){
+        return 0;
+    }
+
+    /*
+     * Called once the constraint forces have been added to the store
+     */
+    default void apply(float time, ParticleStore particles, int[] indices, int first){}
+}
@@ -0,0 +1,286 @@
+package org.example.simulation;
+
+import org.example.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * A connected group of particles and the constraints between them. Constraints never couple two islands, so every
+ * island solves its own small system and islands can be solved at the same time. Each island only reads and writes
+ * the store entries of its own particles.
+ */
+class ConstraintIsland {
+    static final double REGULARIZATION = 1e-6;
+
+    private final int[] particles; //Store indices, the local column of particles[i] is i * 2
+    private final List<BlockConstraint> constraints;
+
+    //Per constraint: first entry in constraintParticles (store indices), first row and first Jacobian slot
+    private final int[] constraintParticleStart;
+    private final int[] constraintParticles;
+    private final int[] constraintRow;
+    private final int[] constraintSlot;
+
+    private final SparseMatrix jacobian;
+    private final SparseMatrix jacobianDerivative;
+    private final double[] W;
+    private final double[] C;
+    private final double[] dq;
+    private final double[] Q;
+    private final double[] dC;
+    private final double[] JWQ;
+    private final double[] right;
+    private final double[] constraintForces;
+    private final double[] temp;
+    private final double[] lambda; //Multipliers of the last solve, used as the starting guess for the next one
+    private final double[] inverseDiagonal;
+    private final double[] residualVector;
+
+    private final ConjugateGradientSolver constraintSolver;
+    private final LinearOperator constraintOperator = this::multiplyConstraintMatrix;
+    private NormalMatrix normalMatrix; //J W J^T for the direct solver, built on first use
+    private final SparseCholesky cholesky = new SparseCholesky();
+    private final PositionBasedSolver positionBasedSolver = new PositionBasedSolver();
+
+    //Statistics since the last call to clearStatistics
+    private int iterations;
+    private double residual;
+    private int failedSolves;
+
+    ConstraintIsland(ParticleStore store, int[] particles, List<BlockConstraint> constraints, int[][] constraintParticleLists,
+                     int maxIterations, double tolerance, int positionBasedIterations){
+        this.particles = particles;
+        this.constraints = constraints;
+
+        int[] localIndex = new int[store.size()];
+        for(int i = 0; i < particles.length; i++){
+            localIndex[particles[i]] = i;
+        }
+
+        int constraintCount = constraints.size();
+        constraintParticleStart = new int[constraintCount + 1];
+        constraintRow = new int[constraintCount + 1];
+        constraintSlot = new int[constraintCount + 1];
+        for(int c = 0; c < constraintCount; c++){
+            int count = constraintParticleLists[c].length;
+            int rows = constraints.get(c).getRows();
+            constraintParticleStart[c + 1] = constraintParticleStart[c] + count;
+            constraintRow[c + 1] = constraintRow[c] + rows;
+            constraintSlot[c + 1] = constraintSlot[c] + rows * count * 2;
+        }
+
+        int rows = constraintRow[constraintCount];
+        int columns = particles.length * 2;
+        constraintParticles = new int[constraintParticleStart[constraintCount]];
+        int[] rowStart = new int[rows + 1];
+        int[] columnIndex = new int[constraintSlot[constraintCount]];
+        for(int c = 0; c < constraintCount; c++){
+            int[] indices = constraintParticleLists[c];
+            System.arraycopy(indices, 0, constraintParticles, constraintParticleStart[c], indices.length);
+            int slot = constraintSlot[c];
+            for(int row = constraintRow[c]; row < constraintRow[c + 1]; row++){
+                rowStart[row] = slot;
+                for(int index : indices){
+                    columnIndex[slot++] = localIndex[index] * 2;
+                    columnIndex[slot++] = localIndex[index] * 2 + 1;
+                }
+            }
+        }
+        rowStart[rows] = columnIndex.length;
+
+        jacobian = SparseMatrix.withPattern(rows, columns, rowStart, columnIndex);
+        jacobianDerivative = SparseMatrix.withPattern(rows, columns, rowStart.clone(), columnIndex.clone());
+
+        W = new double[columns];
+        C = new double[rows];
+        dq = new double[columns];
+        Q = new double[columns];
+        dC = new double[rows];
+        JWQ = new double[rows];
+        right = new double[rows];
+        constraintForces = new double[columns];
+        temp = new double[columns];
+        lambda = new double[rows];
+        inverseDiagonal = new double[rows];
+        residualVector = new double[rows];
+
+        for(int i = 0; i < particles.length; i++) {
+            W[i * 2] = store.invMass[particles[i]];
+            W[i * 2 + 1] = store.invMass[particles[i]];
+        }
+
+        constraintSolver = new ConjugateGradientSolver(maxIterations, tolerance);
+        positionBasedSolver.setConstraints(constraints, constraintParticleStart, constraintParticles, constraintRow);
+        positionBasedSolver.setIterations(positionBasedIterations);
+    }
+
+    /*
+     * Adds the constraint forces for the forces and state currently in the store
+     */
+    void solve(ParticleStore s, EConstraintSolver type, float ks, float kd){
+        for(int i = 0; i < particles.length; i++){
+            int p = particles[i];
+            dq[i * 2] = s.vx[p];
+            dq[i * 2 + 1] = s.vy[p];
+
+            Q[i * 2] = s.fx[p];
+            Q[i * 2 + 1] = s.fy[p];
+        }
+
+        double[] jacobianValues = jacobian.getValues();
+        double[] jacobianDerivativeValues = jacobianDerivative.getValues();
+        for(int c = 0; c < constraints.size(); c++){
+            constraints.get(c).evaluate(s, constraintParticles, constraintParticleStart[c], C, constraintRow[c],
+                                        jacobianValues, jacobianDerivativeValues, constraintSlot[c]);
+        }
+
+        if(C.length == 0){
+            return;
+        }
+
+        // right = -dJ dq - J W Q - ks C - kd J dq
+        jacobian.operate(dq, dC);
+        jacobianDerivative.operate(dq, right);
+        for(int i = 0; i < Q.length; i++){
+            temp[i] = W[i] * Q[i];
+        }
+        jacobian.operate(temp, JWQ);
+        for(int i = 0; i < right.length; i++){
+            right[i] = -right[i] - JWQ[i] - ks * C[i] - kd * dC[i];
+        }
+
+        if(type != EConstraintSolver.Cholesky || !solveDirectly()){
+            solveIteratively();
+        }
+        jacobian.operateTranspose(lambda, constraintForces);
+
+        for (int i = 0; i < particles.length; i++){
+            int p = particles[i];
+            s.fx[p] += constraintForces[i * 2];
+            s.fy[p] += constraintForces[i * 2 + 1];
+        }
+    }
+
+    /*
+     * Runs the apply hooks of the constraints once the constraint forces are in the store
+     */
+    void apply(float time, ParticleStore s){
+        for(int c = 0; c < constraints.size(); c++){
+            constraints.get(c).apply(time, s, constraintParticles, constraintParticleStart[c]);
+        }
+    }
+
+    /*
+     * Moves the predicted positions in the store onto the constraints
+     */
+    void project(ParticleStore s, float time){
+        positionBasedSolver.project(s, time);
+        iterations += positionBasedSolver.getIterations();
+        residual = Math.max(residual, positionBasedSolver.getLastError());
+    }
+
+    /*
+     * Solves (J W J^T) lambda = right by sparse Cholesky. The ordering and symbolic factorisation are kept for the
+     * life of the island. Returns false when the factorisation fails, so the iterative solve can take over.
+     */
+    private boolean solveDirectly(){
+        if(normalMatrix == null){
+            normalMatrix = new NormalMatrix(jacobian);
+            cholesky.analyze(normalMatrix.getMatrix());
+        }
+        normalMatrix.update(W, REGULARIZATION);
+        if(!cholesky.factor(normalMatrix.getMatrix())){
+            failedSolves++;
+            return false;
+        }
+        cholesky.solve(right, lambda);
+
+        multiplyConstraintMatrix(lambda, residualVector);
+        double squaredResidual = 0;
+        for(int i = 0; i < residualVector.length; i++){
+            double r = right[i] - residualVector[i];
+            squaredResidual += r * r;
+        }
+        residual = Math.max(residual, Math.sqrt(squaredResidual));
+        return true;
+    }
+
+    /*
+     * Solves (J W J^T) lambda = right with Jacobi preconditioned CG, starting from the previous multipliers.
+     * A solve that does not converge keeps its last iterate and is counted in the failed solves.
+     */
+    private void solveIteratively(){
+        int[] rowStart = jacobian.getRowStart();
+        int[] columnIndex = jacobian.getColumnIndex();
+        double[] values = jacobian.getValues();
+        for(int row = 0; row < lambda.length; row++){
+            double diagonal = REGULARIZATION;
+            for(int i = rowStart[row]; i < rowStart[row + 1]; i++){
+                diagonal += values[i] * values[i] * W[columnIndex[i]];
+            }
+            inverseDiagonal[row] = 1.0 / diagonal;
+        }
+
+        boolean converged = constraintSolver.solve(constraintOperator, inverseDiagonal, right, lambda, lambda.length);
+        iterations += constraintSolver.getIterations();
+        residual = Math.max(residual, constraintSolver.getResidual());
+        if(converged){
+            return;
+        }
+
+        failedSolves++;
+        if(!Double.isFinite(constraintSolver.getResidual())){
+            Arrays.fill(lambda, 0);
+        }
+    }
+
+    /*
+     * out = (J W J^T + regularization I) x
+     */
+    private void multiplyConstraintMatrix(double[] x, double[] out){
+        jacobian.operateNormal(W, x, temp, out);
+        for(int i = 0; i < out.length; i++){
+            out[i] += x[i] * REGULARIZATION;
+        }
+    }
+
+    void reset(){
+        Arrays.fill(lambda, 0);
+    }
+
+    void clearStatistics(){
+        iterations = 0;
+        residual = 0;
+        failedSolves = 0;
+    }
+
+    void setSolverLimits(int maxIterations, double tolerance){
+        constraintSolver.setMaxIterations(maxIterations);
+        constraintSolver.setTolerance(tolerance);
+    }
+
+    void setPositionBasedIterations(int iterations){
+        positionBasedSolver.setIterations(iterations);
+    }
+
+    int getParticleCount(){
+        return particles.length;
+    }
+
+    int getRows(){
+        return lambda.length;
+    }
+
+    int getIterations(){
+        return iterations;
+    }
+
+    double getResidual(){
+        return residual;
+    }
+
+    int getFailedSolves(){
+        return failedSolves;
+    }
+}
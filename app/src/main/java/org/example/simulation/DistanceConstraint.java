@@ -1,59 +1,65 @@
 package org.example.simulation;
 
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
-import org.example.Vector2;
-
-import java.util.List;
-
-public class DistanceConstraint implements Constraint {
+public class DistanceConstraint implements BlockConstraint {
     private SimulationParticle p1;
     private SimulationParticle p2;
     private float distance;
+    private double compliance;
 
     public DistanceConstraint(SimulationParticle p1, SimulationParticle p2, float distance){
+        this(p1, p2, distance, 0);
+    }
+
+    /*
+     * A non zero compliance makes the link soft under the position based solver. The constraint value is
+     * (|d|^2 - distance^2) / 2, so a spring of stiffness k is roughly a compliance of 1 / (k * distance^2).
+     */
+    public DistanceConstraint(SimulationParticle p1, SimulationParticle p2, float distance, double compliance){
+        if(compliance < 0){
+            throw new IllegalArgumentException("Compliance can not be negative. Provided value was " + compliance);
+        }
         this.p1 = p1;
         this.p2 = p2;
         this.distance = distance;
+        this.compliance = compliance;
     }
 
     @Override
-    public void apply(float time) {
-
+    public SimulationParticle[] getParticles() {
+        return new SimulationParticle[]{p1, p2};
     }
 
     @Override
-    public void insertConstraint(List<Particle> particles, RealVector constraint, int row, ParticleSystem system) {
-//        constraint.set(row, 0, particle.getPosition().distance(this.position));
-        Vector2 diff = this.p2.getPosition().sub(this.p1.getPosition());
-        constraint.setEntry(row, (diff.dot(diff) - this.distance * this.distance) / 2);
+    public int getRows() {
+        return 1;
     }
 
     @Override
-    public void insertJacobian(List<Particle> particles, RealMatrix jacobian, int row, ParticleSystem system) {
-        ParticleSystem.MatrixPosition mp1 = system.getMatrixPosition(this.p1.getParticle());
-        ParticleSystem.MatrixPosition mp2 = system.getMatrixPosition(this.p2.getParticle());
-
-        Vector2 diff = this.p1.getPosition().sub(this.p2.getPosition());
-
-        jacobian.setEntry(row, mp1.getX(), diff.getX());
-        jacobian.setEntry(row, mp1.getY(), diff.getY());
-
-        jacobian.setEntry(row, mp2.getX(), -diff.getX());
-        jacobian.setEntry(row, mp2.getY(), -diff.getY());
+    public double getCompliance() {
+        return compliance;
     }
 
     @Override
-    public void insertJacobianDerivative(List<Particle> particles, RealMatrix jacobianDerivative, int row, ParticleSystem system) {
-        ParticleSystem.MatrixPosition mp1 = system.getMatrixPosition(this.p1.getParticle());
-        ParticleSystem.MatrixPosition mp2 = system.getMatrixPosition(this.p2.getParticle());
+    public void evaluate(ParticleStore particles, int[] indices, int first, double[] constraint, int row,
+                         double[] jacobian, double[] jacobianDerivative, int slot) {
+        int a = indices[first];
+        int b = indices[first + 1];
+
+        double dx = particles.x[a] - particles.x[b];
+        double dy = particles.y[a] - particles.y[b];
+        double dvx = particles.vx[a] - particles.vx[b];
+        double dvy = particles.vy[a] - particles.vy[b];
 
-        Vector2 diff = this.p1.getVelocity().sub(this.p2.getVelocity());
+        constraint[row] = (dx * dx + dy * dy - this.distance * this.distance) / 2;
 
-        jacobianDerivative.setEntry(row, mp1.getX(), diff.getX());
-        jacobianDerivative.setEntry(row, mp1.getY(), diff.getY());
+        jacobian[slot] = dx;
+        jacobian[slot + 1] = dy;
+        jacobian[slot + 2] = -dx;
+        jacobian[slot + 3] = -dy;
 
-        jacobianDerivative.setEntry(row, mp2.getX(), -diff.getX());
-        jacobianDerivative.setEntry(row, mp2.getY(), -diff.getY());
+        jacobianDerivative[slot] = dvx;
+        jacobianDerivative[slot + 1] = dvy;
+        jacobianDerivative[slot + 2] = -dvx;
+        jacobianDerivative[slot + 3] = -dvy;
     }
 }
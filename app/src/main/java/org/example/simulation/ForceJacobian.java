@@ -0,0 +1,111 @@
+package org.example.simulation;
+
+import java.util.Arrays;
+
+/*
+ * Sparse force Jacobian made of spring-like 2x2 blocks between pairs of particles plus per particle damping.
+ * Blocks are stored as restoring matrices, so the force change is the negative of the block times the displacement.
+ * Vectors are laid out like the store, [x | y].
+ */
+public class ForceJacobian {
+    private static final int NO_PARTICLE = -1;
+
+    private int particles;
+    private int size;
+
+    private int[] a = new int[0];
+    private int[] b = new int[0];
+    private double[] kxx = new double[0];
+    private double[] kxy = new double[0];
+    private double[] kyy = new double[0];
+    private double[] dxx = new double[0];
+    private double[] dxy = new double[0];
+    private double[] dyy = new double[0];
+
+    private double[] damping = new double[0];
+
+    void clear(int particles){
+        this.particles = particles;
+        this.size = 0;
+        if(damping.length < particles){
+            damping = new double[particles];
+        }
+        Arrays.fill(damping, 0, particles, 0);
+    }
+
+    private void ensureCapacity(int capacity){
+        if(capacity <= a.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, a.length * 2);
+        a = Arrays.copyOf(a, newCapacity);
+        b = Arrays.copyOf(b, newCapacity);
+        kxx = Arrays.copyOf(kxx, newCapacity);
+        kxy = Arrays.copyOf(kxy, newCapacity);
+        kyy = Arrays.copyOf(kyy, newCapacity);
+        dxx = Arrays.copyOf(dxx, newCapacity);
+        dxy = Arrays.copyOf(dxy, newCapacity);
+        dyy = Arrays.copyOf(dyy, newCapacity);
+    }
+
+    /*
+     * Adds a symmetric coupling where particle a is pulled towards b and b towards a
+     */
+    public void addSpring(int a, int b, double kxx, double kxy, double kyy, double dxx, double dxy, double dyy){
+        ensureCapacity(size + 1);
+        int i = size++;
+        this.a[i] = a;
+        this.b[i] = b;
+        this.kxx[i] = kxx;
+        this.kxy[i] = kxy;
+        this.kyy[i] = kyy;
+        this.dxx[i] = dxx;
+        this.dxy[i] = dxy;
+        this.dyy[i] = dyy;
+    }
+
+    /*
+     * Adds a spring from particle a to a fixed point
+     */
+    public void addAnchoredSpring(int a, double kxx, double kxy, double kyy, double dxx, double dxy, double dyy){
+        addSpring(a, NO_PARTICLE, kxx, kxy, kyy, dxx, dxy, dyy);
+    }
+
+    public void addDamping(int i, double damping){
+        this.damping[i] += damping;
+    }
+
+    void multiply(double[] dx, double[] dv, double[] df){
+        int n = particles;
+        for(int i = 0; i < n; i++){
+            df[i] = -damping[i] * dv[i];
+            df[n + i] = -damping[i] * dv[n + i];
+        }
+
+        for(int s = 0; s < size; s++){
+            int pa = a[s];
+            int pb = b[s];
+
+            double px = dx[pa];
+            double py = dx[n + pa];
+            double vx = dv[pa];
+            double vy = dv[n + pa];
+            if(pb != NO_PARTICLE){
+                px -= dx[pb];
+                py -= dx[n + pb];
+                vx -= dv[pb];
+                vy -= dv[n + pb];
+            }
+
+            double fx = kxx[s] * px + kxy[s] * py + dxx[s] * vx + dxy[s] * vy;
+            double fy = kxy[s] * px + kyy[s] * py + dxy[s] * vx + dyy[s] * vy;
+
+            df[pa] -= fx;
+            df[n + pa] -= fy;
+            if(pb != NO_PARTICLE){
+                df[pb] += fx;
+                df[n + pb] += fy;
+            }
+        }
+    }
+}
@@ -1,11 +1,9 @@
 package org.example.simulation;
 
-import org.example.Force;
-import org.example.Vector2;
+import org.example.Kernels;
+import org.example.ParticleForce;
 
-import java.util.List;
-
-public class GravitationalForce implements Force {
+public class GravitationalForce implements ParticleForce {
     private float acceleration;
 
     public GravitationalForce(float acceleration){
@@ -13,9 +11,18 @@ public class GravitationalForce implements Force {
     }
 
     @Override
-    public void apply(List<Particle> particles) {
-        for (Particle particle: particles){
-            particle.addForce(new Vector2(0,particle.getMass() * acceleration ));
+    public void apply(ParticleStore particles, int from, int to) {
+        double[] fy = particles.fy;
+        double[] mass = particles.mass;
+        if(particles.activeCount == particles.size()){
+            //Every particle is active, so the active list is the identity
+            Kernels.get().addScaled(fy, mass, acceleration, from, to);
+            return;
+        }
+        int[] active = particles.active;
+        for (int k = from; k < to; k++){
+            int i = active[k];
+            fy[i] += mass[i] * acceleration;
         }
     }
 
@@ -1,34 +1,34 @@
 package org.example.simulation;
 
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
-
-import java.util.List;
-
-public class ImmovableConstraint implements Constraint{
-    private Particle particle;
+public class ImmovableConstraint implements BlockConstraint {
+    private SimulationParticle particle;
 
     public ImmovableConstraint(SimulationParticle particle){
-        this.particle = particle.getParticle();
+        this.particle = particle;
     }
 
-    @Override
-    public void apply(float time) {
-        this.particle.clearForces();
+    SimulationParticle getParticle(){
+        return particle;
     }
 
     @Override
-    public void insertConstraint(List<Particle> particles, RealVector constraint, int row, ParticleSystem system) {
+    public SimulationParticle[] getParticles() {
+        return new SimulationParticle[]{particle};
+    }
 
+    @Override
+    public int getRows() {
+        return 0;
     }
 
     @Override
-    public void insertJacobian(List<Particle> particles, RealMatrix jacobian, int row, ParticleSystem system) {
+    public void evaluate(ParticleStore particles, int[] indices, int first, double[] constraint, int row,
+                         double[] jacobian, double[] jacobianDerivative, int slot) {
 
     }
 
     @Override
-    public void insertJacobianDerivative(List<Particle> particles, RealMatrix jacobianDerivative, int row, ParticleSystem system) {
-
+    public void apply(float time, ParticleStore particles, int[] indices, int first) {
+        particles.clearForce(indices[first]);
     }
 }
@@ -0,0 +1,69 @@
+package org.example.simulation;
+
+import org.example.Vector2;
+
+/*
+ * Particle positions before and after the last simulation step, shared between the simulation thread and the
+ * painting thread. Painting blends the two so motion stays smooth when the step rate and frame rate differ.
+ */
+public class InterpolatedPositions {
+    private double[] previousX = new double[0];
+    private double[] previousY = new double[0];
+    private double[] currentX = new double[0];
+    private double[] currentY = new double[0];
+    private int size;
+    private float alpha = 1;
+
+    public synchronized void capturePrevious(ParticleSystem system){
+        ParticleStore store = system.getStore();
+        ensureCapacity(store.size());
+        System.arraycopy(store.x, 0, previousX, 0, store.size());
+        System.arraycopy(store.y, 0, previousY, 0, store.size());
+    }
+
+    public synchronized void captureCurrent(ParticleSystem system){
+        ParticleStore store = system.getStore();
+        ensureCapacity(store.size());
+        System.arraycopy(store.x, 0, currentX, 0, store.size());
+        System.arraycopy(store.y, 0, currentY, 0, store.size());
+        this.size = store.size();
+    }
+
+    public synchronized void capture(ParticleSystem system){
+        captureCurrent(system);
+        System.arraycopy(currentX, 0, previousX, 0, size);
+        System.arraycopy(currentY, 0, previousY, 0, size);
+    }
+
+    /*
+     * Shows a recorded frame as it is, without blending
+     */
+    public synchronized void capture(TrajectoryPlayback playback, int frame){
+        ensureCapacity(playback.getParticleCount(frame));
+        this.size = playback.read(frame, currentX, currentY);
+        System.arraycopy(currentX, 0, previousX, 0, size);
+        System.arraycopy(currentY, 0, previousY, 0, size);
+    }
+
+    private void ensureCapacity(int size){
+        if(previousX.length < size){
+            previousX = new double[size];
+            previousY = new double[size];
+            currentX = new double[size];
+            currentY = new double[size];
+        }
+    }
+
+    public synchronized void setAlpha(float alpha){
+        this.alpha = alpha;
+    }
+
+    public synchronized int size(){
+        return size;
+    }
+
+    public synchronized Vector2 getPosition(int i){
+        return new Vector2((float)(previousX[i] + (currentX[i] - previousX[i]) * alpha),
+                           (float)(previousY[i] + (currentY[i] - previousY[i]) * alpha));
+    }
+}
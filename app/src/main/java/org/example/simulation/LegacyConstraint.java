@@ -0,0 +1,103 @@
+package org.example.simulation;
+
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.OpenMapRealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.util.BitSet;
+import java.util.List;
+
+/*
+ * Runs a Constraint through the BlockConstraint contract. The particles are found by letting the constraint write
+ * its Jacobian rows once, and every evaluation goes through small one row scratch matrices. A constraint that writes
+ * no entries touches no particles and only has apply called.
+ */
+class LegacyConstraint implements BlockConstraint {
+    private final Constraint constraint;
+    private final ParticleSystem system;
+
+    private int[] particleIndices;
+    private OpenMapRealMatrix jacobian;
+    private OpenMapRealMatrix jacobianDerivative;
+    private RealVector value = new ArrayRealVector(1);
+
+    LegacyConstraint(Constraint constraint, ParticleSystem system){
+        this.constraint = constraint;
+        this.system = system;
+    }
+
+    @Override
+    public SimulationParticle[] getParticles() {
+        List<Particle> particles = system.getParticleList();
+        int columns = particles.size() * 2;
+
+        PatternMatrix pattern = new PatternMatrix(columns);
+        constraint.insertJacobian(particles, pattern, 0, system);
+        constraint.insertJacobianDerivative(particles, pattern, 0, system);
+
+        BitSet touched = new BitSet(particles.size());
+        for(int column = pattern.columns.nextSetBit(0); column >= 0; column = pattern.columns.nextSetBit(column + 1)){
+            touched.set(column / 2);
+        }
+        particleIndices = touched.stream().toArray();
+
+        this.jacobian = new OpenMapRealMatrix(1, Math.max(columns, 1));
+        this.jacobianDerivative = new OpenMapRealMatrix(1, Math.max(columns, 1));
+        SimulationParticle[] result = new SimulationParticle[particleIndices.length];
+        for(int i = 0; i < particleIndices.length; i++){
+            result[i] = system.getParticles().get(particleIndices[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public int getRows() {
+        return 1;
+    }
+
+    @Override
+    public void evaluate(ParticleStore particles, int[] indices, int first, double[] constraint, int row,
+                         double[] jacobian, double[] jacobianDerivative, int slot) {
+        List<Particle> particleList = system.getParticleList();
+        this.constraint.insertConstraint(particleList, value, 0, system);
+        this.constraint.insertJacobian(particleList, this.jacobian, 0, system);
+        this.constraint.insertJacobianDerivative(particleList, this.jacobianDerivative, 0, system);
+
+        constraint[row] = value.getEntry(0);
+        for(int i = 0; i < particleIndices.length; i++){
+            int column = particleIndices[i] * 2;
+            jacobian[slot + i * 2] = this.jacobian.getEntry(0, column);
+            jacobian[slot + i * 2 + 1] = this.jacobian.getEntry(0, column + 1);
+            jacobianDerivative[slot + i * 2] = this.jacobianDerivative.getEntry(0, column);
+            jacobianDerivative[slot + i * 2 + 1] = this.jacobianDerivative.getEntry(0, column + 1);
+        }
+    }
+
+    @Override
+    public void apply(float time, ParticleStore particles, int[] indices, int first) {
+        constraint.apply(time);
+    }
+
+    /*
+     * Records which columns are written, zeros included
+     */
+    private static class PatternMatrix extends OpenMapRealMatrix {
+        private final BitSet columns = new BitSet();
+
+        PatternMatrix(int columns){
+            super(1, Math.max(columns, 1));
+        }
+
+        @Override
+        public void setEntry(int row, int column, double value) {
+            super.setEntry(row, column, value);
+            columns.set(column);
+        }
+
+        @Override
+        public void addToEntry(int row, int column, double increment) {
+            super.addToEntry(row, column, increment);
+            columns.set(column);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.example.simulation;
+
+import org.example.Line;
+
+import java.util.List;
+
+/*
+ * Static line segments that particles bounce off. The segments are kept in a bounding volume hierarchy of axis
+ * aligned boxes, built top down by splitting at the median centre along the longer axis, so a particle only tests
+ * the few segments whose boxes it overlaps. The tree is stored in flat arrays and walked with a fixed stack, so
+ * queries allocate nothing.
+ */
+class LineColliders {
+    private static final int LEAF_SIZE = 4;
+    private static final int MAX_DEPTH = 64;
+
+    //Segments in tree order
+    private double[] ax = new double[0];
+    private double[] ay = new double[0];
+    private double[] bx = new double[0];
+    private double[] by = new double[0];
+
+    //Node n covers nodeMinX[n]..nodeMaxX[n] by nodeMinY[n]..nodeMaxY[n]. A leaf holds the segments
+    //nodeStart[n] up to nodeStart[n] + nodeCount[n], an inner node has its children at nodeStart[n] and nodeRight[n]
+    private double[] nodeMinX = new double[0];
+    private double[] nodeMinY = new double[0];
+    private double[] nodeMaxX = new double[0];
+    private double[] nodeMaxY = new double[0];
+    private int[] nodeStart = new int[0];
+    private int[] nodeCount = new int[0];
+    private int[] nodeRight = new int[0];
+    private int nodes;
+
+    private final int[] stack = new int[MAX_DEPTH];
+    private double[] centre = new double[0];
+    private int[] order = new int[0];
+
+    void build(List<Line> lines){
+        int n = lines.size();
+        ax = new double[n];
+        ay = new double[n];
+        bx = new double[n];
+        by = new double[n];
+        double[] lineAx = new double[n];
+        double[] lineAy = new double[n];
+        double[] lineBx = new double[n];
+        double[] lineBy = new double[n];
+        for(int k = 0; k < n; k++){
+            Line line = lines.get(k);
+            lineAx[k] = line.start.getX();
+            lineAy[k] = line.start.getY();
+            lineBx[k] = line.end.getX();
+            lineBy[k] = line.end.getY();
+        }
+
+        int capacity = Math.max(1, 2 * n);
+        nodeMinX = new double[capacity];
+        nodeMinY = new double[capacity];
+        nodeMaxX = new double[capacity];
+        nodeMaxY = new double[capacity];
+        nodeStart = new int[capacity];
+        nodeCount = new int[capacity];
+        nodeRight = new int[capacity];
+        centre = new double[n];
+        order = new int[n];
+        for(int k = 0; k < n; k++){
+            order[k] = k;
+        }
+        nodes = 0;
+        if(n > 0){
+            buildNode(lineAx, lineAy, lineBx, lineBy, 0, n, 0);
+        }
+        for(int k = 0; k < n; k++){
+            ax[k] = lineAx[order[k]];
+            ay[k] = lineAy[order[k]];
+            bx[k] = lineBx[order[k]];
+            by[k] = lineBy[order[k]];
+        }
+        centre = new double[0];
+        order = new int[0];
+    }
+
+    /*
+     * Builds the node for the segments order[from] up to order[to] and returns its index
+     */
+    private int buildNode(double[] lineAx, double[] lineAy, double[] lineBx, double[] lineBy, int from, int to, int depth){
+        int node = nodes++;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for(int k = from; k < to; k++){
+            int line = order[k];
+            minX = Math.min(minX, Math.min(lineAx[line], lineBx[line]));
+            minY = Math.min(minY, Math.min(lineAy[line], lineBy[line]));
+            maxX = Math.max(maxX, Math.max(lineAx[line], lineBx[line]));
+            maxY = Math.max(maxY, Math.max(lineAy[line], lineBy[line]));
+        }
+        nodeMinX[node] = minX;
+        nodeMinY[node] = minY;
+        nodeMaxX[node] = maxX;
+        nodeMaxY[node] = maxY;
+
+        //The stack depth bounds the tree depth, median splits stay far below it
+        if(to - from <= LEAF_SIZE || depth >= MAX_DEPTH - 2){
+            nodeStart[node] = from;
+            nodeCount[node] = to - from;
+            return node;
+        }
+
+        boolean splitX = maxX - minX >= maxY - minY;
+        for(int k = from; k < to; k++){
+            int line = order[k];
+            centre[k] = splitX ? lineAx[line] + lineBx[line] : lineAy[line] + lineBy[line];
+        }
+        int middle = (from + to) >>> 1;
+        select(from, to, middle);
+
+        nodeCount[node] = 0;
+        nodeStart[node] = buildNode(lineAx, lineAy, lineBx, lineBy, from, middle, depth + 1);
+        nodeRight[node] = buildNode(lineAx, lineAy, lineBx, lineBy, middle, to, depth + 1);
+        return node;
+    }
+
+    /*
+     * Pushes the awake particles out of the segments they overlap and reflects their velocity into the segment,
+     * keeping restitution of it. Returns the number of contacts.
+     */
+    int collide(ParticleStore s, double radius, double restitution){
+        if(nodes == 0){
+            return 0;
+        }
+        int contacts = 0;
+        for(int k = 0; k < s.activeCount; k++){
+            int i = s.active[k];
+            if(s.invMass[i] == 0){
+                continue;
+            }
+            int top = 0;
+            stack[top++] = 0;
+            while(top > 0){
+                int node = stack[--top];
+                double x = s.x[i];
+                double y = s.y[i];
+                if(nodeMinX[node] > x + radius || nodeMaxX[node] < x - radius
+                        || nodeMinY[node] > y + radius || nodeMaxY[node] < y - radius){
+                    continue;
+                }
+                if(nodeCount[node] == 0){
+                    stack[top++] = nodeStart[node];
+                    stack[top++] = nodeRight[node];
+                    continue;
+                }
+                for(int line = nodeStart[node]; line < nodeStart[node] + nodeCount[node]; line++){
+                    if(collide(s, i, line, radius, restitution)){
+                        contacts++;
+                    }
+                }
+            }
+        }
+        return contacts;
+    }
+
+    private boolean collide(ParticleStore s, int i, int line, double radius, double restitution){
+        double x = s.x[i];
+        double y = s.y[i];
+        double ex = bx[line] - ax[line];
+        double ey = by[line] - ay[line];
+        double squaredLength = ex * ex + ey * ey;
+        double t = squaredLength > 0 ? ((x - ax[line]) * ex + (y - ay[line]) * ey) / squaredLength : 0;
+        t = Math.max(0, Math.min(1, t));
+        double nx = x - (ax[line] + t * ex);
+        double ny = y - (ay[line] + t * ey);
+        double squaredDistance = nx * nx + ny * ny;
+        if(squaredDistance >= radius * radius){
+            return false;
+        }
+
+        double distance = Math.sqrt(squaredDistance);
+        if(distance > 0){
+            nx /= distance;
+            ny /= distance;
+        }else if(squaredLength > 0){
+            //Centre exactly on the segment, push out on the side the particle came from
+            double length = Math.sqrt(squaredLength);
+            nx = -ey / length;
+            ny = ex / length;
+            if(s.vx[i] * nx + s.vy[i] * ny > 0){
+                nx = -nx;
+                ny = -ny;
+            }
+        }else{
+            return false;
+        }
+
+        s.x[i] += nx * (radius - distance);
+        s.y[i] += ny * (radius - distance);
+        double normalVelocity = s.vx[i] * nx + s.vy[i] * ny;
+        if(normalVelocity < 0){
+            s.vx[i] -= (1 + restitution) * normalVelocity * nx;
+            s.vy[i] -= (1 + restitution) * normalVelocity * ny;
+        }
+        return true;
+    }
+
+    int size(){
+        return ax.length;
+    }
+
+    /*
+     * Partially sorts order[from..to) by centre so that position k holds the k-th smallest
+     */
+    private void select(int from, int to, int k){
+        int low = from;
+        int high = to - 1;
+        while(low < high){
+            double pivot = centre[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while(i <= j){
+                while(centre[i] < pivot){
+                    i++;
+                }
+                while(centre[j] > pivot){
+                    j--;
+                }
+                if(i <= j){
+                    swap(i++, j--);
+                }
+            }
+            if(k <= j){
+                high = j;
+            }else if(k >= i){
+                low = i;
+            }else{
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j){
+        int line = order[i];
+        order[i] = order[j];
+        order[j] = line;
+        double c = centre[i];
+        centre[i] = centre[j];
+        centre[j] = c;
+    }
+}
@@ -1,30 +1,33 @@
 package org.example.simulation;
 
-import org.example.Force;
+import org.example.DifferentiableForce;
 import org.example.Scale;
 import org.example.Vector2;
 
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
-public class MouseForce extends MouseAdapter implements Force {
+/*
+ * Drags the particle under the mouse with a spring. Mouse events arrive on the event dispatch thread and are queued,
+ * the queue is drained by the system once per step before it integrates, so all state here belongs to that thread.
+ */
+public class MouseForce extends MouseAdapter implements DifferentiableForce {
+    private static final int NO_PARTICLE = -1;
+
     private Scale scale;
 
     private Vector2 mousePosition = null;
 
-    private Particle mouseParticle;
-    private Particle selectedParticle;
-    private SpringForce springForce;
+    private int selectedParticle;
+    private float springLength;
 
-    private List<Particle> particles = List.of();
+    private ParticleStore particles = new ParticleStore(1);
 
     private BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
 
     private float radius = 0.2f;
-    private float mouseMass = 1000;
     private float springConstant = 10000.0f;
     private float springDamping = 100f;
 
@@ -34,26 +37,63 @@ public class MouseForce extends MouseAdapter implements Force {
     }
 
     private void reset(){
-        Vector2 zero = new Vector2(0 ,0);
-        this.selectedParticle = null;
-        this.mouseParticle = null;
+        this.selectedParticle = NO_PARTICLE;
         this.mousePosition = null;
-        this.springForce = null;
+        this.springLength = 0;
     }
 
-    @Override
-    public void apply(List<Particle> particles) {
+    /*
+     * Runs the queued mouse events against the store the system steps
+     */
+    void update(ParticleStore particles){
         this.particles = particles;
-
-        Runnable task = tasks.poll();
-        if(task != null){
+        Runnable task;
+        while((task = tasks.poll()) != null){
             task.run();
         }
+    }
+
+    @Override
+    public void apply(ParticleStore particles) {
+        if(this.selectedParticle != NO_PARTICLE){
+            applySpring(particles, this.selectedParticle);
+        }
+    }
 
-        if(this.springForce != null){
-            this.springForce.apply(particles);
+    /*
+     * Same as a SpringForce between the selected particle and a particle held still under the mouse
+     */
+    private void applySpring(ParticleStore particles, int i){
+        double lx = particles.x[i] - mousePosition.getX();
+        double ly = particles.y[i] - mousePosition.getY();
+
+        double length = Math.sqrt(lx * lx + ly * ly);
+        if(length == 0){
+            return;
         }
 
+        double magnitudeSpring = (length - this.springLength) * this.springConstant;
+        double magnitudeDamping = (particles.vx[i] * lx + particles.vy[i] * ly) * this.springDamping / length;
+        double scale = (magnitudeSpring + magnitudeDamping) / length;
+
+        particles.fx[i] -= lx * scale;
+        particles.fy[i] -= ly * scale;
+    }
+
+    @Override
+    public void addJacobian(ParticleStore particles, ForceJacobian jacobian) {
+        int i = this.selectedParticle;
+        if(i != NO_PARTICLE){
+            SpringForce.addJacobian(jacobian, i, NO_PARTICLE, particles.x[i] - mousePosition.getX(), particles.y[i] - mousePosition.getY(),
+                                    springLength, springConstant, springDamping);
+        }
+    }
+
+    /*
+     * Store index of the particle being dragged, or -1
+     */
+    int getSelectedParticle(){
+        return this.selectedParticle;
     }
 
     @Override
@@ -61,18 +101,17 @@ public class MouseForce extends MouseAdapter implements Force {
         super.mousePressed(e);
 
         Vector2 mousePosition = scale.scaleToMeters(e.getPoint());
-        for(Particle particle : particles){
-            if(particle.getPosition().distance(mousePosition) <= this.radius){
-                this.tasks.add(() -> {
-                    this.selectedParticle = particle;
+        this.tasks.add(() -> {
+            ParticleStore particles = this.particles;
+            for(int i = 0; i < particles.size(); i++){
+                if(particles.getPosition(i).distance(mousePosition) <= this.radius){
+                    this.selectedParticle = i;
                     this.mousePosition = mousePosition;
-                    this.mouseParticle = new Particle(this.mousePosition, mouseMass);
-                    Vector2 diff = mousePosition.sub(particle.getPosition());
-                    this.springForce = new SpringForce(new SimulationParticle(selectedParticle), new SimulationParticle(mouseParticle), diff.length(), springConstant, springDamping);
-                });
-                return;
+                    this.springLength = mousePosition.distance(particles.getPosition(i));
+                    return;
+                }
             }
-        }
+        });
     }
 
     @Override
@@ -85,9 +124,8 @@ public class MouseForce extends MouseAdapter implements Force {
     public void mouseDragged(MouseEvent e) {
         super.mouseDragged(e);
         this.tasks.add(() -> {
-            if(this.mouseParticle != null){
+            if(this.selectedParticle != NO_PARTICLE){
                 this.mousePosition = scale.scaleToMeters(e.getPoint());
-                this.mouseParticle.setPosition(this.mousePosition);
             }
         });
     }
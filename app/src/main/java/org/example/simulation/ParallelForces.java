@@ -0,0 +1,226 @@
+package org.example.simulation;
+
+import org.example.Force;
+import org.example.ParticleForce;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Applies forces on a fork join pool without locks. Per particle forces are split into ranges of the active list.
+ * Springs are greedily coloured so that no two springs of one colour share a particle, and each colour is split
+ * into chunks that run at the same time. Other forces run afterwards on the calling thread.
+ *
+ * The tasks are built once per set of forces and reused, so a step allocates nothing.
+ */
+class ParallelForces {
+    private static final int CHUNK_SIZE = 2048;
+
+    private final List<Force> otherForces = new ArrayList<>();
+    private ParticleStore store;
+    private ParticleForce[] particleForces = new ParticleForce[0];
+    private SpringForce[] springs = new SpringForce[0];
+    private int colours;
+    private int springCount;
+
+    private RecursiveAction[] particleTasks = new RecursiveAction[0];
+    private RecursiveAction[][] colourTasks = new RecursiveAction[0][];
+    private RecursiveAction root;
+
+    void build(List<Force> forces, ParticleStore store){
+        this.store = store;
+        otherForces.clear();
+        List<ParticleForce> particleForceList = new ArrayList<>();
+        List<SpringForce> springList = new ArrayList<>();
+        List<SpringNetwork> networks = new ArrayList<>();
+        for(Force force : forces){
+            if(force instanceof SpringForce spring){
+                springList.add(spring);
+            }else if(force instanceof SpringNetwork network){
+                networks.add(network);
+            }else if(force instanceof ParticleForce particleForce){
+                particleForceList.add(particleForce);
+            }else{
+                otherForces.add(force);
+            }
+        }
+        particleForces = particleForceList.toArray(new ParticleForce[0]);
+
+        springs = springList.toArray(new SpringForce[0]);
+        int[] springA = new int[springs.length];
+        int[] springB = new int[springs.length];
+        int[] order = new int[springs.length];
+        for(int k = 0; k < springs.length; k++){
+            springA[k] = springs[k].getParticleA().getIndex();
+            springB[k] = springs[k].getParticleB().getIndex();
+            order[k] = k;
+        }
+        int[] colourStart = colour(order, order.length, springA, springB, store.size());
+        SpringForce[] coloured = new SpringForce[springs.length];
+        for(int k = 0; k < springs.length; k++){
+            coloured[k] = springs[order[k]];
+        }
+        springs = coloured;
+        springCount = springs.length;
+
+        int active = store.activeSize();
+        particleTasks = new RecursiveAction[(active + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for(int t = 0; t < particleTasks.length; t++){
+            int from = t * CHUNK_SIZE;
+            int to = Math.min(active, from + CHUNK_SIZE);
+            particleTasks[t] = new ParticleChunk(from, to);
+        }
+        List<RecursiveAction[]> colourTaskList = new ArrayList<>();
+        for(int c = 0; c + 1 < colourStart.length; c++){
+            int start = colourStart[c];
+            int end = colourStart[c + 1];
+            RecursiveAction[] tasks = new RecursiveAction[(end - start + CHUNK_SIZE - 1) / CHUNK_SIZE];
+            for(int t = 0; t < tasks.length; t++){
+                int from = start + t * CHUNK_SIZE;
+                tasks[t] = new SpringChunk(from, Math.min(end, from + CHUNK_SIZE));
+            }
+            colourTaskList.add(tasks);
+        }
+        //Networks keep their own active order, which is reordered by colour in place
+        for(SpringNetwork network : networks){
+            int[] networkStart = network.colourActive(store.size());
+            for(int c = 0; c + 1 < networkStart.length; c++){
+                int start = networkStart[c];
+                int end = networkStart[c + 1];
+                RecursiveAction[] tasks = new RecursiveAction[(end - start + CHUNK_SIZE - 1) / CHUNK_SIZE];
+                for(int t = 0; t < tasks.length; t++){
+                    int from = start + t * CHUNK_SIZE;
+                    tasks[t] = new NetworkChunk(network, from, Math.min(end, from + CHUNK_SIZE));
+                }
+                colourTaskList.add(tasks);
+            }
+            springCount += network.getActiveCount();
+        }
+        colourTasks = colourTaskList.toArray(new RecursiveAction[0][]);
+        colours = colourTasks.length;
+        root = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                run(particleTasks);
+                for(RecursiveAction[] tasks : colourTasks){
+                    run(tasks);
+                }
+            }
+        };
+    }
+
+    void apply(ForkJoinPool pool){
+        root.reinitialize();
+        pool.invoke(root);
+        for(Force force : otherForces){
+            force.apply(store);
+        }
+    }
+
+    int getColours(){
+        return colours;
+    }
+
+    int getSprings(){
+        return springCount;
+    }
+
+    /*
+     * Reorders the first count entries of order, which index the springs a[k]-b[k], so that they form colours in
+     * which no two springs share a particle. Colour k greedily takes every remaining spring whose particles are not
+     * yet used by colour k. Returns where each colour starts, with count appended.
+     */
+    static int[] colour(int[] order, int count, int[] a, int[] b, int particles){
+        int[] usedBy = new int[particles];
+        int[] remaining = new int[count];
+        System.arraycopy(order, 0, remaining, 0, count);
+        int remainingCount = count;
+        List<Integer> colourStart = new ArrayList<>();
+        int placed = 0;
+        int colour = 0;
+        while(remainingCount > 0){
+            colour++;
+            colourStart.add(placed);
+            int kept = 0;
+            for(int r = 0; r < remainingCount; r++){
+                int k = remaining[r];
+                if(usedBy[a[k]] != colour && usedBy[b[k]] != colour){
+                    usedBy[a[k]] = colour;
+                    usedBy[b[k]] = colour;
+                    order[placed++] = k;
+                }else{
+                    remaining[kept++] = k;
+                }
+            }
+            remainingCount = kept;
+        }
+        colourStart.add(placed);
+
+        int[] result = new int[colourStart.size()];
+        for(int c = 0; c < result.length; c++){
+            result[c] = colourStart.get(c);
+        }
+        return result;
+    }
+
+    private static void run(RecursiveAction[] tasks){
+        for(RecursiveAction task : tasks){
+            task.reinitialize();
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    private class ParticleChunk extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        ParticleChunk(int from, int to){
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            for(ParticleForce force : particleForces){
+                force.apply(store, from, to);
+            }
+        }
+    }
+
+    private class SpringChunk extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        SpringChunk(int from, int to){
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            for(int k = from; k < to; k++){
+                springs[k].apply(store);
+            }
+        }
+    }
+
+    private class NetworkChunk extends RecursiveAction {
+        private final SpringNetwork network;
+        private final int from;
+        private final int to;
+
+        NetworkChunk(SpringNetwork network, int from, int to){
+            this.network = network;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            network.apply(store, from, to);
+        }
+    }
+}
@@ -1,60 +1,54 @@
 package org.example.simulation;
 
 import org.example.Vector2;
-import java.util.ArrayList;
-import java.util.List;
 
 public class Particle{
-    private final Vector2 startPosition;
-
-    Vector2 position;
-    Vector2 velocity;
-    private float mass;
-    List<Vector2> forces;
+    ParticleStore store;
+    int index;
 
     public Particle(Vector2 position, float mass) {
-        this.position = position;
-        this.startPosition = position;
-        this.velocity = new Vector2(0, 0);
-        this.mass = mass;
-        this.forces = new ArrayList<>();
+        this.store = new ParticleStore(1);
+        this.index = store.add(position, mass);
     }
 
-    void reset() {
-        this.position = startPosition;
-        this.velocity = new Vector2(0, 0);
-        this.forces.clear();
+    Particle(ParticleStore store, int index) {
+        this.store = store;
+        this.index = index;
     }
 
-    void addForce(Vector2 force) {
-        this.forces.add(force);
+    void moveTo(ParticleStore store) {
+        if(this.store == store){
+            return;
+        }
+        this.index = store.add(this.store, this.index);
+        this.store = store;
     }
 
-    Vector2 getForceSum(){
-        return this.forces.stream().reduce(new Vector2(0,0), Vector2::add);
+    void clearForces() {
+        this.store.clearForce(index);
     }
 
-    void clearForces() {
-        this.forces.clear();
+    int getIndex() {
+        return index;
     }
 
     public Vector2 getPosition() {
-        return position;
+        return store.getPosition(index);
     }
 
     public Vector2 getVelocity() {
-        return velocity;
+        return store.getVelocity(index);
     }
 
     public float getMass() {
-        return mass;
+        return store.getMass(index);
     }
 
     public void setPosition(Vector2 position) {
-        this.position = position;
+        this.store.setPosition(index, position);
     }
 
     public void setMass(float mass) {
-        this.mass = mass;
+        this.store.setMass(index, mass);
     }
 }
@@ -0,0 +1,161 @@
+package org.example.simulation;
+
+import java.util.Arrays;
+
+/*
+ * Collisions between particles of equal radius. The spatial hash is rebuilt every step with cells one particle
+ * diameter wide, so a particle can only touch particles in its own and the eight surrounding cells. Overlapping
+ * pairs are pushed apart along their normal, split by inverse mass, and lose their approaching normal velocity the
+ * same way as at the floor. Particles joined by a spring or constraint never collide with each other.
+ *
+ * Sleeping particles are in the hash and act as fixed while they are touched. An impact only wakes them when its
+ * normal speed carries more kinetic energy per unit mass than the sleep threshold, so awake particles resting on a
+ * sleeping pile do not keep it awake.
+ */
+class ParticleCollisions {
+    private final SpatialHash hash = new SpatialHash();
+    private final int[] neighbourBuckets = new int[9];
+
+    //Particles directly joined to particle i are connections[connectionStart[i]] up to connectionStart[i + 1], sorted
+    private int[] connectionStart = new int[1];
+    private int[] connections = new int[0];
+    private int[] pairs = new int[0];
+    private int pairCount;
+
+    private int contacts;
+
+    void clearConnections(){
+        pairCount = 0;
+    }
+
+    void connect(int a, int b){
+        if(a == b){
+            return;
+        }
+        if(pairs.length < pairCount * 2 + 2){
+            pairs = Arrays.copyOf(pairs, Math.max(16, pairs.length * 2));
+        }
+        pairs[pairCount * 2] = a;
+        pairs[pairCount * 2 + 1] = b;
+        pairCount++;
+    }
+
+    /*
+     * Turns the connected pairs into sorted lists per particle
+     */
+    void finishConnections(int particles){
+        connectionStart = new int[particles + 1];
+        for(int p = 0; p < pairCount * 2; p++){
+            connectionStart[pairs[p] + 1]++;
+        }
+        for(int i = 0; i < particles; i++){
+            connectionStart[i + 1] += connectionStart[i];
+        }
+        connections = new int[pairCount * 2];
+        int[] next = new int[particles];
+        for(int p = 0; p < pairCount; p++){
+            int a = pairs[p * 2];
+            int b = pairs[p * 2 + 1];
+            connections[connectionStart[a] + next[a]++] = b;
+            connections[connectionStart[b] + next[b]++] = a;
+        }
+        for(int i = 0; i < particles; i++){
+            Arrays.sort(connections, connectionStart[i], connectionStart[i + 1]);
+        }
+        pairs = new int[0];
+        pairCount = 0;
+    }
+
+    private boolean isConnected(int a, int b){
+        return a < connectionStart.length - 1 && Arrays.binarySearch(connections, connectionStart[a], connectionStart[a + 1], b) >= 0;
+    }
+
+    /*
+     * Resolves the contacts of the awake particles. Returns the number of touching pairs.
+     */
+    int resolve(ParticleStore s, SleepTracker sleepTracker, double radius, double restitution){
+        double diameter = radius * 2;
+        hash.build(s, diameter);
+        int[] bucketStart = hash.bucketStart;
+        int[] bucketParticles = hash.particles;
+        contacts = 0;
+
+        for(int k = 0; k < s.activeCount; k++){
+            int i = s.active[k];
+            int cellX = hash.cell(s.x[i]);
+            int cellY = hash.cell(s.y[i]);
+
+            //Neighbouring cells can share a bucket, every bucket is only visited once
+            int buckets = 0;
+            for(int dx = -1; dx <= 1; dx++){
+                for(int dy = -1; dy <= 1; dy++){
+                    int h = hash.hash(cellX + dx, cellY + dy);
+                    boolean seen = false;
+                    for(int b = 0; b < buckets; b++){
+                        if(neighbourBuckets[b] == h){
+                            seen = true;
+                            break;
+                        }
+                    }
+                    if(!seen){
+                        neighbourBuckets[buckets++] = h;
+                    }
+                }
+            }
+
+            for(int b = 0; b < buckets; b++){
+                int h = neighbourBuckets[b];
+                for(int p = bucketStart[h]; p < bucketStart[h + 1]; p++){
+                    int j = bucketParticles[p];
+                    //Pairs of awake particles are handled from their lower index, sleeping particles are never visited
+                    boolean sleeping = sleepTracker.isSleeping(j);
+                    if(j == i || (j < i && !sleeping)){
+                        continue;
+                    }
+                    collide(s, sleepTracker, i, j, sleeping, diameter, restitution);
+                }
+            }
+        }
+        return contacts;
+    }
+
+    private void collide(ParticleStore s, SleepTracker sleepTracker, int i, int j, boolean sleeping, double diameter, double restitution){
+        double nx = s.x[j] - s.x[i];
+        double ny = s.y[j] - s.y[i];
+        double squaredDistance = nx * nx + ny * ny;
+        if(squaredDistance >= diameter * diameter || squaredDistance == 0 || isConnected(i, j)){
+            return;
+        }
+
+        double distance = Math.sqrt(squaredDistance);
+        nx /= distance;
+        ny /= distance;
+        double normalVelocity = (s.vx[j] - s.vx[i]) * nx + (s.vy[j] - s.vy[i]) * ny;
+        if(sleeping && normalVelocity < 0 && normalVelocity * normalVelocity / 2 >= sleepTracker.getThreshold()){
+            sleepTracker.wake(j);
+        }
+
+        double wi = s.invMass[i];
+        double wj = sleeping ? 0 : s.invMass[j];
+        double w = wi + wj;
+        if(w == 0){
+            return;
+        }
+        contacts++;
+
+        double overlap = (diameter - distance) / w;
+        s.x[i] -= nx * overlap * wi;
+        s.y[i] -= ny * overlap * wi;
+        s.x[j] += nx * overlap * wj;
+        s.y[j] += ny * overlap * wj;
+
+        if(normalVelocity >= 0){
+            return;
+        }
+        double impulse = -(1 + restitution) * normalVelocity / w;
+        s.vx[i] -= nx * impulse * wi;
+        s.vy[i] -= ny * impulse * wi;
+        s.vx[j] += nx * impulse * wj;
+        s.vy[j] += ny * impulse * wj;
+    }
+}
@@ -0,0 +1,244 @@
+package org.example.simulation;
+
+import org.example.Vector2;
+
+import java.util.Arrays;
+
+public class ParticleStore {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    double[] x;
+    double[] y;
+    double[] vx;
+    double[] vy;
+    double[] fx;
+    double[] fy;
+    double[] mass;
+    double[] invMass; //Zero for immovable particles
+
+    private double[] startX;
+    private double[] startY;
+
+    //Awake particles in increasing order. Forces and solvers only have to visit these, the rest are asleep.
+    int[] active;
+    int activeCount;
+
+    private int size;
+
+    public ParticleStore(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ParticleStore(int capacity){
+        allocate(Math.max(capacity, 1));
+    }
+
+    private void allocate(int capacity){
+        x = new double[capacity];
+        y = new double[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        fx = new double[capacity];
+        fy = new double[capacity];
+        mass = new double[capacity];
+        invMass = new double[capacity];
+        startX = new double[capacity];
+        startY = new double[capacity];
+        active = new int[capacity];
+    }
+
+    void ensureCapacity(int capacity){
+        if(capacity <= x.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, x.length * 2);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        vx = Arrays.copyOf(vx, newCapacity);
+        vy = Arrays.copyOf(vy, newCapacity);
+        fx = Arrays.copyOf(fx, newCapacity);
+        fy = Arrays.copyOf(fy, newCapacity);
+        mass = Arrays.copyOf(mass, newCapacity);
+        invMass = Arrays.copyOf(invMass, newCapacity);
+        startX = Arrays.copyOf(startX, newCapacity);
+        startY = Arrays.copyOf(startY, newCapacity);
+        active = Arrays.copyOf(active, newCapacity);
+    }
+
+    int add(Vector2 position, float mass){
+        return add(position.getX(), position.getY(), mass);
+    }
+
+    int add(double x, double y, double mass){
+        ensureCapacity(size + 1);
+        int i = size++;
+        this.x[i] = this.startX[i] = x;
+        this.y[i] = this.startY[i] = y;
+        this.mass[i] = mass;
+        this.invMass[i] = 1.0 / mass;
+        active[activeCount++] = i;
+        return i;
+    }
+
+    int add(ParticleStore other, int index){
+        ensureCapacity(size + 1);
+        int i = size++;
+        x[i] = other.x[index];
+        y[i] = other.y[index];
+        vx[i] = other.vx[index];
+        vy[i] = other.vy[index];
+        fx[i] = other.fx[index];
+        fy[i] = other.fy[index];
+        mass[i] = other.mass[index];
+        invMass[i] = other.invMass[index];
+        startX[i] = other.startX[index];
+        startY[i] = other.startY[index];
+        active[activeCount++] = i;
+        return i;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public int activeSize(){
+        return activeCount;
+    }
+
+    public int getActive(int k){
+        return active[k];
+    }
+
+    void setActive(int[] indices, int count){
+        System.arraycopy(indices, 0, active, 0, count);
+        activeCount = count;
+    }
+
+    void reset(){
+        System.arraycopy(startX, 0, x, 0, size);
+        System.arraycopy(startY, 0, y, 0, size);
+        Arrays.fill(vx, 0, size, 0);
+        Arrays.fill(vy, 0, size, 0);
+        clearForces();
+    }
+
+    void clearForces(){
+        Arrays.fill(fx, 0, size, 0);
+        Arrays.fill(fy, 0, size, 0);
+    }
+
+    void clearForce(int i){
+        fx[i] = 0;
+        fy[i] = 0;
+    }
+
+    public void addForce(int i, double forceX, double forceY){
+        fx[i] += forceX;
+        fy[i] += forceY;
+    }
+
+    void pin(int i){
+        invMass[i] = 0;
+        vx[i] = 0;
+        vy[i] = 0;
+    }
+
+    void unpin(int i){
+        invMass[i] = 1.0 / mass[i];
+    }
+
+    boolean isPinned(int i){
+        return invMass[i] == 0;
+    }
+
+    /*
+     * The integrator state is laid out as [x | y | vx | vy], each block holding the active particles in order.
+     */
+    int getStateDimension(){
+        return activeCount * 4;
+    }
+
+    void copyStateTo(double[] state){
+        int m = activeCount;
+        if(m == size){
+            System.arraycopy(x, 0, state, 0, m);
+            System.arraycopy(y, 0, state, m, m);
+            System.arraycopy(vx, 0, state, m * 2, m);
+            System.arraycopy(vy, 0, state, m * 3, m);
+            return;
+        }
+        for(int k = 0; k < m; k++){
+            int i = active[k];
+            state[k] = x[i];
+            state[m + k] = y[i];
+            state[m * 2 + k] = vx[i];
+            state[m * 3 + k] = vy[i];
+        }
+    }
+
+    void copyStateFrom(double[] state){
+        int m = activeCount;
+        if(m == size){
+            System.arraycopy(state, 0, x, 0, m);
+            System.arraycopy(state, m, y, 0, m);
+            System.arraycopy(state, m * 2, vx, 0, m);
+            System.arraycopy(state, m * 3, vy, 0, m);
+            return;
+        }
+        for(int k = 0; k < m; k++){
+            int i = active[k];
+            x[i] = state[k];
+            y[i] = state[m + k];
+            vx[i] = state[m * 2 + k];
+            vy[i] = state[m * 3 + k];
+        }
+    }
+
+    public double getX(int i){
+        return x[i];
+    }
+
+    public double getY(int i){
+        return y[i];
+    }
+
+    public double getVelocityX(int i){
+        return vx[i];
+    }
+
+    public double getVelocityY(int i){
+        return vy[i];
+    }
+
+    public double getInverseMass(int i){
+        return invMass[i];
+    }
+
+    public Vector2 getPosition(int i){
+        return new Vector2((float)x[i], (float)y[i]);
+    }
+
+    public Vector2 getVelocity(int i){
+        return new Vector2((float)vx[i], (float)vy[i]);
+    }
+
+    public Vector2 getForce(int i){
+        return new Vector2((float)fx[i], (float)fy[i]);
+    }
+
+    public float getMass(int i){
+        return (float)mass[i];
+    }
+
+    void setPosition(int i, Vector2 position){
+        x[i] = position.getX();
+        y[i] = position.getY();
+    }
+
+    void setMass(int i, float mass){
+        this.mass[i] = mass;
+        if(!isPinned(i)){
+            this.invMass[i] = 1.0 / mass;
+        }
+    }
+}
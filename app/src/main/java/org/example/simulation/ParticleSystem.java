@@ -1,35 +1,88 @@
 package org.example.simulation;
 
 import org.example.*;
-import org.apache.commons.math3.linear.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+/*
+ * Not thread safe. Anything that changes a running system, waking it included, has to happen on the thread that steps it.
+ */
 public class ParticleSystem {
     public static final float DEFAULT_BOUNCE_KEEP = 0.9f;
+    public static final int DEFAULT_CONSTRAINT_ITERATIONS = 100;
+    public static final double DEFAULT_CONSTRAINT_TOLERANCE = 1e-5;
+    private static final int PARALLEL_CONSTRAINT_ROWS = 512; //Below this many rows islands are solved on the calling thread
+    private static final int PARALLEL_FORCE_SPRINGS = 4096; //Below this many springs forces are applied on the calling thread
+    private static final int[] NO_PARTICLES = new int[0];
 
+    private ParticleStore store;
     private List<Particle> particles;
     private List<SimulationParticle> simulationParticles;
     private List<Force> forces;
-    private List<Constraint> constraints;
+    private List<BlockConstraint> constraints;
+
+    private ConstraintIsland[] islands = new ConstraintIsland[0];
+    private int[] islandComponent = new int[0];
+    private List<BlockConstraint> globalConstraints = new ArrayList<>(); //Touch no particles, so they are only applied
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    //What the current step works on. Rebuilt whenever a group falls asleep or wakes up.
+    private SleepTracker sleepTracker = new SleepTracker();
+    private boolean activityChanged = true;
+    private List<Force> activeForces = new ArrayList<>();
+    private List<SpringNetwork> springNetworks = new ArrayList<>();
+    private ParallelForces parallelForces = new ParallelForces();
+    private boolean parallelForcesEnabled = true;
+    private boolean useParallelForces = false;
+    private ConstraintIsland[] awakeIslands = new ConstraintIsland[0];
+    private int awakeIslandCount;
+    private int awakeIslandRows;
+    private int[] activeIndices = new int[0];
+    private double[] fullDx = new double[0];
+    private double[] fullDv = new double[0];
+    private double[] fullDf = new double[0];
 
     private ImmutableList<SimulationParticle> immutableSimulationParticles;
     private ImmutableList<Force> immutableForces;
 
-    private ODESolver<DParticle, DParticle> solver = new RungeKuttaSolver<>();
+    private ODESolver solver = new RungeKuttaSolver();
+    private ParticleODE ode = new ParticleODE();
+    private double[] state = new double[0];
+    private ForceJacobian forceJacobian = new ForceJacobian();
+    private float stepTime;
+
+    private double absoluteTolerance = DormandPrinceSolver.DEFAULT_ABSOLUTE_TOLERANCE;
+    private double relativeTolerance = DormandPrinceSolver.DEFAULT_RELATIVE_TOLERANCE;
 
     private float bounceKeep = DEFAULT_BOUNCE_KEEP;
 
-    private DiagonalMatrix W;
-    private RealVector C;
-    private RealMatrix jacobian;
-    private RealMatrix jacobianDerivative;
-    private RealVector dq;
-    private RealVector Q;
+    private EConstraintSolver constraintSolverType = EConstraintSolver.ConjugateGradient;
+    private int constraintMaxIterations = DEFAULT_CONSTRAINT_ITERATIONS;
+    private double constraintTolerance = DEFAULT_CONSTRAINT_TOLERANCE;
+    private int positionBasedIterations = PositionBasedSolver.DEFAULT_ITERATIONS;
+    private double[] previousX = new double[0];
+    private double[] previousY = new double[0];
     private boolean matrixesInitialized = false;
 
+    //Constraint solver statistics for the last call to step, summed or maxed over all islands and force evaluations
+    private int constraintIterations;
+    private double constraintResidual;
+    private int failedConstraintSolves;
+
+    private final ParticleCollisions collisions = new ParticleCollisions();
+    private final List<Line> colliders = new CopyOnWriteArrayList<>(); //Drawn from other threads while the walls change
+    private final ImmutableList<Line> immutableColliders = new ImmutableList<>(colliders);
+    private final LineColliders lineColliders = new LineColliders();
+    private boolean collidersChanged = false;
+    private boolean particleCollisions = false;
+    private int contactCount;
+
     private Vector2 size;
     private float particleRadius;
     float kd = 100;
@@ -39,6 +92,7 @@ public class ParticleSystem {
         this.setSize(size);
         this.particleRadius = particleRadius;
 
+        store = new ParticleStore();
         particles = new ArrayList<>();
         forces = new ArrayList<>();
         constraints = new ArrayList<>();
@@ -48,16 +102,37 @@ public class ParticleSystem {
     }
 
     public void addParticle(SimulationParticle particle){
+        particle.getParticle().moveTo(this.store);
         this.particles.add(particle.getParticle());
         this.simulationParticles.add(particle);
+        this.matrixesInitialized = false;
     }
 
     public void addAllParticles(Collection<SimulationParticle> particles){
-        this.particles.addAll(particles.stream().map(p -> p.getParticle()).toList());
+        for(SimulationParticle particle : particles){
+            particle.getParticle().moveTo(this.store);
+            this.particles.add(particle.getParticle());
+        }
         this.simulationParticles.addAll(particles);
         this.matrixesInitialized = false;
     }
 
+    /*
+     * Adds count particles straight into the store, without a store of their own first. For large generated scenes.
+     */
+    List<SimulationParticle> addParticles(double[] x, double[] y, double[] mass, int count){
+        this.store.ensureCapacity(this.store.size() + count);
+        List<SimulationParticle> added = new ArrayList<>(count);
+        for(int k = 0; k < count; k++){
+            Particle particle = new Particle(this.store, this.store.add(x[k], y[k], mass[k]));
+            this.particles.add(particle);
+            added.add(new SimulationParticle(particle));
+        }
+        this.simulationParticles.addAll(added);
+        this.matrixesInitialized = false;
+        return added;
+    }
+
     public ImmutableList<SimulationParticle> getParticles(){
         return this.immutableSimulationParticles;
     }
@@ -66,166 +141,597 @@ public class ParticleSystem {
     }
 
     public void reset(){
-        for (Particle particle : particles){
-            particle.reset();
+        this.store.reset();
+        for(ConstraintIsland island : islands){
+            island.reset();
         }
+        wakeAll();
     }
 
     public void addForce(Force force){
         this.forces.add(force);
+        this.activityChanged = true;
+        wakeAll();
+        if(force instanceof SpringForce){
+            this.matrixesInitialized = false;
+        }
+        if(force instanceof SpringNetwork network){
+            this.springNetworks.add(network);
+            this.matrixesInitialized = false;
+        }
     }
 
-    public void addConstraints(Constraint constraint){
-        this.constraints.add(constraint);
+    /*
+     * Adds a static segment that particles bounce off
+     */
+    public void addCollider(Line line){
+        this.colliders.add(line);
+        this.collidersChanged = true;
+        wakeAll();
     }
 
+    public void addColliders(Collection<Line> lines){
+        this.colliders.addAll(lines);
+        this.collidersChanged = true;
+        wakeAll();
+    }
 
-    private void initMatrices(){
-        if(this.constraints.isEmpty()){
-            return;
-        }
-        W = new DiagonalMatrix(this.particles.size() * 2);
-        C = new ArrayRealVector(this.constraints.size());
-        jacobian = new OpenMapRealMatrix(this.constraints.size(), this.particles.size() * 2);
-        jacobianDerivative = new OpenMapRealMatrix(this.constraints.size(), this.particles.size() * 2);
-        dq = new ArrayRealVector(this.particles.size() * 2);
-        Q = new ArrayRealVector(this.particles.size() * 2);
+    public void clearColliders(){
+        this.colliders.clear();
+        this.collidersChanged = true;
+        wakeAll();
+    }
 
-        int i = 0;
-        for(Particle p : this.particles) {
-            W.setEntry(i * 2, i * 2, 1/p.getMass());
-            W.setEntry(i * 2 + 1, i * 2 + 1, 1/p.getMass());
-            i++;
-        }
+    /*
+     * Replaces the colliders with walls on the sides and at the ceiling of the current size. The floor is always there.
+     */
+    public void setWalls(){
+        Vector2 topLeft = new Vector2(0, 0);
+        Vector2 topRight = new Vector2(size.getX(), 0);
+        this.colliders.clear();
+        this.colliders.addAll(List.of(new Line(topLeft, new Vector2(0, size.getY())), new Line(topRight, size), new Line(topLeft, topRight)));
+        this.collidersChanged = true;
+        wakeAll();
+    }
 
-        this.matrixesInitialized = true;
+    public ImmutableList<Line> getColliders(){
+        return this.immutableColliders;
     }
 
-    public void step(float time){
-        for (Particle particle : particles){
-            particle.clearForces();
+    public void addConstraints(BlockConstraint constraint){
+        if(constraint instanceof ImmovableConstraint immovable){
+            Particle p = immovable.getParticle().getParticle();
+            p.store.pin(p.index);
         }
+        this.constraints.add(constraint);
+        this.matrixesInitialized = false;
+    }
 
-        for (Force force : forces){
-            force.apply(particles);
+    /*
+     * Removes a constraint added through addConstraints. A particle is released once no immovable constraint holds it.
+     */
+    public void removeConstraints(BlockConstraint constraint){
+        if(!this.constraints.remove(constraint)){
+            return;
+        }
+        if(constraint instanceof ImmovableConstraint immovable && !isHeld(immovable.getParticle())){
+            Particle p = immovable.getParticle().getParticle();
+            p.store.unpin(p.index);
         }
+        this.matrixesInitialized = false;
+        wakeAll();
+    }
 
-        if(!matrixesInitialized){
-            initMatrices();
+    private boolean isHeld(SimulationParticle particle){
+        for(BlockConstraint constraint : this.constraints){
+            if(constraint instanceof ImmovableConstraint immovable && immovable.getParticle() == particle){
+                return true;
+            }
         }
+        return false;
+    }
 
-        if(!this.constraints.isEmpty()){
-            int i = 0;
-            for(Particle p : this.particles){
-                dq.setEntry(i * 2, p.getVelocity().getX());
-                dq.setEntry(i * 2 + 1, p.getVelocity().getY());
+    public void addConstraints(Constraint constraint){
+        this.addConstraints(new LegacyConstraint(constraint, this));
+    }
+
+    List<Particle> getParticleList(){
+        return this.particles;
+    }
 
-                Vector2 resultingForce = p.getForceSum();
-                Q.setEntry(i * 2, resultingForce.getX());
-                Q.setEntry(i * 2 + 1, resultingForce.getY());
+    ParticleStore getStore(){
+        return this.store;
+    }
 
-                i++;
+    private void initMatrices(){
+        this.matrixesInitialized = true;
+
+        int constraintCount = this.constraints.size();
+        int[][] constraintParticleLists = new int[constraintCount][];
+        for(int c = 0; c < constraintCount; c++){
+            SimulationParticle[] particles = this.constraints.get(c).getParticles();
+            constraintParticleLists[c] = new int[particles.length];
+            for(int p = 0; p < particles.length; p++){
+                constraintParticleLists[c][p] = particles[p].getIndex();
             }
+        }
 
-            i = 0;
-            for(Constraint constraint : this.constraints){
-                constraint.insertConstraint(this.particles, C, i, this);
-                constraint.insertJacobian(this.particles, jacobian, i, this);
-                constraint.insertJacobianDerivative(this.particles, jacobianDerivative, i, this);
+        buildIslands(constraintParticleLists);
+    }
 
-                i++;
+    /*
+     * Splits the particles into connected components over constraints and springs. Every component with
+     * constraints becomes an island with its own constraint system, and every component sleeps and wakes as a whole.
+     */
+    private void buildIslands(int[][] constraintParticleLists){
+        int n = this.store.size();
+        UnionFind components = new UnionFind(n);
+        collisions.clearConnections();
+        for(int[] indices : constraintParticleLists){
+            for(int p = 1; p < indices.length; p++){
+                components.union(indices[0], indices[p]);
+                for(int q = 0; q < p; q++){
+                    collisions.connect(indices[q], indices[p]);
+                }
+            }
+        }
+        for(Force force : forces){
+            if(force instanceof SpringForce spring){
+                components.union(spring.getParticleA().getIndex(), spring.getParticleB().getIndex());
+                collisions.connect(spring.getParticleA().getIndex(), spring.getParticleB().getIndex());
+            }
+        }
+        for(SpringNetwork network : springNetworks){
+            network.bind();
+            for(int k = 0; k < network.size(); k++){
+                components.union(network.getParticleA(k), network.getParticleB(k));
+                collisions.connect(network.getParticleA(k), network.getParticleB(k));
+            }
+        }
+        collisions.finishConnections(n);
+        sleepTracker.setComponents(components, n);
+        this.activityChanged = true;
+
+        int[] islandOfRoot = new int[n];
+        Arrays.fill(islandOfRoot, -1);
+        List<List<BlockConstraint>> islandConstraints = new ArrayList<>();
+        List<List<int[]>> islandParticleLists = new ArrayList<>();
+        globalConstraints.clear();
+        for(int c = 0; c < constraintParticleLists.length; c++){
+            if(constraintParticleLists[c].length == 0){
+                globalConstraints.add(this.constraints.get(c));
+                continue;
+            }
+            int root = components.find(constraintParticleLists[c][0]);
+            if(islandOfRoot[root] < 0){
+                islandOfRoot[root] = islandConstraints.size();
+                islandConstraints.add(new ArrayList<>());
+                islandParticleLists.add(new ArrayList<>());
             }
+            islandConstraints.get(islandOfRoot[root]).add(this.constraints.get(c));
+            islandParticleLists.get(islandOfRoot[root]).add(constraintParticleLists[c]);
+        }
 
-            RealVector dC = jacobian.operate(dq);
-            RealVector right = jacobianDerivative.operate(dq).mapMultiply(-1)
-                    .subtract(jacobian.operate(W.operate(Q)))
-                    .subtract(C.mapMultiply(ks))
-                    .subtract(dC.mapMultiply(kd));
+        int islandCount = islandConstraints.size();
+        int[] particleCount = new int[islandCount];
+        for(int i = 0; i < n; i++){
+            int island = islandOfRoot[components.find(i)];
+            if(island >= 0){
+                particleCount[island]++;
+            }
+        }
+        int[][] islandParticles = new int[islandCount][];
+        for(int k = 0; k < islandCount; k++){
+            islandParticles[k] = new int[particleCount[k]];
+            particleCount[k] = 0;
+        }
+        for(int i = 0; i < n; i++){
+            int island = islandOfRoot[components.find(i)];
+            if(island >= 0){
+                islandParticles[island][particleCount[island]++] = i;
+            }
+        }
 
-            RealVector solution = solve2(jacobian, W, right);
-            RealVector forces = multTranspose(jacobian, solution);
+        islands = new ConstraintIsland[islandCount];
+        islandComponent = new int[islandCount];
+        for(int k = 0; k < islandCount; k++){
+            islands[k] = new ConstraintIsland(this.store, islandParticles[k], islandConstraints.get(k),
+                    islandParticleLists.get(k).toArray(new int[0][]), constraintMaxIterations, constraintTolerance, positionBasedIterations);
+            islandComponent[k] = sleepTracker.getComponent(islandParticles[k][0]);
+        }
+        awakeIslands = new ConstraintIsland[islandCount];
+    }
 
-            i = 0;
-            for (Particle p: particles){
-                Vector2 force = new Vector2((float)forces.getEntry(i * 2), (float)forces.getEntry(i * 2 + 1));
-                p.addForce(force);
+    /*
+     * Narrows the store, the forces and the islands down to the particles that are awake
+     */
+    private void updateActivity(){
+        this.activityChanged = false;
+        ParticleStore s = this.store;
+        int n = s.size();
 
-                i++;
+        if(activeIndices.length < n){
+            activeIndices = new int[n];
+        }
+        int activeCount = 0;
+        for(int i = 0; i < n; i++){
+            if(!sleepTracker.isSleeping(i)){
+                activeIndices[activeCount++] = i;
+            }
+        }
+        s.setActive(activeIndices, activeCount);
+
+        activeForces.clear();
+        int springs = 0;
+        for(Force force : forces){
+            if(force instanceof SpringForce spring){
+                if(sleepTracker.isSleeping(spring.getParticleA().getIndex())){
+                    continue;
+                }
+                springs++;
             }
+            if(force instanceof SpringNetwork network){
+                network.updateActive(sleepTracker);
+                springs += network.getActiveCount();
+            }
+            activeForces.add(force);
+        }
+        useParallelForces = parallelForcesEnabled && pool.getParallelism() > 1 && springs >= PARALLEL_FORCE_SPRINGS;
+        if(useParallelForces){
+            parallelForces.build(activeForces, s);
+        }
 
-            for(Constraint constraint : constraints){
-                constraint.apply(time);
+        awakeIslandCount = 0;
+        awakeIslandRows = 0;
+        for(int k = 0; k < islands.length; k++){
+            if(!sleepTracker.isComponentSleeping(islandComponent[k])){
+                awakeIslands[awakeIslandCount++] = islands[k];
+                awakeIslandRows += islands[k].getRows();
             }
         }
 
-        ParticleODE ode = new ParticleODE();
-        for (Particle particle : particles){
-            DParticle dp = new DParticle(particle.position, particle.velocity, particle);
-            DParticle newDp = solver.step(dp, ode, time);
-            particle.position = newDp.dPosition;
-            particle.velocity = newDp.dVelocity;
+        if(this.state.length != s.getStateDimension()){
+            this.state = new double[s.getStateDimension()];
+        }
+        if(fullDx.length != n * 2){
+            fullDx = new double[n * 2];
+            fullDv = new double[n * 2];
+            fullDf = new double[n * 2];
+        }else{
+            Arrays.fill(fullDx, 0);
+            Arrays.fill(fullDv, 0);
+        }
+    }
 
-            if(particle.position.getY() + this.particleRadius > this.size.getY()){
-                particle.position = new Vector2(particle.position.getX(), this.size.getY() - this.particleRadius);
-                particle.velocity = new Vector2(particle.velocity.getX(), -particle.velocity.getY() * bounceKeep);
+    public void step(float time){
+        for(int k = 0; k < springNetworks.size(); k++){
+            if(springNetworks.get(k).isModified()){
+                matrixesInitialized = false;
             }
         }
-    }
+        if(!matrixesInitialized){
+            initMatrices();
+        }
+        //Mouse edits land between steps, never between the stages of one
+        for(int k = 0; k < forces.size(); k++){
+            if(forces.get(k) instanceof MouseForce mouseForce){
+                mouseForce.update(this.store);
+                sleepTracker.wake(mouseForce.getSelectedParticle());
+            }
+        }
+        if(activityChanged | sleepTracker.pollChanged()){
+            updateActivity();
+        }
+
+        ParticleStore s = this.store;
+        this.stepTime = time;
+        for(int k = 0; k < awakeIslandCount; k++){
+            awakeIslands[k].clearStatistics();
+        }
+        if(constraintSolverType == EConstraintSolver.PositionBased){
+            stepPositionBased(time);
+        }else{
+            s.copyStateTo(this.state);
+            solver.step(this.state, this.ode, time);
+            s.copyStateFrom(this.state);
+        }
 
-    private RealVector multTranspose(RealMatrix J, RealVector x){
-        int numRows = J.getRowDimension();  // m
-        int numCols = J.getColumnDimension();  // n
-        RealVector JT_x = new ArrayRealVector(numCols);  // Result vector (size n)
+        this.constraintIterations = 0;
+        this.constraintResidual = 0;
+        this.failedConstraintSolves = 0;
+        for(int k = 0; k < awakeIslandCount; k++){
+            ConstraintIsland island = awakeIslands[k];
+            this.constraintIterations += island.getIterations();
+            this.constraintResidual = Math.max(this.constraintResidual, island.getResidual());
+            this.failedConstraintSolves += island.getFailedSolves();
+        }
 
-        OpenMapRealMatrix om;
-        // Compute J^T * x without forming J^T
-        for (int col = 0; col < numCols; col++) {
-            double dotProduct = 0.0;
-            for (int row = 0; row < numRows; row++) {
-                dotProduct += J.getEntry(row, col) * x.getEntry(row);
+        double floor = this.size.getY() - this.particleRadius;
+        for (int k = 0; k < s.activeCount; k++){
+            int i = s.active[k];
+            if(s.y[i] > floor){
+                s.y[i] = floor;
+                s.vy[i] = -s.vy[i] * bounceKeep;
             }
-            JT_x.setEntry(col, dotProduct);
         }
+        this.contactCount = 0;
+        if(particleCollisions && particleRadius > 0){
+            this.contactCount = collisions.resolve(s, sleepTracker, particleRadius, bounceKeep);
+        }
+        if(collidersChanged){
+            lineColliders.build(colliders);
+            collidersChanged = false;
+        }
+        this.contactCount += lineColliders.collide(s, particleRadius, bounceKeep);
 
-        return JT_x;
+        sleepTracker.update(s, time);
     }
 
-    private RealVector solve2(RealMatrix J, DiagonalMatrix W, RealVector B){
-        RealLinearOperator operator = new RealLinearOperator() {
-            @Override
-            public RealVector operate(RealVector x) {
-                RealVector JT_x = multTranspose(J, x);
+    /*
+     * Position based step. Forces are evaluated once, without constraint forces, and the constraints are projected
+     * afterwards, so the ODE solver is not used. Pinned particles stay put through their zero inverse mass.
+     */
+    private void stepPositionBased(float time){
+        //Velocities are recovered by dividing by the step, so an empty step leaves everything as it is
+        if(time <= 0){
+            return;
+        }
+        ParticleStore s = this.store;
+        int m = s.activeCount;
+        int[] active = s.active;
+        s.clearForces();
+        applyForces();
+        applyConstraints(time);
+
+        if(previousX.length < m){
+            previousX = new double[m];
+            previousY = new double[m];
+        }
+        for(int k = 0; k < m; k++){
+            int i = active[k];
+            previousX[k] = s.x[i];
+            previousY[k] = s.y[i];
+            s.vx[i] += time * s.fx[i] * s.invMass[i];
+            s.vy[i] += time * s.fy[i] * s.invMass[i];
+            s.x[i] += time * s.vx[i];
+            s.y[i] += time * s.vy[i];
+        }
 
-                RealVector M_JT_x = W.operate(JT_x);
-                RealVector result =  J.operate(M_JT_x);
+        solveIslands(time, true);
 
-                double lambda = 1e-6;
-                return result.add(x.mapMultiply(lambda));
-            }
+        for(int k = 0; k < m; k++){
+            int i = active[k];
+            s.vx[i] = (s.x[i] - previousX[k]) / time;
+            s.vy[i] = (s.y[i] - previousY[k]) / time;
+        }
+    }
 
-            @Override
-            public int getRowDimension() {
-                return J.getRowDimension(); // Number of rows in J
-            }
+    /*
+     * Evaluates all forces, including the constraint forces, for the positions and velocities currently in the store
+     */
+    private void evaluateForces(float time){
+        ParticleStore s = this.store;
+        s.clearForces();
+        applyForces();
 
-            @Override
-            public int getColumnDimension() {
-                return J.getRowDimension(); // Number of rows in J
-            }
-        };
+        if(awakeIslandCount > 0){
+            solveIslands(time, false);
+        }
+        applyConstraints(time);
+    }
+
+    /*
+     * Lets every awake constraint, and those without particles, act on the store after the forces are in
+     */
+    private void applyConstraints(float time){
+        for(int k = 0; k < awakeIslandCount; k++){
+            awakeIslands[k].apply(time, this.store);
+        }
+        for(int c = 0; c < globalConstraints.size(); c++){
+            globalConstraints.get(c).apply(time, this.store, NO_PARTICLES, 0);
+        }
+    }
+
+    /*
+     * Applies every active force to the store, spread over the fork join pool for large spring networks
+     */
+    private void applyForces(){
+        if(useParallelForces){
+            parallelForces.apply(pool);
+            return;
+        }
+        for (int k = 0; k < activeForces.size(); k++){
+            activeForces.get(k).apply(this.store);
+        }
+    }
 
-        // Solve using Conjugate Gradient
-        try{
-            ConjugateGradient cg = new ConjugateGradient(10, 1e-5, false);
-            return cg.solve(operator, B);
-        }catch(Exception e){
-            return new ArrayRealVector(B.getDimension());
+    /*
+     * Solves for constraint forces, or projects positions, island by island. Islands share no particles, so large
+     * scenes with more than one island are spread over the fork join pool.
+     */
+    private void solveIslands(float time, boolean project){
+        if(awakeIslandCount > 1 && awakeIslandRows >= PARALLEL_CONSTRAINT_ROWS && pool.getParallelism() > 1){
+            pool.invoke(new IslandTask(0, awakeIslandCount, time, project));
+            return;
+        }
+        for(int k = 0; k < awakeIslandCount; k++){
+            solveIsland(awakeIslands[k], time, project);
+        }
+    }
+
+    private void solveIsland(ConstraintIsland island, float time, boolean project){
+        if(project){
+            island.project(this.store, time);
+        }else{
+            island.solve(this.store, constraintSolverType, ks, kd);
         }
     }
 
     public void setSolver(ODESolver solver){
         System.out.println("Using " + solver.getClass() + " solver");
+        if(solver instanceof AdaptiveODESolver adaptiveSolver){
+            adaptiveSolver.setTolerance(this.absoluteTolerance, this.relativeTolerance);
+        }
         this.solver = solver;
+        wakeAll();
+    }
+
+    /*
+     * Error tolerances used by adaptive solvers, both for the current one and any solver set later
+     */
+    public void setTolerance(double absoluteTolerance, double relativeTolerance){
+        if(this.solver instanceof AdaptiveODESolver adaptiveSolver){
+            adaptiveSolver.setTolerance(absoluteTolerance, relativeTolerance);
+        }
+        this.absoluteTolerance = absoluteTolerance;
+        this.relativeTolerance = relativeTolerance;
+        wakeAll();
+    }
+
+    /*
+     * Number of internal steps the solver took during the last call to step
+     */
+    public int getLastSolverSteps(){
+        if(this.solver instanceof AdaptiveODESolver adaptiveSolver){
+            return adaptiveSolver.getAcceptedSteps();
+        }
+        return 1;
+    }
+
+    /*
+     * Conjugate gradient iterations spent on constraint forces during the last call to step
+     */
+    public int getLastConstraintIterations(){
+        return constraintIterations;
+    }
+
+    /*
+     * Largest constraint solve residual seen during the last call to step
+     */
+    public double getLastConstraintResidual(){
+        return constraintResidual;
+    }
+
+    /*
+     * Number of constraint solves that did not reach the tolerance during the last call to step
+     */
+    public int getLastFailedConstraintSolves(){
+        return failedConstraintSolves;
+    }
+
+    public void setConstraintSolver(EConstraintSolver constraintSolverType){
+        this.constraintSolverType = constraintSolverType;
+        wakeAll();
+    }
+
+    public EConstraintSolver getConstraintSolver(){
+        return this.constraintSolverType;
+    }
+
+    /*
+     * Projection sweeps per step of the position based solver
+     */
+    public void setPositionBasedIterations(int iterations){
+        if(iterations < 1){
+            throw new IllegalArgumentException("Iterations must be at least one. Provided value was " + iterations);
+        }
+        this.positionBasedIterations = iterations;
+        for(ConstraintIsland island : islands){
+            island.setPositionBasedIterations(iterations);
+        }
+    }
+
+    public void setConstraintSolverLimits(int maxIterations, double tolerance){
+        if(maxIterations < 1){
+            throw new IllegalArgumentException("Max iterations must be at least one. Provided value was " + maxIterations);
+        }
+        if(tolerance <= 0){
+            throw new IllegalArgumentException("Tolerance must be greater than zero. Provided value was " + tolerance);
+        }
+        this.constraintMaxIterations = maxIterations;
+        this.constraintTolerance = tolerance;
+        for(ConstraintIsland island : islands){
+            island.setSolverLimits(maxIterations, tolerance);
+        }
+    }
+
+    /*
+     * Kinetic energy per unit mass below which a connected group counts as resting. Groups that rest for half a
+     * second fall asleep and cost nothing until they are woken. Zero, the default, turns sleeping off.
+     */
+    public void setSleepThreshold(double threshold){
+        sleepTracker.setThreshold(threshold);
+    }
+
+    public double getSleepThreshold(){
+        return sleepTracker.getThreshold();
+    }
+
+    /*
+     * Wakes every sleeping group, for example after a parameter that affects them has changed
+     */
+    public void wakeAll(){
+        sleepTracker.wakeAll();
+    }
+
+    public void wake(SimulationParticle particle){
+        if(particle.getParticle().store == this.store){
+            wake(particle.getIndex());
+        }
+    }
+
+    /*
+     * Wakes the group of the particle with the given store index, e.g. when something touches it
+     */
+    void wake(int particle){
+        sleepTracker.wake(particle);
+    }
+
+    public boolean isSleeping(SimulationParticle particle){
+        return particle.getParticle().store == this.store && sleepTracker.isSleeping(particle.getIndex());
+    }
+
+    public void setParticleCollisions(boolean enabled){
+        this.particleCollisions = enabled;
+        wakeAll();
+    }
+
+    public boolean isParticleCollisionsEnabled(){
+        return this.particleCollisions;
+    }
+
+    /*
+     * Number of contacts resolved during the last call to step, between particles and with colliders
+     */
+    public int getContactCount(){
+        return this.contactCount;
+    }
+
+    /*
+     * Number of particles integrated during the last call to step
+     */
+    public int getAwakeParticleCount(){
+        return this.store.activeSize();
+    }
+
+    /*
+     * Pool used for parallel force evaluation and island solves. Defaults to the common pool.
+     */
+    public void setPool(ForkJoinPool pool){
+        this.pool = pool;
+        this.activityChanged = true;
+    }
+
+    public void setParallelForces(boolean enabled){
+        this.parallelForcesEnabled = enabled;
+        this.activityChanged = true;
+    }
+
+    /*
+     * Number of separately solved constraint islands
+     */
+    public int getIslandCount(){
+        return islands.length;
     }
 
     public ODESolver getSolver(){
@@ -242,6 +748,7 @@ public class ParticleSystem {
         }
 
         this.bounceKeep = bounceKeep;
+        wakeAll();
     }
 
     public void setSize(Vector2 size){
@@ -252,6 +759,7 @@ public class ParticleSystem {
             throw new IllegalArgumentException("Width can not be less than zero. Provided value was " + size.getX());
         }
         this.size = size;
+        wakeAll();
     }
 
     public void setParticleRadius(float particleRadius) {
@@ -263,7 +771,7 @@ public class ParticleSystem {
     }
 
     public MatrixPosition getMatrixPosition(Particle particle){
-        return new MatrixPosition(this.particles.indexOf(particle));
+        return new MatrixPosition(particle.store == this.store ? particle.getIndex() : -1);
     }
 
     public class MatrixPosition{
@@ -282,36 +790,96 @@ public class ParticleSystem {
         }
     }
 
+    private class IslandTask extends RecursiveAction {
+        private final int start;
+        private final int end;
+        private final float time;
+        private final boolean project;
+
+        IslandTask(int start, int end, float time, boolean project){
+            this.start = start;
+            this.end = end;
+            this.time = time;
+            this.project = project;
+        }
 
-
-        private class ParticleODE implements ODE<DParticle, DParticle> {
         @Override
-        public DParticle f(DParticle dParticle) {
-            Vector2 netForce = dParticle.particle.forces.stream().reduce(new Vector2(0,0), Vector2::add);
-            return new DParticle(dParticle.dVelocity, netForce.div(dParticle.particle.getMass()), dParticle.particle);
+        protected void compute() {
+            if(end - start == 1){
+                solveIsland(awakeIslands[start], time, project);
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new IslandTask(start, middle, time, project), new IslandTask(middle, end, time, project));
         }
+    }
 
+    /*
+     * The whole system as one ODE. Every evaluation moves the store to the given state and recomputes all forces,
+     * so each stage of a multistage solver sees the forces belonging to that stage.
+     */
+    private class ParticleODE implements ImplicitODE {
         @Override
-        public DParticle add(DParticle dParticle, DParticle dParticle2) {
-            return new DParticle(dParticle.dPosition.add(dParticle2.dPosition), dParticle.dVelocity.add(dParticle2.dVelocity), dParticle.particle);
+        public void f(double[] x, double[] dx) {
+            ParticleStore s = ParticleSystem.this.store;
+            int m = s.activeCount;
+            s.copyStateFrom(x);
+            evaluateForces(stepTime);
+
+            System.arraycopy(x, m * 2, dx, 0, m * 2);
+            for(int k = 0; k < m; k++){
+                int i = s.active[k];
+                dx[m * 2 + k] = s.fx[i] * s.invMass[i];
+                dx[m * 3 + k] = s.fy[i] * s.invMass[i];
+            }
         }
 
         @Override
-        public DParticle scale(DParticle x, float factor) {
-            return new DParticle(x.dPosition.mul(factor), x.dVelocity.mul(factor), x.particle);
+        public void linearize(double[] x) {
+            ParticleStore s = ParticleSystem.this.store;
+            s.copyStateFrom(x);
+            forceJacobian.clear(s.size());
+            for (int k = 0; k < activeForces.size(); k++){
+                if(activeForces.get(k) instanceof DifferentiableForce differentiableForce){
+                    differentiableForce.addJacobian(s, forceJacobian);
+                }
+            }
         }
-    }
 
-     public class DParticle {
-        private final Vector2 dPosition;
-        private final Vector2 dVelocity;
-        private final Particle particle;
+        @Override
+        public void forceDifferential(double[] dx, double[] dv, double[] df) {
+            ParticleStore s = ParticleSystem.this.store;
+            int n = s.size();
+            int m = s.activeCount;
+            if(m == n){
+                forceJacobian.multiply(dx, dv, df);
+                return;
+            }
+
+            //The Jacobian works on store indices, sleeping entries stay zero
+            for(int k = 0; k < m; k++){
+                int i = s.active[k];
+                fullDx[i] = dx[k];
+                fullDx[n + i] = dx[m + k];
+                fullDv[i] = dv[k];
+                fullDv[n + i] = dv[m + k];
+            }
+            forceJacobian.multiply(fullDx, fullDv, fullDf);
+            for(int k = 0; k < m; k++){
+                int i = s.active[k];
+                df[k] = fullDf[i];
+                df[m + k] = fullDf[n + i];
+            }
+        }
 
-        public DParticle(Vector2 dPosition, Vector2 dVelocity, Particle particle) {
-            this.dPosition = dPosition;
-            this.dVelocity = dVelocity;
-            this.particle = particle;
+        @Override
+        public void getInverseMass(double[] inverseMass) {
+            ParticleStore s = ParticleSystem.this.store;
+            int m = s.activeCount;
+            for(int k = 0; k < m; k++){
+                inverseMass[k] = s.invMass[s.active[k]];
+                inverseMass[m + k] = inverseMass[k];
+            }
         }
     }
-
 }
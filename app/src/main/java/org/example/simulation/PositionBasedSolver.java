@@ -0,0 +1,117 @@
+package org.example.simulation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Constraint projection for extended position based dynamics (XPBD). Every constraint row is projected on its own,
+ * Gauss-Seidel style, onto positions the caller has predicted. Rows are read through BlockConstraint.evaluate, so
+ * any constraint works without a global matrix.
+ */
+class PositionBasedSolver {
+    public static final int DEFAULT_ITERATIONS = 10;
+
+    private List<BlockConstraint> constraints;
+    private int[] particleStart;
+    private int[] particles;
+    private int[] rowStart;
+
+    private int iterations = DEFAULT_ITERATIONS;
+    private double[] lambda = new double[0];
+
+    //Scratch space for one constraint block
+    private double[] value = new double[0];
+    private double[] gradient = new double[0];
+    private double[] gradientDerivative = new double[0];
+
+    private double lastError;
+
+    void setConstraints(List<BlockConstraint> constraints, int[] particleStart, int[] particles, int[] rowStart){
+        this.constraints = constraints;
+        this.particleStart = particleStart;
+        this.particles = particles;
+        this.rowStart = rowStart;
+
+        int maxRows = 0;
+        int maxSlots = 0;
+        for(int c = 0; c < constraints.size(); c++){
+            int rows = rowStart[c + 1] - rowStart[c];
+            maxRows = Math.max(maxRows, rows);
+            maxSlots = Math.max(maxSlots, rows * (particleStart[c + 1] - particleStart[c]) * 2);
+        }
+        lambda = new double[rowStart[constraints.size()]];
+        value = new double[maxRows];
+        gradient = new double[maxSlots];
+        gradientDerivative = new double[maxSlots];
+    }
+
+    /*
+     * Projects the constraints onto the predicted positions already in the store
+     */
+    void project(ParticleStore s, float time){
+        lastError = 0;
+        if(constraints == null){
+            return;
+        }
+        Arrays.fill(lambda, 0);
+        for(int iteration = 0; iteration < iterations; iteration++){
+            lastError = 0;
+            for(int c = 0; c < constraints.size(); c++){
+                project(s, c, time);
+            }
+        }
+    }
+
+    private void project(ParticleStore s, int c, float time){
+        int rows = rowStart[c + 1] - rowStart[c];
+        if(rows == 0){
+            return;
+        }
+        BlockConstraint constraint = constraints.get(c);
+        int first = particleStart[c];
+        int count = particleStart[c + 1] - first;
+        constraint.evaluate(s, particles, first, value, 0, gradient, gradientDerivative, 0);
+
+        double alpha = constraint.getCompliance() / ((double) time * time);
+        for(int row = 0; row < rows; row++){
+            int slot = row * count * 2;
+            double weight = alpha;
+            for(int p = 0; p < count; p++){
+                double gx = gradient[slot + p * 2];
+                double gy = gradient[slot + p * 2 + 1];
+                weight += s.invMass[particles[first + p]] * (gx * gx + gy * gy);
+            }
+            lastError = Math.max(lastError, Math.abs(value[row]));
+            if(weight == 0){
+                continue;
+            }
+
+            int r = rowStart[c] + row;
+            double deltaLambda = (-value[row] - alpha * lambda[r]) / weight;
+            lambda[r] += deltaLambda;
+            for(int p = 0; p < count; p++){
+                int i = particles[first + p];
+                s.x[i] += s.invMass[i] * gradient[slot + p * 2] * deltaLambda;
+                s.y[i] += s.invMass[i] * gradient[slot + p * 2 + 1] * deltaLambda;
+            }
+        }
+    }
+
+    int getIterations(){
+        return iterations;
+    }
+
+    void setIterations(int iterations){
+        if(iterations < 1){
+            throw new IllegalArgumentException("Iterations must be at least one. Provided value was " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    /*
+     * Largest constraint value seen during the last iteration of the last step
+     */
+    double getLastError(){
+        return lastError;
+    }
+}
@@ -0,0 +1,362 @@
+package org.example.simulation;
+
+import org.example.Vector2;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Generates scenes in code, in meters, for benchmarks and load tests. Particles and links are collected in flat
+ * arrays and only become particles, springs and constraints when the scene is built into a particle system, or
+ * turned into an editor scene with EditorScene.of. Random placement comes from the seed, so a builder given the same
+ * seed and calls always makes the same scene.
+ *
+ * Every add method returns the index of its first particle, and the particles of a lattice or cloth follow row by
+ * row, so particle first + row * columns + column is at that row and column.
+ */
+public class SceneBuilder {
+    public static final float DEFAULT_MASS = 1;
+    public static final float DEFAULT_SPRING_CONSTANT = 1000;
+    public static final float DEFAULT_DAMPING_CONSTANT = 10;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Random random;
+    private float mass = DEFAULT_MASS;
+    private float springConstant = DEFAULT_SPRING_CONSTANT;
+    private float dampingConstant = DEFAULT_DAMPING_CONSTANT;
+    private boolean stiff;
+
+    private double[] x = new double[DEFAULT_CAPACITY];
+    private double[] y = new double[DEFAULT_CAPACITY];
+    private double[] particleMass = new double[DEFAULT_CAPACITY];
+    private boolean[] pinned = new boolean[DEFAULT_CAPACITY];
+    private int particles;
+
+    private int[] linkA = new int[DEFAULT_CAPACITY];
+    private int[] linkB = new int[DEFAULT_CAPACITY];
+    private float[] linkStiffness = new float[DEFAULT_CAPACITY];
+    private float[] linkDamping = new float[DEFAULT_CAPACITY];
+    private boolean[] linkStiff = new boolean[DEFAULT_CAPACITY];
+    private int links;
+
+    public SceneBuilder(long seed){
+        this.random = new Random(seed);
+    }
+
+    /*
+     * Mass of the particles added from now on
+     */
+    public void setMass(float mass){
+        if(mass <= 0){
+            throw new IllegalArgumentException("Mass must be greater than zero. Provided value was " + mass);
+        }
+        this.mass = mass;
+    }
+
+    /*
+     * Spring and damping constant of the springs added from now on
+     */
+    public void setSpring(float springConstant, float dampingConstant){
+        if(springConstant < 0 || dampingConstant < 0){
+            throw new IllegalArgumentException("Spring and damping constants can not be negative. Provided values were " + springConstant + " and " + dampingConstant);
+        }
+        this.springConstant = springConstant;
+        this.dampingConstant = dampingConstant;
+    }
+
+    /*
+     * Whether the links added from now on are distance constraints instead of springs
+     */
+    public void setStiff(boolean stiff){
+        this.stiff = stiff;
+    }
+
+    public int addParticle(Vector2 position){
+        return addParticle(position.getX(), position.getY());
+    }
+
+    private int addParticle(double px, double py){
+        ensureParticleCapacity(particles + 1);
+        int i = particles++;
+        x[i] = px;
+        y[i] = py;
+        particleMass[i] = mass;
+        return i;
+    }
+
+    public void pin(int particle){
+        checkParticle(particle);
+        pinned[particle] = true;
+    }
+
+    /*
+     * Links two particles with a spring, or a distance constraint when stiff, at their current distance
+     */
+    public void link(int p1, int p2){
+        checkParticle(p1);
+        checkParticle(p2);
+        ensureLinkCapacity(links + 1);
+        int k = links++;
+        linkA[k] = p1;
+        linkB[k] = p2;
+        linkStiffness[k] = springConstant;
+        linkDamping[k] = dampingConstant;
+        linkStiff[k] = stiff;
+    }
+
+    /*
+     * Loose particles in columns by rows with the given spacing, from the top left corner
+     */
+    public int addLattice(Vector2 topLeft, int columns, int rows, float spacing){
+        checkGrid(columns, rows);
+        ensureParticleCapacity(particles + columns * rows);
+        int first = particles;
+        for(int row = 0; row < rows; row++){
+            for(int column = 0; column < columns; column++){
+                addParticle(topLeft.getX() + column * spacing, topLeft.getY() + row * spacing);
+            }
+        }
+        return first;
+    }
+
+    /*
+     * A lattice with structural springs to its neighbours, shear springs across every cell and bend springs to the
+     * particles two steps away. Nothing is pinned.
+     */
+    public int addCloth(Vector2 topLeft, int columns, int rows, float spacing){
+        int first = addLattice(topLeft, columns, rows, spacing);
+        ensureLinkCapacity(links + 6 * columns * rows);
+        for(int row = 0; row < rows; row++){
+            for(int column = 0; column < columns; column++){
+                int i = first + row * columns + column;
+                if(column + 1 < columns){
+                    link(i, i + 1);
+                }
+                if(row + 1 < rows){
+                    link(i, i + columns);
+                }
+                if(column + 1 < columns && row + 1 < rows){
+                    link(i, i + columns + 1);
+                    link(i + 1, i + columns);
+                }
+                if(column + 2 < columns){
+                    link(i, i + 2);
+                }
+                if(row + 2 < rows){
+                    link(i, i + 2 * columns);
+                }
+            }
+        }
+        return first;
+    }
+
+    /*
+     * A chain of count particles from start to end, each linked to the next. Nothing is pinned.
+     */
+    public int addRope(Vector2 start, Vector2 end, int count){
+        if(count < 2){
+            throw new IllegalArgumentException("A rope needs at least two particles. Provided value was " + count);
+        }
+        ensureParticleCapacity(particles + count);
+        ensureLinkCapacity(links + count - 1);
+        int first = particles;
+        for(int k = 0; k < count; k++){
+            double t = (double) k / (count - 1);
+            addParticle(start.getX() + t * (end.getX() - start.getX()), start.getY() + t * (end.getY() - start.getY()));
+            if(k > 0){
+                link(first + k - 1, first + k);
+            }
+        }
+        return first;
+    }
+
+    /*
+     * Count loose particles spread uniformly at random over the rectangle of size from the top left corner
+     */
+    public int addPointCloud(Vector2 topLeft, Vector2 size, int count){
+        if(count < 0){
+            throw new IllegalArgumentException("Count can not be negative. Provided value was " + count);
+        }
+        ensureParticleCapacity(particles + count);
+        int first = particles;
+        for(int k = 0; k < count; k++){
+            addParticle(topLeft.getX() + random.nextDouble() * size.getX(), topLeft.getY() + random.nextDouble() * size.getY());
+        }
+        return first;
+    }
+
+    /*
+     * Count separate soft boxes of bodySize by bodySize particles with structural and shear links. The rectangle
+     * is divided into equal cells, one per body, and each body is put at a random place within its cell.
+     */
+    public int addBodies(Vector2 topLeft, Vector2 size, int count, int bodySize, float spacing){
+        checkGrid(bodySize, bodySize);
+        if(count < 0){
+            throw new IllegalArgumentException("Count can not be negative. Provided value was " + count);
+        }
+        int columns = Math.max(1, (int) Math.ceil(Math.sqrt(count * size.getX() / size.getY())));
+        int rows = Math.max(1, (count + columns - 1) / columns);
+        double cellWidth = size.getX() / columns;
+        double cellHeight = size.getY() / rows;
+        double extent = (bodySize - 1) * spacing;
+        double freeX = Math.max(0, cellWidth - extent);
+        double freeY = Math.max(0, cellHeight - extent);
+        ensureParticleCapacity(particles + count * bodySize * bodySize);
+        ensureLinkCapacity(links + 4 * count * bodySize * bodySize);
+
+        int first = particles;
+        for(int body = 0; body < count; body++){
+            double left = topLeft.getX() + (body % columns) * cellWidth + random.nextDouble() * freeX;
+            double top = topLeft.getY() + (body / columns) * cellHeight + random.nextDouble() * freeY;
+            int start = particles;
+            for(int row = 0; row < bodySize; row++){
+                for(int column = 0; column < bodySize; column++){
+                    addParticle(left + column * spacing, top + row * spacing);
+                }
+            }
+            for(int row = 0; row < bodySize; row++){
+                for(int column = 0; column < bodySize; column++){
+                    int i = start + row * bodySize + column;
+                    if(column + 1 < bodySize){
+                        link(i, i + 1);
+                    }
+                    if(row + 1 < bodySize){
+                        link(i, i + bodySize);
+                    }
+                    if(column + 1 < bodySize && row + 1 < bodySize){
+                        link(i, i + bodySize + 1);
+                        link(i + 1, i + bodySize);
+                    }
+                }
+            }
+        }
+        return first;
+    }
+
+    /*
+     * Adds the scene to the system as particles, pins, one spring network and distance constraints, and returns
+     * the particles in builder order
+     */
+    public List<SimulationParticle> build(ParticleSystem system){
+        List<SimulationParticle> simulationParticles = system.addParticles(x, y, particleMass, particles);
+        for(int i = 0; i < particles; i++){
+            if(pinned[i]){
+                system.addConstraints(new ImmovableConstraint(simulationParticles.get(i)));
+            }
+        }
+
+        int springs = 0;
+        for(int k = 0; k < links; k++){
+            if(!linkStiff[k]){
+                springs++;
+            }
+        }
+        SpringNetwork network = new SpringNetwork(springs);
+        for(int k = 0; k < links; k++){
+            SimulationParticle p1 = simulationParticles.get(linkA[k]);
+            SimulationParticle p2 = simulationParticles.get(linkB[k]);
+            if(linkStiff[k]){
+                system.addConstraints(new DistanceConstraint(p1, p2, getLinkLength(k)));
+            }else{
+                network.add(p1, p2, getLinkLength(k), linkStiffness[k], linkDamping[k]);
+            }
+        }
+        if(springs > 0){
+            system.addForce(network);
+        }
+        return simulationParticles;
+    }
+
+    public int getParticleCount(){
+        return particles;
+    }
+
+    public int getLinkCount(){
+        return links;
+    }
+
+    public Vector2 getPosition(int particle){
+        checkParticle(particle);
+        return new Vector2((float) x[particle], (float) y[particle]);
+    }
+
+    public float getMass(int particle){
+        checkParticle(particle);
+        return (float) particleMass[particle];
+    }
+
+    public boolean isPinned(int particle){
+        checkParticle(particle);
+        return pinned[particle];
+    }
+
+    public int getLinkA(int link){
+        return linkA[checkLink(link)];
+    }
+
+    public int getLinkB(int link){
+        return linkB[checkLink(link)];
+    }
+
+    public float getLinkLength(int link){
+        checkLink(link);
+        double dx = x[linkB[link]] - x[linkA[link]];
+        double dy = y[linkB[link]] - y[linkA[link]];
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public boolean isLinkStiff(int link){
+        return linkStiff[checkLink(link)];
+    }
+
+    public float getLinkSpringConstant(int link){
+        return linkStiffness[checkLink(link)];
+    }
+
+    public float getLinkDampingConstant(int link){
+        return linkDamping[checkLink(link)];
+    }
+
+    private void checkParticle(int particle){
+        if(particle < 0 || particle >= particles){
+            throw new IllegalArgumentException("No particle with that index. Provided value was " + particle);
+        }
+    }
+
+    private int checkLink(int link){
+        if(link < 0 || link >= links){
+            throw new IllegalArgumentException("No link with that index. Provided value was " + link);
+        }
+        return link;
+    }
+
+    private static void checkGrid(int columns, int rows){
+        if(columns < 1 || rows < 1){
+            throw new IllegalArgumentException("Columns and rows must be at least one. Provided values were " + columns + " and " + rows);
+        }
+    }
+
+    private void ensureParticleCapacity(int capacity){
+        if(capacity <= x.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, x.length * 2);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        particleMass = Arrays.copyOf(particleMass, newCapacity);
+        pinned = Arrays.copyOf(pinned, newCapacity);
+    }
+
+    private void ensureLinkCapacity(int capacity){
+        if(capacity <= linkA.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, linkA.length * 2);
+        linkA = Arrays.copyOf(linkA, newCapacity);
+        linkB = Arrays.copyOf(linkB, newCapacity);
+        linkStiffness = Arrays.copyOf(linkStiffness, newCapacity);
+        linkDamping = Arrays.copyOf(linkDamping, newCapacity);
+        linkStiff = Arrays.copyOf(linkStiff, newCapacity);
+    }
+}
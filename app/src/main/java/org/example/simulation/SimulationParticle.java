@@ -10,6 +10,7 @@ public class SimulationParticle {
     }
 
     Particle getParticle() {return particle;}
+    public int getIndex(){return particle.getIndex();}
     public Vector2 getPosition(){return particle.getPosition();}
     public Vector2 getVelocity(){return particle.getVelocity();}
     public float getMass(){return particle.getMass();}
@@ -0,0 +1,176 @@
+package org.example.simulation;
+
+/*
+ * Puts connected groups of particles to sleep once their kinetic energy per unit mass has stayed below a threshold
+ * for a while. Groups are the components of the constraint and spring graph, so anything attached to a moving
+ * particle keeps moving with it. Sleeping particles keep their positions and have their velocities cleared.
+ */
+class SleepTracker {
+    public static final double DEFAULT_THRESHOLD = 0; //Off, scenes only sleep when they ask for it
+    public static final double DEFAULT_SLEEP_TIME = 0.5;
+
+    private int[] componentOf = new int[0];
+    private int[] componentStart = new int[1];
+    private int[] componentParticles = new int[0];
+    private boolean[] sleeping = new boolean[0];
+    private double[] restTime = new double[0];
+
+    private int[] awake = new int[0]; //Awake components
+    private int awakeCount;
+    private boolean changed = false;
+
+    private double threshold = DEFAULT_THRESHOLD;
+    private double sleepTime = DEFAULT_SLEEP_TIME;
+
+    /*
+     * Starts over with the components of the given sets, all awake
+     */
+    void setComponents(UnionFind components, int particles){
+        int[] componentOfRoot = new int[particles];
+        int count = 0;
+        for(int i = 0; i < particles; i++){
+            if(components.find(i) == i){
+                componentOfRoot[i] = count++;
+            }
+        }
+
+        componentOf = new int[particles];
+        componentStart = new int[count + 1];
+        for(int i = 0; i < particles; i++){
+            componentOf[i] = componentOfRoot[components.find(i)];
+            componentStart[componentOf[i] + 1]++;
+        }
+        for(int c = 0; c < count; c++){
+            componentStart[c + 1] += componentStart[c];
+        }
+        componentParticles = new int[particles];
+        int[] next = new int[count];
+        for(int i = 0; i < particles; i++){
+            int c = componentOf[i];
+            componentParticles[componentStart[c] + next[c]++] = i;
+        }
+
+        sleeping = new boolean[count];
+        restTime = new double[count];
+        awake = new int[count];
+        for(int c = 0; c < count; c++){
+            awake[c] = c;
+        }
+        awakeCount = count;
+        changed = true;
+    }
+
+    /*
+     * Advances the rest timers of the awake components by time and puts the ones that have rested long enough to
+     * sleep. Returns whether any component fell asleep.
+     */
+    boolean update(ParticleStore s, double time){
+        if(threshold <= 0){
+            return false;
+        }
+
+        boolean fellAsleep = false;
+        int kept = 0;
+        for(int k = 0; k < awakeCount; k++){
+            int c = awake[k];
+            double energy = 0;
+            double mass = 0;
+            for(int p = componentStart[c]; p < componentStart[c + 1]; p++){
+                int i = componentParticles[p];
+                energy += s.mass[i] * (s.vx[i] * s.vx[i] + s.vy[i] * s.vy[i]);
+                mass += s.mass[i];
+            }
+
+            if(mass > 0 && energy / (2 * mass) >= threshold){
+                restTime[c] = 0;
+            }else{
+                restTime[c] += time;
+            }
+
+            if(restTime[c] >= sleepTime){
+                sleeping[c] = true;
+                for(int p = componentStart[c]; p < componentStart[c + 1]; p++){
+                    int i = componentParticles[p];
+                    s.vx[i] = 0;
+                    s.vy[i] = 0;
+                }
+                fellAsleep = true;
+            }else{
+                awake[kept++] = c;
+            }
+        }
+        awakeCount = kept;
+        changed |= fellAsleep;
+        return fellAsleep;
+    }
+
+    void wake(int particle){
+        if(particle < 0 || particle >= componentOf.length){
+            return;
+        }
+        int c = componentOf[particle];
+        if(!sleeping[c]){
+            return;
+        }
+        sleeping[c] = false;
+        restTime[c] = 0;
+        awake[awakeCount++] = c;
+        changed = true;
+    }
+
+    void wakeAll(){
+        for(int c = 0; c < sleeping.length; c++){
+            restTime[c] = 0;
+            if(sleeping[c]){
+                sleeping[c] = false;
+                awake[awakeCount++] = c;
+                changed = true;
+            }
+        }
+    }
+
+    boolean isSleeping(int particle){
+        return particle < componentOf.length && sleeping[componentOf[particle]];
+    }
+
+    int getComponent(int particle){
+        return componentOf[particle];
+    }
+
+    boolean isComponentSleeping(int component){
+        return sleeping[component];
+    }
+
+    /*
+     * Whether any component fell asleep or woke up since the last call
+     */
+    boolean pollChanged(){
+        boolean result = changed;
+        changed = false;
+        return result;
+    }
+
+    double getThreshold(){
+        return threshold;
+    }
+
+    /*
+     * Kinetic energy per unit mass below which a component counts as resting. Zero turns sleeping off.
+     */
+    void setThreshold(double threshold){
+        if(threshold < 0){
+            throw new IllegalArgumentException("Sleep threshold can not be negative. Provided value was " + threshold);
+        }
+        this.threshold = threshold;
+        if(threshold == 0){
+            wakeAll();
+        }
+    }
+
+    void setSleepTime(double sleepTime){
+        if(sleepTime <= 0){
+            throw new IllegalArgumentException("Sleep time must be greater than zero. Provided value was " + sleepTime);
+        }
+        this.sleepTime = sleepTime;
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.simulation;
+
+import java.util.Arrays;
+
+/*
+ * Uniform grid over the plane, hashed into a table of buckets so it does not need bounds. Rebuilt from scratch with
+ * a counting sort, so building is linear in the number of particles. Different cells can share a bucket, which only
+ * adds candidates and never loses one.
+ */
+class SpatialHash {
+    private double cellSize = 1;
+    private int mask;
+
+    int[] bucketStart = new int[1]; //Particles of bucket h are particles[bucketStart[h]] up to particles[bucketStart[h + 1]]
+    int[] particles = new int[0];
+    private int[] bucketOf = new int[0];
+
+    void build(ParticleStore s, double cellSize){
+        if(cellSize <= 0){
+            throw new IllegalArgumentException("Cell size must be greater than zero. Provided value was " + cellSize);
+        }
+        this.cellSize = cellSize;
+        int n = s.size();
+        int buckets = Integer.highestOneBit(Math.max(n, 1) * 2 - 1) << 1;
+        if(bucketStart.length != buckets + 1){
+            bucketStart = new int[buckets + 1];
+        }else{
+            Arrays.fill(bucketStart, 0);
+        }
+        if(particles.length < n){
+            particles = new int[n];
+            bucketOf = new int[n];
+        }
+        mask = buckets - 1;
+
+        for(int i = 0; i < n; i++){
+            int h = hash(cell(s.x[i]), cell(s.y[i]));
+            bucketOf[i] = h;
+            bucketStart[h + 1]++;
+        }
+        for(int h = 0; h < buckets; h++){
+            bucketStart[h + 1] += bucketStart[h];
+        }
+        //Filling each bucket from its end moves every start one entry to the right
+        for(int i = n - 1; i >= 0; i--){
+            int h = bucketOf[i];
+            particles[--bucketStart[h + 1]] = i;
+        }
+        for(int h = 0; h < buckets; h++){
+            bucketStart[h] = bucketStart[h + 1];
+        }
+        bucketStart[buckets] = n;
+    }
+
+    int cell(double coordinate){
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    int hash(int cellX, int cellY){
+        return (cellX * 73856093 ^ cellY * 19349663) & mask;
+    }
+}
@@ -1,11 +1,8 @@
 package org.example.simulation;
 
-import org.example.Force;
-import org.example.Vector2;
+import org.example.DifferentiableForce;
 
-import java.util.List;
-
-public class SpringForce implements Force {
+public class SpringForce implements DifferentiableForce {
     private Particle particleA;
     private Particle particleB;
 
@@ -29,25 +26,65 @@ public class SpringForce implements Force {
     }
 
     @Override
-    public void apply(List<Particle> particles) {
-        Vector2 pA = particleA.getPosition();
-        Vector2 pB = particleB.getPosition();
-        Vector2 vA = particleA.getVelocity();
-        Vector2 vB = particleB.getVelocity();
+    public void apply(ParticleStore particles) {
+        int a = particleA.index;
+        int b = particleB.index;
+
+        double lx = particles.x[a] - particles.x[b];
+        double ly = particles.y[a] - particles.y[b];
+        double dlx = particles.vx[a] - particles.vx[b];
+        double dly = particles.vy[a] - particles.vy[b];
+
+        double length = Math.sqrt(lx * lx + ly * ly);
+        if(length == 0){
+            return;
+        }
+
+        double magnitudeSpring = (length - this.springLength) * this.springConstant;
+        double magnitudeDamping = (dlx * lx + dly * ly) * this.dampingConstant / length;
+        double scale = (magnitudeSpring + magnitudeDamping) / length;
+
+        double fx = lx * scale;
+        double fy = ly * scale;
+        particles.fx[b] += fx;
+        particles.fy[b] += fy;
+        particles.fx[a] -= fx;
+        particles.fy[a] -= fy;
+    }
+
+    @Override
+    public void addJacobian(ParticleStore particles, ForceJacobian jacobian) {
+        int a = particleA.index;
+        int b = particleB.index;
+        addJacobian(jacobian, a, b, particles.x[a] - particles.x[b], particles.y[a] - particles.y[b], springLength, springConstant, dampingConstant);
+    }
 
-        Vector2 L = pA.sub(pB);
-        Vector2 dL = vA.sub(vB);
-//        if(L.length() < 1){
-//            return;
-//        }
+    /*
+     * Stiffness k(nn' + (1 - restLength / length)(I - nn')) and damping d nn' along the spring direction n.
+     * The transverse term is dropped while the spring is compressed so the Jacobian stays definite.
+     */
+    static void addJacobian(ForceJacobian jacobian, int a, int b, double lx, double ly, double restLength, double springConstant, double dampingConstant){
+        double length = Math.sqrt(lx * lx + ly * ly);
+        if(length == 0){
+            return;
+        }
+        double nx = lx / length;
+        double ny = ly / length;
+        double transverse = Math.max(0, 1 - restLength / length);
 
-        float magnitudeSpring = (L.length() - this.springLength) * this.springConstant;
-        float magnitudeDamping = dL.dot(L) * this.dampingConstant / L.length();
+        double nxx = nx * nx;
+        double nxy = nx * ny;
+        double nyy = ny * ny;
 
-        Vector2 f = L.normalized().mul(magnitudeSpring + magnitudeDamping);
+        double kxx = springConstant * (nxx + transverse * (1 - nxx));
+        double kxy = springConstant * (nxy - transverse * nxy);
+        double kyy = springConstant * (nyy + transverse * (1 - nyy));
 
-        particleB.addForce(f);
-        particleA.addForce(f.mul(-1));
+        if(b < 0){
+            jacobian.addAnchoredSpring(a, kxx, kxy, kyy, dampingConstant * nxx, dampingConstant * nxy, dampingConstant * nyy);
+        }else{
+            jacobian.addSpring(a, b, kxx, kxy, kyy, dampingConstant * nxx, dampingConstant * nxy, dampingConstant * nyy);
+        }
     }
 
     public SimulationParticle getParticleA(){
@@ -0,0 +1,205 @@
+package org.example.simulation;
+
+import org.example.DifferentiableForce;
+import org.example.Kernels;
+
+import java.util.Arrays;
+
+/*
+ * Many damped springs as one force. Endpoints, rest lengths, stiffnesses and dampings are kept in parallel arrays
+ * and evaluated in one loop. The springs that are evaluated are listed in an active order, which leaves out springs
+ * of sleeping particles and is grouped by colour when the network is applied in parallel. The active springs are
+ * also packed into arrays of their own in that order, which the kernels run over.
+ */
+public class SpringNetwork implements DifferentiableForce {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Particle[] particleA;
+    private Particle[] particleB;
+    private int[] a;
+    private int[] b;
+    private double[] restLength;
+    private double[] stiffness;
+    private double[] damping;
+    private int size;
+    private int boundSize = -1;
+
+    private int[] active = new int[0];
+    private int activeCount;
+
+    //The active springs, packed in active order
+    private int[] packedA = new int[0];
+    private int[] packedB = new int[0];
+    private double[] packedRestLength = new double[0];
+    private double[] packedStiffness = new double[0];
+    private double[] packedDamping = new double[0];
+    private double[] forceX = new double[0];
+    private double[] forceY = new double[0];
+
+    public SpringNetwork(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SpringNetwork(int capacity){
+        capacity = Math.max(capacity, 1);
+        particleA = new Particle[capacity];
+        particleB = new Particle[capacity];
+        a = new int[capacity];
+        b = new int[capacity];
+        restLength = new double[capacity];
+        stiffness = new double[capacity];
+        damping = new double[capacity];
+    }
+
+    private void ensureCapacity(int capacity){
+        if(capacity <= a.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, a.length * 2);
+        particleA = Arrays.copyOf(particleA, newCapacity);
+        particleB = Arrays.copyOf(particleB, newCapacity);
+        a = Arrays.copyOf(a, newCapacity);
+        b = Arrays.copyOf(b, newCapacity);
+        restLength = Arrays.copyOf(restLength, newCapacity);
+        stiffness = Arrays.copyOf(stiffness, newCapacity);
+        damping = Arrays.copyOf(damping, newCapacity);
+    }
+
+    /*
+     * Adds a spring and returns its index in the network
+     */
+    public int add(SimulationParticle p1, SimulationParticle p2, float springLength, float springConstant, float dampingConstant){
+        if(springLength < 0){
+            throw new IllegalArgumentException("Spring length can not be negative. Provided value was " + springLength);
+        }
+        ensureCapacity(size + 1);
+        int k = size++;
+        particleA[k] = p1.getParticle();
+        particleB[k] = p2.getParticle();
+        a[k] = p1.getIndex();
+        b[k] = p2.getIndex();
+        restLength[k] = springLength;
+        stiffness[k] = springConstant;
+        damping[k] = dampingConstant;
+        return k;
+    }
+
+    /*
+     * Reads the store indices of all endpoints again, after the particles have moved into the system's store.
+     * Every spring starts out active.
+     */
+    void bind(){
+        for(int k = 0; k < size; k++){
+            a[k] = particleA[k].index;
+            b[k] = particleB[k].index;
+        }
+        if(active.length < size){
+            active = new int[a.length];
+        }
+        for(int k = 0; k < size; k++){
+            active[k] = k;
+        }
+        activeCount = size;
+        boundSize = size;
+        pack();
+    }
+
+    /*
+     * Whether springs were added since the last bind
+     */
+    boolean isModified(){
+        return boundSize != size;
+    }
+
+    /*
+     * Keeps only the springs whose particles are awake
+     */
+    void updateActive(SleepTracker sleepTracker){
+        activeCount = 0;
+        for(int k = 0; k < size; k++){
+            if(!sleepTracker.isSleeping(a[k])){
+                active[activeCount++] = k;
+            }
+        }
+        pack();
+    }
+
+    private void pack(){
+        if(packedA.length < activeCount){
+            packedA = new int[active.length];
+            packedB = new int[active.length];
+            packedRestLength = new double[active.length];
+            packedStiffness = new double[active.length];
+            packedDamping = new double[active.length];
+            forceX = new double[active.length];
+            forceY = new double[active.length];
+        }
+        for(int s = 0; s < activeCount; s++){
+            int k = active[s];
+            packedA[s] = a[k];
+            packedB[s] = b[k];
+            packedRestLength[s] = restLength[k];
+            packedStiffness[s] = stiffness[k];
+            packedDamping[s] = damping[k];
+        }
+    }
+
+    /*
+     * Reorders the active springs so that no two springs of one colour share a particle and returns where each
+     * colour starts, with the end of the last one appended
+     */
+    int[] colourActive(int particles){
+        int[] colourStart = ParallelForces.colour(active, activeCount, a, b, particles);
+        pack();
+        return colourStart;
+    }
+
+    @Override
+    public void apply(ParticleStore particles) {
+        apply(particles, 0, activeCount);
+    }
+
+    /*
+     * Applies the springs at positions from up to to in the active order
+     */
+    void apply(ParticleStore particles, int from, int to) {
+        Kernels.get().applySprings(particles.x, particles.y, particles.vx, particles.vy, particles.fx, particles.fy,
+                                   packedA, packedB, packedRestLength, packedStiffness, packedDamping, forceX, forceY, from, to);
+    }
+
+    @Override
+    public void addJacobian(ParticleStore particles, ForceJacobian jacobian) {
+        for(int s = 0; s < activeCount; s++){
+            int i = packedA[s];
+            int j = packedB[s];
+            SpringForce.addJacobian(jacobian, i, j, particles.x[i] - particles.x[j], particles.y[i] - particles.y[j],
+                                    packedRestLength[s], packedStiffness[s], packedDamping[s]);
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    int getActiveCount(){
+        return activeCount;
+    }
+
+    /*
+     * Store index of the first particle of spring k
+     */
+    public int getParticleA(int k){
+        return a[k];
+    }
+
+    /*
+     * Store index of the second particle of spring k
+     */
+    public int getParticleB(int k){
+        return b[k];
+    }
+
+    public float getSpringLength(int k){
+        return (float) restLength[k];
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.simulation;
+
+import java.nio.ByteOrder;
+
+/*
+ * Layout of a trajectory file, all little endian:
+ *
+ *   header       magic, version, flags, spring count, collider count, unused (ints), frame count, index offset (longs)
+ *   springs      the two particle indices of every spring (ints)
+ *   colliders    start x, start y, end x, end y of every collider line (floats)
+ *   frames       time (double), particle count, unused (ints), then all x, all y and with velocities all vx and all
+ *                vy (floats)
+ *   index        the file offset of every frame (longs)
+ *
+ * The frame count and index offset are filled in when the recording is closed.
+ */
+final class TrajectoryFormat {
+    static final int MAGIC = 0x4A525450; //"PTRJ"
+    static final int VERSION = 1;
+    static final int FLAG_VELOCITIES = 1;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int HEADER_SIZE = 40;
+    static final int FRAME_COUNT_OFFSET = 24;
+    static final int INDEX_OFFSET_OFFSET = 32;
+    static final int FRAME_HEADER_SIZE = 16;
+
+    private TrajectoryFormat(){}
+
+    static int getValuesPerParticle(boolean velocities){
+        return velocities ? 4 : 2;
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.simulation;
+
+import org.example.ImmutableList;
+import org.example.Line;
+import org.example.Vector2;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A trajectory file written by TrajectoryRecorder, memory mapped for reading. The frame index is read when the file
+ * is opened, so any frame is found in constant time without stepping a system. Files larger than one mapping are
+ * mapped in several regions, each holding whole frames.
+ */
+public class TrajectoryPlayback implements AutoCloseable {
+    private static final long MAX_REGION_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final boolean velocities;
+    private final int[] springA;
+    private final int[] springB;
+    private final ImmutableList<Line> colliders;
+
+    private final int frameCount;
+    private final MappedByteBuffer[] regions;
+    private final int[] frameRegion;
+    private final int[] frameOffset; //Within its region
+
+    public TrajectoryPlayback(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(0, TrajectoryFormat.HEADER_SIZE);
+            if(header.getInt() != TrajectoryFormat.MAGIC){
+                throw new IOException("Not a trajectory file: " + file);
+            }
+            int version = header.getInt();
+            if(version != TrajectoryFormat.VERSION){
+                throw new IOException("Unsupported trajectory version " + version + " in " + file);
+            }
+            this.velocities = (header.getInt() & TrajectoryFormat.FLAG_VELOCITIES) != 0;
+            int springCount = header.getInt();
+            int colliderCount = header.getInt();
+            header.getInt();
+            long frames = header.getLong();
+            long indexOffset = header.getLong();
+            if(indexOffset == 0 || frames > Integer.MAX_VALUE){
+                throw new IOException("Trajectory was not closed properly: " + file);
+            }
+            this.frameCount = (int) frames;
+
+            ByteBuffer scene = read(TrajectoryFormat.HEADER_SIZE, springCount * 8 + colliderCount * 16);
+            this.springA = new int[springCount];
+            this.springB = new int[springCount];
+            for(int k = 0; k < springCount; k++){
+                springA[k] = scene.getInt();
+                springB[k] = scene.getInt();
+            }
+            List<Line> lines = new ArrayList<>(colliderCount);
+            for(int k = 0; k < colliderCount; k++){
+                lines.add(new Line(new Vector2(scene.getFloat(), scene.getFloat()), new Vector2(scene.getFloat(), scene.getFloat())));
+            }
+            this.colliders = new ImmutableList<>(lines);
+
+            long[] offsets = new long[frameCount + 1];
+            read(indexOffset, frameCount * 8).asLongBuffer().get(offsets, 0, frameCount);
+            offsets[frameCount] = indexOffset;
+
+            //Start a new region whenever the next frame would not fit in the current one
+            this.frameRegion = new int[frameCount];
+            this.frameOffset = new int[frameCount];
+            List<MappedByteBuffer> regions = new ArrayList<>();
+            int first = 0;
+            while(first < frameCount){
+                long start = offsets[first];
+                int last = first;
+                while(last < frameCount && offsets[last + 1] - start <= MAX_REGION_SIZE){
+                    frameRegion[last] = regions.size();
+                    frameOffset[last] = (int) (offsets[last] - start);
+                    last++;
+                }
+                if(last == first){
+                    throw new IOException("Frame " + first + " is too large to map in " + file);
+                }
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, offsets[last] - start);
+                region.order(TrajectoryFormat.ORDER);
+                regions.add(region);
+                first = last;
+            }
+            this.regions = regions.toArray(new MappedByteBuffer[0]);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer read(long offset, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(TrajectoryFormat.ORDER);
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer, offset + buffer.position()) < 0){
+                throw new IOException("Trajectory file ends early");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public int getFrameCount(){
+        return frameCount;
+    }
+
+    public boolean hasVelocities(){
+        return velocities;
+    }
+
+    public double getTime(int frame){
+        checkFrame(frame);
+        return regions[frameRegion[frame]].getDouble(frameOffset[frame]);
+    }
+
+    public int getParticleCount(int frame){
+        checkFrame(frame);
+        return regions[frameRegion[frame]].getInt(frameOffset[frame] + 8);
+    }
+
+    public Vector2 getPosition(int frame, int particle){
+        return new Vector2(getValue(frame, particle, 0), getValue(frame, particle, 1));
+    }
+
+    public Vector2 getVelocity(int frame, int particle){
+        if(!velocities){
+            throw new IllegalStateException("Trajectory was recorded without velocities");
+        }
+        return new Vector2(getValue(frame, particle, 2), getValue(frame, particle, 3));
+    }
+
+    /*
+     * Value of the given component, x, y, vx or vy, of a particle in a frame
+     */
+    private float getValue(int frame, int particle, int component){
+        int count = getParticleCount(frame);
+        if(particle < 0 || particle >= count){
+            throw new IllegalArgumentException("No particle with that index in frame " + frame + ". Provided value was " + particle);
+        }
+        int offset = frameOffset[frame] + TrajectoryFormat.FRAME_HEADER_SIZE + (component * count + particle) * 4;
+        return regions[frameRegion[frame]].getFloat(offset);
+    }
+
+    /*
+     * Copies the positions of a frame into x and y, which must hold every particle of the frame, and returns the
+     * number of particles
+     */
+    int read(int frame, double[] x, double[] y){
+        checkFrame(frame);
+        int count = getParticleCount(frame);
+        if(x.length < count || y.length < count){
+            throw new IllegalArgumentException("Frame " + frame + " holds " + count + " particles. Provided lengths were " + x.length + " and " + y.length);
+        }
+        MappedByteBuffer region = regions[frameRegion[frame]];
+        int offsetX = frameOffset[frame] + TrajectoryFormat.FRAME_HEADER_SIZE;
+        int offsetY = offsetX + count * 4;
+        for(int i = 0; i < count; i++){
+            x[i] = region.getFloat(offsetX + i * 4);
+            y[i] = region.getFloat(offsetY + i * 4);
+        }
+        return count;
+    }
+
+    public int getSpringCount(){
+        return springA.length;
+    }
+
+    public int getSpringA(int k){
+        return springA[k];
+    }
+
+    public int getSpringB(int k){
+        return springB[k];
+    }
+
+    public ImmutableList<Line> getColliders(){
+        return colliders;
+    }
+
+    private void checkFrame(int frame){
+        if(frame < 0 || frame >= frameCount){
+            throw new IllegalArgumentException("No frame with that index. Provided value was " + frame);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
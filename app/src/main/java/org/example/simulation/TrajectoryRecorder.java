@@ -0,0 +1,292 @@
+package org.example.simulation;
+
+import org.example.Force;
+import org.example.Line;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/*
+ * Records the particle positions, and optionally velocities, of a system into a trajectory file, one frame per
+ * call to record. The springs and colliders of the system are written once up front so playback can draw them.
+ *
+ * Springs are written as store indices, so they only hold while particles keep their indices. The store never
+ * removes or reorders particles, it only appends, so every frame of one system agrees with the header. Particles
+ * and springs added after recording starts appear in the frames but not as springs, and recording any other system
+ * than the one the recorder was created for is rejected.
+ *
+ * Recording only copies the store into a float frame from a fixed pool and hands it to a background writer through
+ * a bounded queue, so the simulation thread never waits on the disk unless the writer falls a whole queue behind.
+ * Frames are reused, so recording allocates nothing once the pool is full.
+ */
+public class TrajectoryRecorder implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    private static final Frame END = new Frame();
+
+    private final FileChannel channel;
+    private final ParticleStore store; //The one the spring indices in the header refer to
+    private final boolean velocities;
+    private final int poolSize;
+    private final BlockingQueue<Frame> filled;
+    private final BlockingQueue<Frame> free;
+    private final Thread writer;
+    private int allocated;
+    private boolean closed;
+    private volatile IOException failure;
+
+    //Only touched by the writer thread until it has finished
+    private ByteBuffer buffer;
+    private FloatBuffer bufferValues;
+    private long position;
+    private long[] index = new long[64];
+    private volatile int frames;
+
+    private static final class Frame {
+        double time;
+        int count;
+        float[] values = new float[0];
+    }
+
+    public TrajectoryRecorder(File file, ParticleSystem system, boolean velocities) throws IOException {
+        this(file, system, velocities, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public TrajectoryRecorder(File file, ParticleSystem system, boolean velocities, int queueCapacity) throws IOException {
+        if(queueCapacity < 1){
+            throw new IllegalArgumentException("Queue capacity must be at least one. Provided value was " + queueCapacity);
+        }
+        this.store = system.getStore();
+        this.velocities = velocities;
+        this.poolSize = queueCapacity + 1;
+        this.filled = new ArrayBlockingQueue<>(queueCapacity + 1);
+        this.free = new ArrayBlockingQueue<>(this.poolSize);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeHeader(system);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        this.writer = new Thread(this::write, "Trajectory writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private void writeHeader(ParticleSystem system) throws IOException {
+        int springCount = 0;
+        for(Force force : system.getForces()){
+            if(force instanceof SpringNetwork network){
+                springCount += network.size();
+            }else if(force instanceof SpringForce){
+                springCount++;
+            }
+        }
+        int colliderCount = system.getColliders().size();
+
+        ByteBuffer header = ByteBuffer.allocate(TrajectoryFormat.HEADER_SIZE + springCount * 8 + colliderCount * 16).order(TrajectoryFormat.ORDER);
+        header.putInt(TrajectoryFormat.MAGIC);
+        header.putInt(TrajectoryFormat.VERSION);
+        header.putInt(velocities ? TrajectoryFormat.FLAG_VELOCITIES : 0);
+        header.putInt(springCount);
+        header.putInt(colliderCount);
+        header.putInt(0);
+        header.putLong(0);
+        header.putLong(0);
+        for(Force force : system.getForces()){
+            if(force instanceof SpringNetwork network){
+                for(int k = 0; k < network.size(); k++){
+                    header.putInt(network.getParticleA(k));
+                    header.putInt(network.getParticleB(k));
+                }
+            }else if(force instanceof SpringForce spring){
+                header.putInt(spring.getParticleA().getIndex());
+                header.putInt(spring.getParticleB().getIndex());
+            }
+        }
+        for(Line line : system.getColliders()){
+            header.putFloat(line.start.getX());
+            header.putFloat(line.start.getY());
+            header.putFloat(line.end.getX());
+            header.putFloat(line.end.getY());
+        }
+        header.flip();
+        writeFully(header);
+    }
+
+    /*
+     * Queues the current state of the system as a frame at the given time. Waits only when the writer is a whole
+     * queue behind, and drops the frame if the waiting thread is interrupted.
+     */
+    public void record(ParticleSystem system, double time){
+        if(closed){
+            throw new IllegalStateException("Recorder is closed");
+        }
+        if(failure != null){
+            throw new IllegalStateException("Writing the trajectory failed", failure);
+        }
+        if(system.getStore() != store){
+            throw new IllegalArgumentException("Recorder was created for another system, its springs would not match");
+        }
+        Frame frame = free.poll();
+        if(frame == null && allocated < poolSize){
+            frame = new Frame();
+            allocated++;
+        }
+        try {
+            if(frame == null){
+                frame = free.take();
+            }
+            ParticleStore s = system.getStore();
+            int n = s.size();
+            int valueCount = n * TrajectoryFormat.getValuesPerParticle(velocities);
+            if(frame.values.length < valueCount){
+                frame.values = new float[valueCount];
+            }
+            float[] values = frame.values;
+            for(int i = 0; i < n; i++){
+                values[i] = (float) s.x[i];
+                values[n + i] = (float) s.y[i];
+            }
+            if(velocities){
+                for(int i = 0; i < n; i++){
+                    values[2 * n + i] = (float) s.vx[i];
+                    values[3 * n + i] = (float) s.vy[i];
+                }
+            }
+            frame.time = time;
+            frame.count = n;
+            filled.put(frame);
+        } catch (InterruptedException e) {
+            if(frame != null){
+                free.add(frame);
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(){
+        while(true){
+            Frame frame = takeUninterruptibly(filled);
+            if(frame == END){
+                return;
+            }
+            if(failure == null){
+                try {
+                    writeFrame(frame);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            free.add(frame);
+        }
+    }
+
+    private void writeFrame(Frame frame) throws IOException {
+        int valueCount = frame.count * TrajectoryFormat.getValuesPerParticle(velocities);
+        int size = TrajectoryFormat.FRAME_HEADER_SIZE + valueCount * 4;
+        if(buffer == null || buffer.capacity() < size){
+            buffer = ByteBuffer.allocateDirect(size).order(TrajectoryFormat.ORDER);
+            bufferValues = buffer.position(TrajectoryFormat.FRAME_HEADER_SIZE).slice().order(TrajectoryFormat.ORDER).asFloatBuffer();
+        }
+        buffer.clear();
+        buffer.putDouble(frame.time);
+        buffer.putInt(frame.count);
+        buffer.putInt(0);
+        bufferValues.clear();
+        bufferValues.put(frame.values, 0, valueCount);
+        buffer.limit(size);
+        buffer.position(0);
+
+        if(frames == index.length){
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+        index[frames] = position;
+        writeFully(buffer);
+        frames++;
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while(source.hasRemaining()){
+            position += channel.write(source);
+        }
+    }
+
+    /*
+     * Frames written to the file so far
+     */
+    public int getFrameCount(){
+        return frames;
+    }
+
+    public boolean isRecordingVelocities(){
+        return velocities;
+    }
+
+    /*
+     * Waits for the queued frames to be written, then writes the frame index and finishes the header
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed){
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        while(true){
+            try {
+                filled.put(END);
+                writer.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            if(failure != null){
+                throw failure;
+            }
+            long indexOffset = position;
+            ByteBuffer indexBuffer = ByteBuffer.allocate(frames * 8).order(TrajectoryFormat.ORDER);
+            indexBuffer.asLongBuffer().put(index, 0, frames);
+            writeFully(indexBuffer);
+
+            ByteBuffer counts = ByteBuffer.allocate(16).order(TrajectoryFormat.ORDER);
+            counts.putLong(frames);
+            counts.putLong(indexOffset);
+            counts.flip();
+            channel.write(counts, TrajectoryFormat.FRAME_COUNT_OFFSET);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static Frame takeUninterruptibly(BlockingQueue<Frame> queue){
+        boolean interrupted = false;
+        try {
+            while(true){
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if(interrupted){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
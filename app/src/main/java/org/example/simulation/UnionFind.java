@@ -0,0 +1,41 @@
+package org.example.simulation;
+
+/*
+ * Disjoint sets over 0..n-1 with union by size and path halving
+ */
+class UnionFind {
+    private final int[] parent;
+    private final int[] size;
+
+    UnionFind(int n){
+        parent = new int[n];
+        size = new int[n];
+        for(int i = 0; i < n; i++){
+            parent[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    int find(int i){
+        while(parent[i] != i){
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    void union(int a, int b){
+        a = find(a);
+        b = find(b);
+        if(a == b){
+            return;
+        }
+        if(size[a] < size[b]){
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+    }
+}
@@ -1,11 +1,10 @@
 package org.example.simulation;
 
-import org.example.Force;
-import org.example.Vector2;
+import org.example.DifferentiableForce;
+import org.example.Kernels;
+import org.example.ParticleForce;
 
-import java.util.List;
-
-public class ViscousDragForce implements Force {
+public class ViscousDragForce implements DifferentiableForce, ParticleForce {
     private float drag;
 
     public ViscousDragForce(float drag){
@@ -13,10 +12,28 @@ public class ViscousDragForce implements Force {
     }
 
     @Override
-    public void apply(List<Particle> particles) {
-        for (Particle particle : particles){
-            Vector2 force = particle.getVelocity().mul(-drag);
-            particle.addForce(force);
+    public void apply(ParticleStore particles, int from, int to) {
+        double[] fx = particles.fx;
+        double[] fy = particles.fy;
+        double[] vx = particles.vx;
+        double[] vy = particles.vy;
+        if(particles.activeCount == particles.size()){
+            Kernels.get().addScaled(fx, vx, -drag, from, to);
+            Kernels.get().addScaled(fy, vy, -drag, from, to);
+            return;
+        }
+        int[] active = particles.active;
+        for (int k = from; k < to; k++){
+            int i = active[k];
+            fx[i] -= vx[i] * drag;
+            fy[i] -= vy[i] * drag;
+        }
+    }
+
+    @Override
+    public void addJacobian(ParticleStore particles, ForceJacobian jacobian) {
+        for (int k = 0; k < particles.activeSize(); k++){
+            jacobian.addDamping(particles.getActive(k), drag);
         }
     }
 
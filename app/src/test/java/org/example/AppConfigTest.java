@@ -0,0 +1,62 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+public class AppConfigTest {
+    //RungeKutta, gravity 3.5, bounce 75, drag 0.25 and scene.psim, as saved by the first version of AppConfig
+    private static final String FIRST_VERSION =
+            "rO0ABXNyABVvcmcuZXhhbXBsZS5BcHBDb25maWeCYqNumtgIQgIABUYABmJvdW5jZUYAB2dyYXZpdHlGAAt2aXNjb3VzRHJhZ0wACGN1cnJG" +
+            "aWxldAAOTGphdmEvaW8vRmlsZTtMAAlvZGVTb2x2ZXJ0ABhMb3JnL2V4YW1wbGUvRU9kZVNvbHZlcjt4cEKWAABAYAAAPoAAAHNyAAxqYXZh" +
+            "LmlvLkZpbGUELaRFDg3k/wMAAUwABHBhdGh0ABJMamF2YS9sYW5nL1N0cmluZzt4cHQACnNjZW5lLnBzaW13AgAveH5yABZvcmcuZXhhbXBs" +
+            "ZS5FT2RlU29sdmVyAAAAAAAAAAASAAB4cgAOamF2YS5sYW5nLkVudW0AAAAAAAAAABIAAHhwdAAKUnVuZ2VLdXR0YQ==";
+
+    private static AppConfig read(byte[] bytes) throws IOException, ClassNotFoundException {
+        try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))){
+            return (AppConfig) in.readObject();
+        }
+    }
+
+    @Test
+    public void firstVersionConfigLoadsWithDefaults() throws IOException, ClassNotFoundException {
+        AppConfig config = read(Base64.getDecoder().decode(FIRST_VERSION));
+        assertEquals(EOdeSolver.RungeKutta, config.odeSolver);
+        assertEquals(3.5f, config.gravity, 0);
+        assertEquals(75f, config.bounce, 0);
+        assertEquals(0.25f, config.viscousDrag, 0);
+        assertEquals(new File("scene.psim"), config.currFile);
+
+        AppConfig defaults = AppConfig.getDefault();
+        assertEquals(defaults.constraintSolver, config.constraintSolver);
+        assertEquals(defaults.timeStep, config.timeStep, 0);
+        assertEquals(defaults.substeps, config.substeps);
+        assertEquals(defaults.barnesHutSoftening, config.barnesHutSoftening, 0);
+        assertEquals(defaults.barnesHutTheta, config.barnesHutTheta, 0);
+        assertFalse(config.hasBarnesHut());
+        assertFalse(config.sleeping);
+    }
+
+    @Test
+    public void currentConfigRoundTrips() throws IOException, ClassNotFoundException {
+        AppConfig saved = new AppConfig(EOdeSolver.DormandPrince, EConstraintSolver.PositionBased, 1, 50, 0.5f, 0.01f, 4, true, true,
+                                        2, 0.3f, 0, new File("other.psim"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(ObjectOutputStream out = new ObjectOutputStream(bytes)){
+            out.writeObject(saved);
+        }
+        AppConfig config = read(bytes.toByteArray());
+        assertEquals(EConstraintSolver.PositionBased, config.constraintSolver);
+        assertEquals(0.01f, config.timeStep, 0);
+        assertEquals(4, config.substeps);
+        assertTrue(config.collisions);
+        assertTrue(config.sleeping);
+        assertEquals(2, config.barnesHutStrength, 0);
+        assertEquals(0.3f, config.barnesHutSoftening, 0);
+        assertEquals(0, config.barnesHutTheta, 0);
+        assertEquals(new File("other.psim"), config.currFile);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BackwardEulerSolverTest {
+    /*
+     * Coordinates tied to the origin and to their neighbours by springs, state is positions followed by velocities
+     */
+    private static class SpringChain implements ImplicitODE {
+        private final double stiffness;
+        private final double[] inverseMass;
+
+        SpringChain(double stiffness, double... inverseMass){
+            this.stiffness = stiffness;
+            this.inverseMass = inverseMass;
+        }
+
+        private void force(double[] x, double[] f){
+            int n = inverseMass.length;
+            for(int i = 0; i < n; i++){
+                f[i] = -stiffness * x[i];
+                if(i > 0){
+                    f[i] -= stiffness * (x[i] - x[i - 1]);
+                }
+                if(i < n - 1){
+                    f[i] -= stiffness * (x[i] - x[i + 1]);
+                }
+            }
+        }
+
+        @Override
+        public void f(double[] x, double[] dx) {
+            int n = inverseMass.length;
+            double[] force = new double[n];
+            force(x, force);
+            for(int i = 0; i < n; i++){
+                dx[i] = inverseMass[i] == 0 ? 0 : x[n + i];
+                dx[n + i] = force[i] * inverseMass[i];
+            }
+        }
+
+        @Override
+        public void linearize(double[] x) {
+        }
+
+        @Override
+        public void forceDifferential(double[] dx, double[] dv, double[] df) {
+            force(dx, df);
+        }
+
+        @Override
+        public void getInverseMass(double[] inverseMass) {
+            System.arraycopy(this.inverseMass, 0, inverseMass, 0, this.inverseMass.length);
+        }
+    }
+
+    private static double maxAmplitude(ODESolver solver, SpringChain chain, double[] state, int steps){
+        double max = 0;
+        for(int i = 0; i < steps; i++){
+            solver.step(state, chain, 0.01f);
+            for(double value : state){
+                max = Math.max(max, Math.abs(value));
+            }
+        }
+        return max;
+    }
+
+    @Test
+    public void stiffSpringStaysBoundedWhereExplicitEulerBlowsUp(){
+        //omega h = 1, well past the stability limit of explicit Euler
+        SpringChain chain = new SpringChain(10000, 1);
+        assertTrue(maxAmplitude(new EulerSolver(), chain, new double[]{1, 0}, 200) > 1e6);
+
+        BackwardEulerSolver solver = new BackwardEulerSolver();
+        double[] state = {1, 0};
+        assertTrue(maxAmplitude(solver, chain, state, 200) <= 100);
+        assertTrue(Math.abs(state[0]) < 1);
+        assertEquals(0, solver.getFailedSolves());
+    }
+
+    @Test
+    public void coordinatesWithoutInverseMassStayFixed(){
+        SpringChain chain = new SpringChain(10000, 0, 1, 1);
+        BackwardEulerSolver solver = new BackwardEulerSolver();
+        double[] state = {0.5, 1, -1, 0, 0, 0};
+        maxAmplitude(solver, chain, state, 100);
+        assertEquals(0.5, state[0], 0);
+        assertEquals(0, state[3], 0);
+        assertEquals(0, solver.getFailedSolves());
+    }
+
+    @Test
+    public void unconvergedSolveIsCountedAndKeepsTheState(){
+        SpringChain chain = new SpringChain(10000, 1, 1, 1, 1);
+        BackwardEulerSolver solver = new BackwardEulerSolver();
+        solver.setMaxIterations(1);
+        double[] state = {1, -1, 1, -0.5, 0, 0, 0, 0};
+        solver.step(state, chain, 0.01f);
+        assertEquals(1, solver.getFailedSolves());
+        assertEquals(1, solver.getIterations());
+        for(double value : state){
+            assertTrue(Double.isFinite(value));
+        }
+    }
+}
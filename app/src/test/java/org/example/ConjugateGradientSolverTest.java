@@ -0,0 +1,117 @@
+package org.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConjugateGradientSolverTest {
+    //Symmetric positive definite, the 1D Laplacian plus a varying diagonal
+    private static double[][] createSystem(int n){
+        double[][] a = new double[n][n];
+        for(int i = 0; i < n; i++){
+            a[i][i] = 2 + i * 0.5;
+            if(i > 0){
+                a[i][i - 1] = -1;
+                a[i - 1][i] = -1;
+            }
+        }
+        return a;
+    }
+
+    private static LinearOperator operator(double[][] a){
+        return (x, out) -> {
+            for(int i = 0; i < a.length; i++){
+                double sum = 0;
+                for(int j = 0; j < a.length; j++){
+                    sum += a[i][j] * x[j];
+                }
+                out[i] = sum;
+            }
+        };
+    }
+
+    @Test
+    public void solvesKnownSystem(){
+        int n = 20;
+        double[][] a = createSystem(n);
+        double[] expected = new double[n];
+        for(int i = 0; i < n; i++){
+            expected[i] = Math.sin(i) + 1;
+        }
+        double[] b = new double[n];
+        operator(a).operate(expected, b);
+
+        ConjugateGradientSolver solver = new ConjugateGradientSolver(100, 1e-12);
+        double[] x = new double[n];
+        assertTrue(solver.solve(operator(a), b, x, n));
+        assertTrue(solver.isConverged());
+        assertTrue(solver.getIterations() <= n);
+        assertArrayEquals(expected, x, 1e-9);
+    }
+
+    @Test
+    public void jacobiPreconditionerSolvesTheSameSystem(){
+        int n = 20;
+        double[][] a = createSystem(n);
+        double[] b = new double[n];
+        double[] inverseDiagonal = new double[n];
+        for(int i = 0; i < n; i++){
+            b[i] = i % 3 - 1;
+            inverseDiagonal[i] = 1 / a[i][i];
+        }
+
+        ConjugateGradientSolver solver = new ConjugateGradientSolver(100, 1e-12);
+        double[] plain = new double[n];
+        double[] preconditioned = new double[n];
+        assertTrue(solver.solve(operator(a), b, plain, n));
+        assertTrue(solver.solve(operator(a), inverseDiagonal, b, preconditioned, n));
+        assertArrayEquals(plain, preconditioned, 1e-9);
+    }
+
+    @Test
+    public void warmStartAtTheSolutionNeedsNoIterations(){
+        double[][] a = createSystem(5);
+        double[] x = {1, 2, 3, 4, 5};
+        double[] b = new double[5];
+        operator(a).operate(x, b);
+
+        ConjugateGradientSolver solver = new ConjugateGradientSolver(100, 1e-8);
+        assertTrue(solver.solve(operator(a), b, x, 5));
+        assertEquals(0, solver.getIterations());
+    }
+
+    @Test
+    public void zeroRightHandSideGivesZeroSolution(){
+        double[][] a = createSystem(5);
+        double[] x = {1, -1, 2, 0.5, 3};
+        ConjugateGradientSolver solver = new ConjugateGradientSolver(3, 1e-8);
+        assertTrue(solver.solve(operator(a), new double[5], x, 5));
+        assertArrayEquals(new double[5], x, 0);
+        assertEquals(0, solver.getResidual(), 0);
+    }
+
+    @Test
+    public void reportsFailureWhenOutOfIterations(){
+        double[][] a = createSystem(20);
+        double[] b = new double[20];
+        b[0] = 1;
+        ConjugateGradientSolver solver = new ConjugateGradientSolver(2, 1e-12);
+        assertFalse(solver.solve(operator(a), b, new double[20], 20));
+        assertEquals(2, solver.getIterations());
+        assertTrue(solver.getResidual() > 0);
+    }
+
+    @Test
+    public void onlyTheFirstEntriesAreSolved(){
+        //Workspaces sized for a larger system still solve a smaller one
+        ConjugateGradientSolver solver = new ConjugateGradientSolver(100, 1e-12);
+        solver.solve(operator(createSystem(10)), new double[10], new double[10], 10);
+        double[][] a = createSystem(3);
+        double[] b = {1, 0, 1, 99};
+        double[] x = new double[4];
+        assertTrue(solver.solve(operator(a), b, x, 3));
+        double[] check = new double[3];
+        operator(a).operate(x, check);
+        assertArrayEquals(new double[]{1, 0, 1}, check, 1e-10);
+        assertEquals(0, x[3], 0);
+    }
+}
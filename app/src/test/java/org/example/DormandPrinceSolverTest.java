@@ -0,0 +1,97 @@
+package org.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DormandPrinceSolverTest {
+    //x'' = -omega^2 x, starting at x = 1, v = 0
+    private static final double OMEGA = 2 * Math.PI;
+    private static final ODE OSCILLATOR = (x, dx) -> {
+        dx[0] = x[1];
+        dx[1] = -OMEGA * OMEGA * x[0];
+    };
+
+    private static double errorAfterOneSecond(int steps){
+        //Tolerances this loose accept every step, so each call is a single step of the full length
+        DormandPrinceSolver solver = new DormandPrinceSolver(1e10, 0);
+        double[] state = {1, 0};
+        for(int i = 0; i < steps; i++){
+            solver.step(state, OSCILLATOR, 1f / steps);
+            assertEquals(1, solver.getAcceptedSteps());
+            assertEquals(0, solver.getRejectedSteps());
+        }
+        return Math.hypot(state[0] - 1, state[1]);
+    }
+
+    @Test
+    public void fixedStepsConvergeWithFifthOrder(){
+        //Fewer steps converge faster than the asymptotic rate on this problem
+        double previous = errorAfterOneSecond(128);
+        for(int steps = 256; steps <= 512; steps *= 2){
+            double error = errorAfterOneSecond(steps);
+            double order = Math.log(previous / error) / Math.log(2);
+            assertTrue("Observed order " + order + " with " + steps + " steps", order > 4.5 && order < 5.5);
+            previous = error;
+        }
+    }
+
+    @Test
+    public void tooLargeFirstStepIsRejected(){
+        DormandPrinceSolver solver = new DormandPrinceSolver(1e-8, 1e-8);
+        double[] state = {1, 0};
+        solver.step(state, OSCILLATOR, 1f);
+        assertTrue(solver.getRejectedSteps() > 0);
+        assertTrue(solver.getAcceptedSteps() > 1);
+        assertEquals(1, state[0], 1e-5);
+        assertEquals(0, state[1], 1e-4);
+    }
+
+    @Test
+    public void tighterToleranceTakesMoreSteps(){
+        int[] accepted = new int[2];
+        double[] errors = new double[2];
+        double[] tolerances = {1e-4, 1e-8};
+        for(int t = 0; t < 2; t++){
+            DormandPrinceSolver solver = new DormandPrinceSolver(tolerances[t], tolerances[t]);
+            double[] state = {1, 0};
+            for(int i = 0; i < 10; i++){
+                solver.step(state, OSCILLATOR, 0.1f);
+                accepted[t] += solver.getAcceptedSteps();
+            }
+            errors[t] = Math.abs(state[0] - Math.cos(OMEGA * 10 * 0.1f));
+        }
+        assertTrue(accepted[1] > accepted[0]);
+        assertTrue(errors[1] < errors[0]);
+    }
+
+    @Test(timeout = 5000)
+    public void nonFiniteStateShrinksToMinStepThenFails(){
+        DormandPrinceSolver solver = new DormandPrinceSolver();
+        solver.setMinStep(1e-4);
+        double[] state = {Double.NaN, 0};
+        assertThrows(IllegalStateException.class, () -> solver.step(state, OSCILLATOR, 0.1f));
+        assertTrue(solver.getRejectedSteps() > 0);
+        assertEquals(0, solver.getAcceptedSteps());
+    }
+
+    @Test(timeout = 5000)
+    public void derivativeUndefinedForLargeStepsIsRetriedSmaller(){
+        //The true solution stays within 1, a full first step takes the stages far outside it
+        ODE bounded = (x, dx) -> {
+            OSCILLATOR.f(x, dx);
+            if(Math.abs(x[0]) > 1.5){
+                dx[0] = Double.NaN;
+            }
+        };
+        DormandPrinceSolver solver = new DormandPrinceSolver(1e-8, 1e-8);
+        double[] state = {1, 0};
+        solver.step(state, bounded, 1f);
+        assertTrue(solver.getRejectedSteps() > 0);
+        assertEquals(1, state[0], 1e-5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveAbsoluteTolerance(){
+        new DormandPrinceSolver(0, 1e-4);
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KernelsTest {
+    //Not a multiple of any vector length, so the scalar tails run too
+    private static final int N = 1003;
+
+    private final Random random = new Random(5);
+    private final Kernels scalar = new ScalarKernels();
+    private final Kernels vector = new VectorKernels();
+
+    private double[] randomArray(int n){
+        double[] values = new double[n];
+        for(int i = 0; i < n; i++){
+            values[i] = random.nextGaussian() * 10;
+        }
+        return values;
+    }
+
+    //Both versions do the same operations in the same order, so the results are identical
+    private static void assertSame(double[] expected, double[] actual){
+        for(int i = 0; i < expected.length; i++){
+            assertEquals("Entry " + i, expected[i], actual[i], 0);
+        }
+    }
+
+    @Test
+    public void addScaledMatches(){
+        double[] x = randomArray(N);
+        double[] y = randomArray(N);
+        double[] expected = y.clone();
+        double[] actual = y.clone();
+        scalar.addScaled(expected, x, 0.37, 5, N - 2);
+        vector.addScaled(actual, x, 0.37, 5, N - 2);
+        assertSame(expected, actual);
+        assertEquals(y[0], actual[0], 0);
+        assertEquals(y[N - 1], actual[N - 1], 0);
+    }
+
+    @Test
+    public void scaledSumMatches(){
+        double[] x = randomArray(N);
+        double[] y = randomArray(N);
+        double[] expected = new double[N];
+        double[] actual = new double[N];
+        scalar.scaledSum(expected, y, x, -1.5, N);
+        vector.scaledSum(actual, y, x, -1.5, N);
+        assertSame(expected, actual);
+    }
+
+    @Test
+    public void addWeightedMatches(){
+        double[] y = randomArray(N);
+        double[] k0 = randomArray(N);
+        double[] k1 = randomArray(N);
+        double[] k2 = randomArray(N);
+        double[] k3 = randomArray(N);
+        double[] expected = y.clone();
+        double[] actual = y.clone();
+        scalar.addWeighted(expected, 0.01, k0, 1 / 6.0, k1, 1 / 3.0, k2, 1 / 3.0, k3, 1 / 6.0, N);
+        vector.addWeighted(actual, 0.01, k0, 1 / 6.0, k1, 1 / 3.0, k2, 1 / 3.0, k3, 1 / 6.0, N);
+        assertSame(expected, actual);
+    }
+
+    @Test
+    public void applySpringsMatches(){
+        int particles = 300;
+        int springs = N;
+        double[] x = randomArray(particles);
+        double[] y = randomArray(particles);
+        double[] vx = randomArray(particles);
+        double[] vy = randomArray(particles);
+        int[] a = new int[springs];
+        int[] b = new int[springs];
+        double[] restLength = new double[springs];
+        double[] stiffness = new double[springs];
+        double[] damping = new double[springs];
+        for(int s = 0; s < springs; s++){
+            a[s] = random.nextInt(particles);
+            b[s] = (a[s] + 1 + random.nextInt(particles - 1)) % particles;
+            restLength[s] = random.nextDouble() * 3;
+            stiffness[s] = 100 + random.nextDouble() * 1000;
+            damping[s] = random.nextDouble() * 10;
+        }
+
+        double[] expectedX = new double[particles];
+        double[] expectedY = new double[particles];
+        scalar.applySprings(x, y, vx, vy, expectedX, expectedY, a, b, restLength, stiffness, damping,
+                            new double[springs], new double[springs], 3, springs);
+        double[] actualX = new double[particles];
+        double[] actualY = new double[particles];
+        vector.applySprings(x, y, vx, vy, actualX, actualY, a, b, restLength, stiffness, damping,
+                            new double[springs], new double[springs], 3, springs);
+        assertSame(expectedX, actualX);
+        assertSame(expectedY, actualY);
+    }
+}
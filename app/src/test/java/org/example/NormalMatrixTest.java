@@ -0,0 +1,85 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NormalMatrixTest {
+    private static void assertMatchesDense(double[][] j, double[] w, double regularization, SparseMatrix normal){
+        int rows = j.length;
+        for(int r = 0; r < rows; r++){
+            for(int c = 0; c < rows; c++){
+                double expected = r == c ? regularization : 0;
+                for(int k = 0; k < w.length; k++){
+                    expected += j[r][k] * w[k] * j[c][k];
+                }
+                assertEquals("Entry (" + r + ", " + c + ")", expected, normal.getEntry(r, c), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void matchesExplicitProduct(){
+        Random random = new Random(8);
+        int rows = 8;
+        int columns = 14;
+        double[][] j = new double[rows][columns];
+        SparseMatrix source = new SparseMatrix(rows, columns);
+        for(int r = 0; r < rows; r++){
+            //Every row touches a few random columns, like a constraint touching a few particles
+            for(int k = 0; k < 3; k++){
+                int c = random.nextInt(columns);
+                j[r][c] = random.nextDouble() * 2 - 1;
+                source.setEntry(r, c, j[r][c]);
+            }
+        }
+        source.freeze();
+        double[] w = new double[columns];
+        for(int c = 0; c < columns; c++){
+            w[c] = random.nextDouble();
+        }
+
+        NormalMatrix normal = new NormalMatrix(source);
+        normal.update(w, 0.25);
+        assertMatchesDense(j, w, 0.25, normal.getMatrix());
+
+        //New Jacobian values and weights reuse the pattern
+        for(int r = 0; r < rows; r++){
+            for(int c = 0; c < columns; c++){
+                if(j[r][c] != 0){
+                    j[r][c] = random.nextDouble();
+                    source.setEntry(r, c, j[r][c]);
+                }
+            }
+        }
+        w[3] = 0;
+        normal.update(w, 0);
+        assertMatchesDense(j, w, 0, normal.getMatrix());
+    }
+
+    @Test
+    public void patternIsSymmetricWithFullDiagonal(){
+        SparseMatrix source = new SparseMatrix(3, 4);
+        source.setEntry(0, 0, 1);
+        source.setEntry(1, 0, 1);
+        source.setEntry(1, 3, 1);
+        source.setEntry(2, 2, 1);
+        source.freeze();
+        SparseMatrix normal = new NormalMatrix(source).getMatrix();
+
+        //Rows 0 and 1 share column 0, row 2 shares nothing
+        assertEquals(5, normal.getNonZeros());
+        for(int r = 0; r < 3; r++){
+            for(int i = normal.getRowStart()[r]; i < normal.getRowStart()[r + 1]; i++){
+                int c = normal.getColumnIndex()[i];
+                boolean mirrored = false;
+                for(int k = normal.getRowStart()[c]; k < normal.getRowStart()[c + 1]; k++){
+                    mirrored |= normal.getColumnIndex()[k] == r;
+                }
+                assertTrue(mirrored);
+            }
+        }
+    }
+}
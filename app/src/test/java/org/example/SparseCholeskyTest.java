@@ -0,0 +1,183 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SparseCholeskyTest {
+    /*
+     * Shifted Laplacian of a width x height grid with its nodes numbered in a shuffled order
+     */
+    private static double[][] createGrid(int width, int height, Random random){
+        int n = width * height;
+        int[] node = shuffled(n, random);
+        double[][] a = new double[n][n];
+        for(int y = 0; y < height; y++){
+            for(int x = 0; x < width; x++){
+                int i = node[y * width + x];
+                a[i][i] += 0.1 + random.nextDouble();
+                if(x + 1 < width){
+                    connect(a, i, node[y * width + x + 1]);
+                }
+                if(y + 1 < height){
+                    connect(a, i, node[(y + 1) * width + x]);
+                }
+            }
+        }
+        return a;
+    }
+
+    private static void connect(double[][] a, int i, int j){
+        a[i][i] += 1;
+        a[j][j] += 1;
+        a[i][j] -= 1;
+        a[j][i] -= 1;
+    }
+
+    private static int[] shuffled(int n, Random random){
+        int[] order = new int[n];
+        for(int i = 0; i < n; i++){
+            order[i] = i;
+        }
+        for(int i = n - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    private static SparseMatrix toSparse(double[][] a){
+        SparseMatrix matrix = new SparseMatrix(a.length, a.length);
+        for(int r = 0; r < a.length; r++){
+            for(int c = 0; c < a.length; c++){
+                if(a[r][c] != 0){
+                    matrix.setEntry(r, c, a[r][c]);
+                }
+            }
+        }
+        matrix.freeze();
+        return matrix;
+    }
+
+    /*
+     * Gaussian elimination with partial pivoting
+     */
+    private static double[] denseSolve(double[][] matrix, double[] right){
+        int n = right.length;
+        double[][] a = new double[n][];
+        for(int i = 0; i < n; i++){
+            a[i] = matrix[i].clone();
+        }
+        double[] b = right.clone();
+        for(int k = 0; k < n; k++){
+            int pivot = k;
+            for(int i = k + 1; i < n; i++){
+                if(Math.abs(a[i][k]) > Math.abs(a[pivot][k])){
+                    pivot = i;
+                }
+            }
+            double[] row = a[k];
+            a[k] = a[pivot];
+            a[pivot] = row;
+            double swap = b[k];
+            b[k] = b[pivot];
+            b[pivot] = swap;
+            for(int i = k + 1; i < n; i++){
+                double factor = a[i][k] / a[k][k];
+                for(int j = k; j < n; j++){
+                    a[i][j] -= factor * a[k][j];
+                }
+                b[i] -= factor * b[k];
+            }
+        }
+        double[] x = new double[n];
+        for(int i = n - 1; i >= 0; i--){
+            double sum = b[i];
+            for(int j = i + 1; j < n; j++){
+                sum -= a[i][j] * x[j];
+            }
+            x[i] = sum / a[i][i];
+        }
+        return x;
+    }
+
+    private static double[] randomVector(int n, Random random){
+        double[] b = new double[n];
+        for(int i = 0; i < n; i++){
+            b[i] = random.nextDouble() * 2 - 1;
+        }
+        return b;
+    }
+
+    @Test
+    public void matchesDenseSolve(){
+        Random random = new Random(12);
+        double[][] a = createGrid(7, 5, random);
+        SparseMatrix matrix = toSparse(a);
+        double[] b = randomVector(a.length, random);
+
+        SparseCholesky cholesky = new SparseCholesky();
+        cholesky.analyze(matrix);
+        assertTrue(cholesky.factor(matrix));
+        double[] x = new double[a.length];
+        cholesky.solve(b, x);
+        assertArrayEquals(denseSolve(a, b), x, 1e-10);
+    }
+
+    @Test
+    public void refactorsNewValuesWithTheSamePattern(){
+        Random random = new Random(5);
+        double[][] a = createGrid(6, 6, random);
+        SparseMatrix matrix = toSparse(a);
+        SparseCholesky cholesky = new SparseCholesky();
+        cholesky.analyze(matrix);
+        assertTrue(cholesky.factor(matrix));
+
+        for(int r = 0; r < a.length; r++){
+            a[r][r] += r % 4;
+            matrix.setEntry(r, r, a[r][r]);
+        }
+        assertTrue(cholesky.factor(matrix));
+        //Solving in place
+        double[] b = randomVector(a.length, random);
+        double[] x = b.clone();
+        cholesky.solve(x, x);
+        assertArrayEquals(denseSolve(a, b), x, 1e-10);
+    }
+
+    @Test
+    public void orderingAvoidsFillOnShuffledChain(){
+        //Any ordering that follows the chain factors without fill, so L has one entry below every diagonal but the last
+        Random random = new Random(3);
+        int n = 50;
+        double[][] a = createGrid(n, 1, random);
+        SparseCholesky cholesky = new SparseCholesky();
+        SparseMatrix matrix = toSparse(a);
+        cholesky.analyze(matrix);
+        assertEquals(2 * n - 1, cholesky.getFactorNonZeros());
+        assertTrue(cholesky.factor(matrix));
+        double[] b = randomVector(n, random);
+        double[] x = new double[n];
+        cholesky.solve(b, x);
+        assertArrayEquals(denseSolve(a, b), x, 1e-10);
+    }
+
+    @Test
+    public void indefiniteMatrixIsNotFactored(){
+        double[][] a = {
+                {1, 2, 0},
+                {2, 1, 0},
+                {0, 0, 1}
+        };
+        SparseMatrix matrix = toSparse(a);
+        SparseCholesky cholesky = new SparseCholesky();
+        cholesky.analyze(matrix);
+        assertFalse(cholesky.factor(matrix));
+        assertFalse(cholesky.isFactored());
+        assertThrows(IllegalStateException.class, () -> cholesky.solve(new double[3], new double[3]));
+    }
+}
@@ -0,0 +1,108 @@
+package org.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SparseMatrixTest {
+    @Test
+    public void freezeBuildsRowsInOrder(){
+        SparseMatrix matrix = new SparseMatrix(3, 4);
+        matrix.setEntry(2, 3, 6);
+        matrix.setEntry(0, 1, 2);
+        matrix.setEntry(2, 0, 5);
+        matrix.setEntry(0, 0, 1);
+        matrix.setEntry(1, 2, 4);
+        matrix.freeze();
+
+        assertTrue(matrix.isFrozen());
+        assertEquals(5, matrix.getNonZeros());
+        assertArrayEquals(new int[]{0, 2, 3, 5}, matrix.getRowStart());
+        //Columns within a row keep the order they were first set in
+        assertArrayEquals(new int[]{1, 0, 2, 3, 0}, matrix.getColumnIndex());
+        assertArrayEquals(new double[]{2, 1, 4, 6, 5}, matrix.getValues(), 0);
+        assertEquals(6, matrix.getEntry(2, 3), 0);
+        assertEquals(0, matrix.getEntry(1, 1), 0);
+    }
+
+    @Test
+    public void freezeMergesDuplicatesKeepingTheLastValue(){
+        SparseMatrix matrix = new SparseMatrix(2, 2);
+        matrix.setEntry(0, 1, 1);
+        matrix.setEntry(1, 1, 2);
+        matrix.setEntry(0, 1, 3);
+        matrix.setEntry(0, 0, 4);
+        matrix.setEntry(0, 1, 5);
+        assertEquals(5, matrix.getEntry(0, 1), 0);
+        matrix.freeze();
+
+        assertEquals(3, matrix.getNonZeros());
+        assertArrayEquals(new int[]{0, 2, 3}, matrix.getRowStart());
+        assertArrayEquals(new int[]{1, 0, 1}, matrix.getColumnIndex());
+        assertEquals(5, matrix.getEntry(0, 1), 0);
+        assertEquals(4, matrix.getEntry(0, 0), 0);
+        assertEquals(2, matrix.getEntry(1, 1), 0);
+    }
+
+    @Test
+    public void productsMatchDenseProducts(){
+        double[][] dense = {
+                {1, 0, -2, 0},
+                {0, 3, 0, 0},
+                {4, 0, 0, 5}
+        };
+        SparseMatrix matrix = new SparseMatrix(3, 4);
+        for(int r = 0; r < 3; r++){
+            for(int c = 0; c < 4; c++){
+                if(dense[r][c] != 0){
+                    matrix.setEntry(r, c, dense[r][c]);
+                }
+            }
+        }
+        matrix.freeze();
+
+        double[] x = {1, 2, 3, 4};
+        double[] out = new double[3];
+        matrix.operate(x, out);
+        assertArrayEquals(new double[]{-5, 6, 24}, out, 0);
+
+        double[] y = {1, -1, 2};
+        double[] transposed = new double[4];
+        matrix.operateTranspose(y, transposed);
+        assertArrayEquals(new double[]{9, -3, -2, 10}, transposed, 0);
+
+        //A diag(w) A^T y
+        double[] w = {1, 2, 0.5, 1};
+        double[] temp = new double[4];
+        double[] normal = new double[3];
+        matrix.operateNormal(w, y, temp, normal);
+        double[] expected = new double[3];
+        for(int r = 0; r < 3; r++){
+            for(int c = 0; c < 4; c++){
+                expected[r] += dense[r][c] * w[c] * transposed[c];
+            }
+        }
+        assertArrayEquals(expected, normal, 1e-12);
+    }
+
+    @Test
+    public void frozenMatrixOnlyWritesExistingEntries(){
+        SparseMatrix matrix = new SparseMatrix(2, 2);
+        matrix.setEntry(0, 0, 1);
+        matrix.freeze();
+        matrix.setEntry(0, 0, 7);
+        assertEquals(7, matrix.getEntry(0, 0), 0);
+        assertThrows(IllegalStateException.class, () -> matrix.setEntry(1, 0, 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void productNeedsFrozenPattern(){
+        SparseMatrix matrix = new SparseMatrix(1, 1);
+        matrix.setEntry(0, 0, 1);
+        matrix.operate(new double[1], new double[1]);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsEntriesOutsideTheMatrix(){
+        new SparseMatrix(2, 2).setEntry(2, 0, 1);
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.simulation;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BarnesHutForceTest {
+    private static final int PARTICLES = 1500;
+    private static final float STRENGTH = 2;
+    private static final float SOFTENING = 0.01f;
+
+    //A uniform cloud with a dense clump in one corner, so the tree is deep in places, and a few coincident particles
+    private static ParticleStore createCloud(){
+        Random random = new Random(17);
+        ParticleStore store = new ParticleStore();
+        for(int i = 0; i < PARTICLES; i++){
+            double mass = 0.5 + random.nextDouble();
+            if(i % 3 == 0){
+                store.add(1 + random.nextGaussian() * 0.05, 1 + random.nextGaussian() * 0.05, mass);
+            }else{
+                store.add(random.nextDouble() * 10, random.nextDouble() * 10, mass);
+            }
+        }
+        store.add(5, 5, 1);
+        store.add(5, 5, 1);
+        return store;
+    }
+
+    //The O(n^2) sum over all pairs that the tree approximates
+    private static double[][] directSum(ParticleStore s){
+        int n = s.size();
+        double squaredSoftening = (double) SOFTENING * SOFTENING;
+        double[][] force = new double[2][n];
+        for(int i = 0; i < n; i++){
+            for(int j = 0; j < n; j++){
+                if(i == j){
+                    continue;
+                }
+                double ox = s.x[j] - s.x[i];
+                double oy = s.y[j] - s.y[i];
+                double r2 = ox * ox + oy * oy + squaredSoftening;
+                double scale = STRENGTH * s.mass[i] * s.mass[j] / (r2 * Math.sqrt(r2));
+                force[0][i] += ox * scale;
+                force[1][i] += oy * scale;
+            }
+        }
+        return force;
+    }
+
+    private static double relativeError(ParticleStore s, double[][] expected){
+        double error = 0;
+        double norm = 0;
+        for(int i = 0; i < s.size(); i++){
+            double ex = s.fx[i] - expected[0][i];
+            double ey = s.fy[i] - expected[1][i];
+            error += ex * ex + ey * ey;
+            norm += expected[0][i] * expected[0][i] + expected[1][i] * expected[1][i];
+        }
+        return Math.sqrt(error / norm);
+    }
+
+    private static double relativeError(float theta){
+        ParticleStore store = createCloud();
+        double[][] expected = directSum(store);
+        new BarnesHutForce(STRENGTH, SOFTENING, theta).apply(store);
+        return relativeError(store, expected);
+    }
+
+    @Test
+    public void thetaZeroMatchesTheDirectSum(){
+        ParticleStore store = createCloud();
+        double[][] expected = directSum(store);
+        new BarnesHutForce(STRENGTH, SOFTENING, 0).apply(store);
+        for(int i = 0; i < store.size(); i++){
+            double scale = 1e-10 * (1 + Math.abs(expected[0][i]) + Math.abs(expected[1][i]));
+            assertEquals("fx of " + i, expected[0][i], store.fx[i], scale);
+            assertEquals("fy of " + i, expected[1][i], store.fy[i], scale);
+        }
+    }
+
+    @Test
+    public void errorShrinksWithTheta(){
+        double coarse = relativeError(1.0f);
+        double standard = relativeError(BarnesHutForce.DEFAULT_THETA);
+        double fine = relativeError(0.2f);
+        //Nodes only carry their mass, no higher moments, so a few percent is expected
+        assertTrue("Error " + standard + " at the default theta", standard < 0.05);
+        assertTrue(fine < standard);
+        assertTrue(standard < coarse);
+        assertTrue(fine > 0);
+    }
+
+    @Test
+    public void onlyActiveParticlesAreDriven(){
+        ParticleStore store = createCloud();
+        double[][] expected = directSum(store);
+        int[] active = {3, 10, 500};
+        store.setActive(active, active.length);
+        new BarnesHutForce(STRENGTH, SOFTENING, 0).apply(store);
+        for(int i = 0; i < store.size(); i++){
+            if(i == 3 || i == 10 || i == 500){
+                assertEquals(expected[0][i], store.fx[i], 1e-10 * (1 + Math.abs(expected[0][i])));
+            }else{
+                assertEquals(0, store.fx[i], 0);
+            }
+        }
+    }
+}
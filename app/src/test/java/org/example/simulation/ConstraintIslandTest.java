@@ -0,0 +1,113 @@
+package org.example.simulation;
+
+import org.example.EConstraintSolver;
+import org.example.Vector2;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ConstraintIslandTest {
+    private static final int ROPES = 4;
+    private static final int ROPE_LENGTH = 6;
+    private static final int PARTICLES = ROPES * ROPE_LENGTH;
+    private static final float LINK = 0.5f;
+    private static final float KS = 10000;
+    private static final float KD = 100;
+
+    //Parallel ropes with jittered positions, random velocities and random applied forces, the same for a given seed
+    private static ParticleStore createRopes(long seed){
+        Random random = new Random(seed);
+        ParticleStore store = new ParticleStore();
+        for(int r = 0; r < ROPES; r++){
+            for(int k = 0; k < ROPE_LENGTH; k++){
+                int i = store.add(k * LINK + random.nextDouble() * 0.1, r * 2 + random.nextDouble() * 0.1, 0.5 + random.nextDouble());
+                store.vx[i] = random.nextGaussian();
+                store.vy[i] = random.nextGaussian();
+                store.fx[i] = random.nextGaussian() * 10;
+                store.fy[i] = random.nextGaussian() * 10;
+            }
+        }
+        store.pin(0);
+        return store;
+    }
+
+    private static ConstraintIsland createIsland(ParticleStore store, int firstRope, int ropes, int maxIterations, double tolerance){
+        int[] particles = new int[ropes * ROPE_LENGTH];
+        List<BlockConstraint> constraints = new ArrayList<>();
+        List<int[]> lists = new ArrayList<>();
+        for(int k = 0; k < particles.length; k++){
+            particles[k] = firstRope * ROPE_LENGTH + k;
+        }
+        for(int r = firstRope; r < firstRope + ropes; r++){
+            for(int k = 0; k + 1 < ROPE_LENGTH; k++){
+                int a = r * ROPE_LENGTH + k;
+                SimulationParticle p1 = new SimulationParticle(new Particle(store, a));
+                SimulationParticle p2 = new SimulationParticle(new Particle(store, a + 1));
+                constraints.add(new DistanceConstraint(p1, p2, LINK));
+                lists.add(new int[]{a, a + 1});
+            }
+        }
+        return new ConstraintIsland(store, particles, constraints, lists.toArray(new int[0][]), maxIterations, tolerance,
+                                    PositionBasedSolver.DEFAULT_ITERATIONS);
+    }
+
+    private static void assertSameForces(ParticleStore expected, ParticleStore actual, double tolerance){
+        for(int i = 0; i < PARTICLES; i++){
+            assertEquals("fx of " + i, expected.fx[i], actual.fx[i], tolerance);
+            assertEquals("fy of " + i, expected.fy[i], actual.fy[i], tolerance);
+        }
+    }
+
+    private static void compareWithGlobalSolve(EConstraintSolver type, double tolerance){
+        ParticleStore global = createRopes(7);
+        createIsland(global, 0, ROPES, 1000, 1e-14).solve(global, type, KS, KD);
+
+        ParticleStore split = createRopes(7);
+        for(int r = 0; r < ROPES; r++){
+            createIsland(split, r, 1, 1000, 1e-14).solve(split, type, KS, KD);
+        }
+        assertSameForces(global, split, tolerance);
+
+        //The constraint forces are not zero, so the comparison means something
+        ParticleStore unsolved = createRopes(7);
+        double change = 0;
+        for(int i = 0; i < PARTICLES; i++){
+            change += Math.abs(global.fx[i] - unsolved.fx[i]) + Math.abs(global.fy[i] - unsolved.fy[i]);
+        }
+        assertTrue(change > 1);
+    }
+
+    @Test
+    public void islandsMatchOneGlobalCholeskySolve(){
+        compareWithGlobalSolve(EConstraintSolver.Cholesky, 1e-8);
+    }
+
+    @Test
+    public void islandsMatchOneGlobalConjugateGradientSolve(){
+        compareWithGlobalSolve(EConstraintSolver.ConjugateGradient, 1e-6);
+    }
+
+    @Test
+    public void systemSplitsIndependentRopesIntoIslands(){
+        ParticleSystem system = new ParticleSystem(new Vector2(100, 100), 0);
+        List<SimulationParticle> particles = new ArrayList<>();
+        for(int r = 0; r < ROPES; r++){
+            for(int k = 0; k < ROPE_LENGTH; k++){
+                SimulationParticle particle = new SimulationParticle(new Particle(new Vector2(10 + k * LINK, 10 + r * 2), 1));
+                system.addParticle(particle);
+                particles.add(particle);
+            }
+        }
+        for(int r = 0; r < ROPES; r++){
+            for(int k = 0; k + 1 < ROPE_LENGTH; k++){
+                system.addConstraints(new DistanceConstraint(particles.get(r * ROPE_LENGTH + k), particles.get(r * ROPE_LENGTH + k + 1), LINK));
+            }
+        }
+        system.step(1f / 60);
+        assertEquals(ROPES, system.getIslandCount());
+    }
+}
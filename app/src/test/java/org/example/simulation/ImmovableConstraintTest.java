@@ -0,0 +1,74 @@
+package org.example.simulation;
+
+import org.example.Vector2;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ImmovableConstraintTest {
+    private static final float DT = 1f / 60;
+
+    private static ParticleSystem createSystem(SimulationParticle particle){
+        ParticleSystem system = new ParticleSystem(new Vector2(10, 10), 0.1f);
+        system.addParticle(particle);
+        system.addForce(new GravitationalForce(9.82f));
+        return system;
+    }
+
+    private static SimulationParticle createParticle(){
+        return new SimulationParticle(new Particle(new Vector2(5, 5), 1));
+    }
+
+    private static boolean isPinned(SimulationParticle particle){
+        Particle p = particle.getParticle();
+        return p.store.isPinned(p.index);
+    }
+
+    @Test
+    public void creatingTheConstraintDoesNotPin(){
+        SimulationParticle particle = createParticle();
+        new ImmovableConstraint(particle);
+        assertFalse(isPinned(particle));
+
+        ParticleSystem system = createSystem(particle);
+        system.step(DT);
+        assertTrue(particle.getPosition().getY() > 5);
+    }
+
+    @Test
+    public void addingPinsAndRemovingReleases(){
+        SimulationParticle particle = createParticle();
+        ParticleSystem system = createSystem(particle);
+        ImmovableConstraint constraint = new ImmovableConstraint(particle);
+        system.addConstraints(constraint);
+        assertTrue(isPinned(particle));
+        for(int k = 0; k < 10; k++){
+            system.step(DT);
+        }
+        assertEquals(5, particle.getPosition().getY(), 0);
+
+        system.removeConstraints(constraint);
+        assertFalse(isPinned(particle));
+        system.step(DT);
+        assertTrue(particle.getPosition().getY() > 5);
+    }
+
+    @Test
+    public void particleHeldTwiceStaysPinnedUntilBothAreRemoved(){
+        SimulationParticle particle = createParticle();
+        ParticleSystem system = createSystem(particle);
+        ImmovableConstraint first = new ImmovableConstraint(particle);
+        ImmovableConstraint second = new ImmovableConstraint(particle);
+        system.addConstraints(first);
+        system.addConstraints(second);
+
+        system.removeConstraints(first);
+        assertTrue(isPinned(particle));
+        system.step(DT);
+        assertEquals(5, particle.getPosition().getY(), 0);
+
+        system.removeConstraints(second);
+        assertFalse(isPinned(particle));
+        assertEquals(1, particle.getParticle().store.getInverseMass(particle.getIndex()), 0);
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.simulation;
+
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.example.EConstraintSolver;
+import org.example.Vector2;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LegacyConstraintTest {
+    private static final float DT = 1f / 60;
+
+    //A distance constraint written against Constraint, the way constraints were written before BlockConstraint
+    private static class OldDistanceConstraint implements Constraint {
+        private final SimulationParticle p1;
+        private final SimulationParticle p2;
+        private final float distance;
+
+        OldDistanceConstraint(SimulationParticle p1, SimulationParticle p2, float distance){
+            this.p1 = p1;
+            this.p2 = p2;
+            this.distance = distance;
+        }
+
+        @Override
+        public void apply(float time) {
+
+        }
+
+        @Override
+        public void insertConstraint(List<Particle> particles, RealVector constraint, int row, ParticleSystem system) {
+            Vector2 diff = this.p2.getPosition().sub(this.p1.getPosition());
+            constraint.setEntry(row, (diff.dot(diff) - this.distance * this.distance) / 2);
+        }
+
+        @Override
+        public void insertJacobian(List<Particle> particles, RealMatrix jacobian, int row, ParticleSystem system) {
+            ParticleSystem.MatrixPosition mp1 = system.getMatrixPosition(this.p1.getParticle());
+            ParticleSystem.MatrixPosition mp2 = system.getMatrixPosition(this.p2.getParticle());
+            Vector2 diff = this.p1.getPosition().sub(this.p2.getPosition());
+            jacobian.setEntry(row, mp1.getX(), diff.getX());
+            jacobian.setEntry(row, mp1.getY(), diff.getY());
+            jacobian.setEntry(row, mp2.getX(), -diff.getX());
+            jacobian.setEntry(row, mp2.getY(), -diff.getY());
+        }
+
+        @Override
+        public void insertJacobianDerivative(List<Particle> particles, RealMatrix jacobianDerivative, int row, ParticleSystem system) {
+            ParticleSystem.MatrixPosition mp1 = system.getMatrixPosition(this.p1.getParticle());
+            ParticleSystem.MatrixPosition mp2 = system.getMatrixPosition(this.p2.getParticle());
+            Vector2 diff = this.p1.getVelocity().sub(this.p2.getVelocity());
+            jacobianDerivative.setEntry(row, mp1.getX(), diff.getX());
+            jacobianDerivative.setEntry(row, mp1.getY(), diff.getY());
+            jacobianDerivative.setEntry(row, mp2.getX(), -diff.getX());
+            jacobianDerivative.setEntry(row, mp2.getY(), -diff.getY());
+        }
+    }
+
+    //Touches no particles, only counts how often it is applied
+    private static class CountingConstraint implements Constraint {
+        int applied;
+
+        @Override
+        public void apply(float time) {
+            applied++;
+        }
+
+        @Override
+        public void insertConstraint(List<Particle> particles, RealVector constraint, int row, ParticleSystem system) {}
+
+        @Override
+        public void insertJacobian(List<Particle> particles, RealMatrix jacobian, int row, ParticleSystem system) {}
+
+        @Override
+        public void insertJacobianDerivative(List<Particle> particles, RealMatrix jacobianDerivative, int row, ParticleSystem system) {}
+    }
+
+    private static ParticleSystem createPair(boolean legacy){
+        ParticleSystem system = new ParticleSystem(new Vector2(100, 100), 0);
+        SimulationParticle a = new SimulationParticle(new Particle(new Vector2(50, 50), 1));
+        SimulationParticle b = new SimulationParticle(new Particle(new Vector2(51, 50), 2));
+        system.addParticle(a);
+        system.addParticle(b);
+        b.getParticle().store.vy[b.getIndex()] = 1;
+        if(legacy){
+            system.addConstraints(new OldDistanceConstraint(a, b, 1));
+        }else{
+            system.addConstraints(new DistanceConstraint(a, b, 1));
+        }
+        return system;
+    }
+
+    @Test
+    public void oldConstraintMatchesBlockConstraint(){
+        ParticleSystem legacy = createPair(true);
+        ParticleSystem block = createPair(false);
+        for(int k = 0; k < 120; k++){
+            legacy.step(DT);
+            block.step(DT);
+        }
+        assertEquals(1, legacy.getIslandCount());
+        for(int i = 0; i < 2; i++){
+            Vector2 expected = block.getParticles().get(i).getPosition();
+            Vector2 actual = legacy.getParticles().get(i).getPosition();
+            assertEquals(expected.getX(), actual.getX(), 1e-6);
+            assertEquals(expected.getY(), actual.getY(), 1e-6);
+        }
+        Vector2 a = legacy.getParticles().get(0).getPosition();
+        Vector2 b = legacy.getParticles().get(1).getPosition();
+        assertEquals(1, b.sub(a).length(), 1e-3);
+    }
+
+    @Test
+    public void constraintWithoutParticlesIsStillApplied(){
+        ParticleSystem system = createPair(false);
+        CountingConstraint counting = new CountingConstraint();
+        system.addConstraints(counting);
+        for(int k = 0; k < 10; k++){
+            system.step(DT);
+        }
+        assertEquals(1, system.getIslandCount());
+        assertTrue(counting.applied >= 10);
+
+        system.setConstraintSolver(EConstraintSolver.PositionBased);
+        counting.applied = 0;
+        system.step(DT);
+        assertEquals(1, counting.applied);
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.simulation;
+
+import org.example.Line;
+import org.example.Vector2;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LineCollidersTest {
+    private static final double RADIUS = 0.1;
+
+    private static List<Line> randomLines(Random random, int count){
+        List<Line> lines = new ArrayList<>();
+        for(int k = 0; k < count; k++){
+            float x = random.nextFloat() * 40;
+            float y = random.nextFloat() * 40;
+            float length = random.nextFloat() * 2;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            lines.add(new Line(new Vector2(x, y), new Vector2(x + (float) Math.cos(angle) * length, y + (float) Math.sin(angle) * length)));
+        }
+        return lines;
+    }
+
+    private static boolean isWithin(Line line, double x, double y, double distance){
+        double ex = line.end.getX() - line.start.getX();
+        double ey = line.end.getY() - line.start.getY();
+        double t = ((x - line.start.getX()) * ex + (y - line.start.getY()) * ey) / (ex * ex + ey * ey);
+        t = Math.max(0, Math.min(1, t));
+        double dx = x - (line.start.getX() + t * ex);
+        double dy = y - (line.start.getY() + t * ey);
+        return dx * dx + dy * dy < distance * distance;
+    }
+
+    @Test
+    public void treeFindsTheSameHitsAsLinearScan(){
+        Random random = new Random(2024);
+        List<Line> lines = randomLines(random, 500);
+        LineColliders tree = new LineColliders();
+        tree.build(lines);
+        assertEquals(500, tree.size());
+
+        //Probes near the segments so most of them hit. A push moves a probe by up to the radius, so only probes
+        //within twice the radius of at most one segment are kept, then the visiting order can not change the result
+        ParticleStore treeStore = new ParticleStore();
+        ParticleStore scanStore = new ParticleStore();
+        int expectedHits = 0;
+        while(treeStore.size() < 3000){
+            Line near = lines.get(random.nextInt(lines.size()));
+            double t = random.nextDouble();
+            double x = near.start.getX() + (near.end.getX() - near.start.getX()) * t + (random.nextDouble() - 0.5) * 4 * RADIUS;
+            double y = near.start.getY() + (near.end.getY() - near.start.getY()) * t + (random.nextDouble() - 0.5) * 4 * RADIUS;
+            int hits = 0;
+            int nearby = 0;
+            for(Line line : lines){
+                if(isWithin(line, x, y, RADIUS)){
+                    hits++;
+                }
+                if(isWithin(line, x, y, RADIUS * 2)){
+                    nearby++;
+                }
+            }
+            if(nearby > 1){
+                continue;
+            }
+            expectedHits += hits;
+            int i = treeStore.add(x, y, 1);
+            scanStore.add(x, y, 1);
+            treeStore.vx[i] = scanStore.vx[i] = random.nextDouble() - 0.5;
+            treeStore.vy[i] = scanStore.vy[i] = random.nextDouble() - 0.5;
+        }
+        assertTrue(expectedHits > 1000);
+
+        assertEquals(expectedHits, tree.collide(treeStore, RADIUS, 0.5));
+        //The linear scan resolves every segment on its own with the same narrow phase
+        int scanHits = 0;
+        LineColliders single = new LineColliders();
+        for(Line line : lines){
+            single.build(List.of(line));
+            scanHits += single.collide(scanStore, RADIUS, 0.5);
+        }
+        assertEquals(expectedHits, scanHits);
+        for(int i = 0; i < treeStore.size(); i++){
+            assertEquals(scanStore.x[i], treeStore.x[i], 0);
+            assertEquals(scanStore.y[i], treeStore.y[i], 0);
+            assertEquals(scanStore.vx[i], treeStore.vx[i], 0);
+            assertEquals(scanStore.vy[i], treeStore.vy[i], 0);
+        }
+    }
+
+    @Test
+    public void particlePushedOutOfSegmentAndReflected(){
+        LineColliders colliders = new LineColliders();
+        colliders.build(List.of(new Line(new Vector2(0, 0), new Vector2(2, 0))));
+        ParticleStore s = new ParticleStore();
+        int i = s.add(1, 0.05, 1);
+        s.vy[i] = -1;
+        assertEquals(1, colliders.collide(s, RADIUS, 0.5));
+        assertEquals(RADIUS, s.y[i], 1e-12);
+        assertEquals(0.5, s.vy[i], 1e-12);
+    }
+
+    @Test
+    public void pinnedParticlesAndEmptyTreesAreSkipped(){
+        ParticleStore s = new ParticleStore();
+        s.add(1, 0, 1);
+        LineColliders colliders = new LineColliders();
+        colliders.build(List.of());
+        assertEquals(0, colliders.collide(s, RADIUS, 0));
+
+        colliders.build(List.of(new Line(new Vector2(0, 0), new Vector2(2, 0))));
+        s.invMass[0] = 0;
+        assertEquals(0, colliders.collide(s, RADIUS, 0));
+        assertEquals(0, s.y[0], 0);
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.simulation;
+
+import org.example.Force;
+import org.example.Vector2;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelForcesTest {
+    private static final int WIDTH = 80;
+    private static final float SPACING = 0.2f;
+
+    //A spring grid held by a network, with single SpringForces across every other cell, moving under gravity
+    private static ParticleSystem createGrid(){
+        ParticleSystem system = new ParticleSystem(new Vector2(WIDTH * SPACING * 2, WIDTH * SPACING * 2), 0.05f);
+        system.setParallelForces(false);
+        SceneBuilder builder = new SceneBuilder(0);
+        builder.setSpring(1000, 10);
+        int first = builder.addLattice(new Vector2(1, 1), WIDTH, WIDTH, SPACING);
+        for(int y = 0; y < WIDTH; y++){
+            for(int x = 0; x < WIDTH; x++){
+                int i = first + y * WIDTH + x;
+                if(x + 1 < WIDTH){
+                    builder.link(i, i + 1);
+                }
+                if(y + 1 < WIDTH){
+                    builder.link(i, i + WIDTH);
+                }
+            }
+        }
+        builder.pin(first);
+        List<SimulationParticle> particles = builder.build(system);
+        for(int y = 0; y + 1 < WIDTH; y += 2){
+            for(int x = 0; x + 1 < WIDTH; x++){
+                SimulationParticle a = particles.get(first + y * WIDTH + x);
+                SimulationParticle b = particles.get(first + (y + 1) * WIDTH + x + 1);
+                system.addForce(new SpringForce(a, b, (float) (SPACING * Math.sqrt(2)), 500, 5));
+            }
+        }
+        system.addForce(new GravitationalForce(9.82f));
+        system.addForce(new ViscousDragForce(0.01f));
+        for(int k = 0; k < 20; k++){
+            system.step(0.001f);
+        }
+        return system;
+    }
+
+    @Test
+    public void parallelSumMatchesSerialSum(){
+        ParticleSystem system = createGrid();
+        ParticleStore store = system.getStore();
+        List<Force> forces = new ArrayList<>();
+        system.getForces().forEach(forces::add);
+
+        store.clearForces();
+        for(Force force : forces){
+            force.apply(store);
+        }
+        double[] serialX = store.fx.clone();
+        double[] serialY = store.fy.clone();
+
+        ParallelForces parallel = new ParallelForces();
+        parallel.build(forces, store);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try{
+            for(int round = 0; round < 3; round++){
+                store.clearForces();
+                parallel.apply(pool);
+                for(int i = 0; i < store.size(); i++){
+                    //Springs meet a particle in a different order, so only rounding may differ
+                    double scale = 1 + Math.abs(serialX[i]) + Math.abs(serialY[i]);
+                    assertEquals("fx of " + i, serialX[i], store.fx[i], 1e-9 * scale);
+                    assertEquals("fy of " + i, serialY[i], store.fy[i], 1e-9 * scale);
+                }
+            }
+        }finally{
+            pool.shutdown();
+        }
+        assertTrue(parallel.getColours() > 1);
+        assertEquals(WIDTH * (WIDTH - 1) * 2 + (WIDTH / 2) * (WIDTH - 1), parallel.getSprings());
+    }
+
+    @Test
+    public void parallelStepsFollowSerialSteps(){
+        ParticleSystem serial = createGrid();
+        ParticleSystem parallel = createGrid();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        parallel.setPool(pool);
+        parallel.setParallelForces(true);
+        try{
+            for(int k = 0; k < 50; k++){
+                serial.step(0.001f);
+                parallel.step(0.001f);
+            }
+        }finally{
+            pool.shutdown();
+        }
+        ParticleStore expected = serial.getStore();
+        ParticleStore actual = parallel.getStore();
+        for(int i = 0; i < expected.size(); i++){
+            assertEquals(expected.x[i], actual.x[i], 1e-9);
+            assertEquals(expected.y[i], actual.y[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void coloursNeverShareAParticle(){
+        int particles = 500;
+        int springs = 3000;
+        Random random = new Random(3);
+        int[] a = new int[springs];
+        int[] b = new int[springs];
+        int[] order = new int[springs];
+        for(int k = 0; k < springs; k++){
+            a[k] = random.nextInt(particles);
+            b[k] = (a[k] + 1 + random.nextInt(particles - 1)) % particles;
+            order[k] = k;
+        }
+        int[] colourStart = ParallelForces.colour(order, springs, a, b, particles);
+        assertEquals(springs, colourStart[colourStart.length - 1]);
+
+        boolean[] seen = new boolean[springs];
+        for(int c = 0; c + 1 < colourStart.length; c++){
+            boolean[] used = new boolean[particles];
+            for(int p = colourStart[c]; p < colourStart[c + 1]; p++){
+                int k = order[p];
+                assertFalse(seen[k]);
+                seen[k] = true;
+                assertFalse(used[a[k]]);
+                assertFalse(used[b[k]]);
+                used[a[k]] = true;
+                used[b[k]] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.simulation;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class ParticleCollisionsTest {
+    private static final double RADIUS = 0.1;
+    private static final double DIAMETER = RADIUS * 2;
+
+    private static ParticleStore randomCloud(Random random, int count, double size){
+        ParticleStore store = new ParticleStore();
+        for(int i = 0; i < count; i++){
+            //Negative coordinates too, the hash has no bounds
+            store.add(random.nextDouble() * size - size / 2, random.nextDouble() * size - size / 2, 1);
+        }
+        return store;
+    }
+
+    private static TreeSet<Long> bruteForcePairs(ParticleStore s){
+        TreeSet<Long> pairs = new TreeSet<>();
+        for(int i = 0; i < s.size(); i++){
+            for(int j = i + 1; j < s.size(); j++){
+                if(isTouching(s, i, j)){
+                    pairs.add((long) i * s.size() + j);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static boolean isTouching(ParticleStore s, int i, int j){
+        double dx = s.x[j] - s.x[i];
+        double dy = s.y[j] - s.y[i];
+        return dx * dx + dy * dy < DIAMETER * DIAMETER;
+    }
+
+    @Test
+    public void hashFindsTheSamePairsAsBruteForce(){
+        Random random = new Random(42);
+        for(int round = 0; round < 5; round++){
+            ParticleStore s = randomCloud(random, 2000, 6);
+            SpatialHash hash = new SpatialHash();
+            hash.build(s, DIAMETER);
+
+            TreeSet<Long> hashed = new TreeSet<>();
+            for(int i = 0; i < s.size(); i++){
+                TreeSet<Integer> buckets = new TreeSet<>();
+                for(int dx = -1; dx <= 1; dx++){
+                    for(int dy = -1; dy <= 1; dy++){
+                        buckets.add(hash.hash(hash.cell(s.x[i]) + dx, hash.cell(s.y[i]) + dy));
+                    }
+                }
+                for(int h : buckets){
+                    for(int p = hash.bucketStart[h]; p < hash.bucketStart[h + 1]; p++){
+                        int j = hash.particles[p];
+                        if(j > i && isTouching(s, i, j)){
+                            hashed.add((long) i * s.size() + j);
+                        }
+                    }
+                }
+            }
+            TreeSet<Long> expected = bruteForcePairs(s);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, hashed);
+        }
+    }
+
+    @Test
+    public void everyParticleIsInExactlyOneBucket(){
+        ParticleStore s = randomCloud(new Random(7), 1000, 20);
+        SpatialHash hash = new SpatialHash();
+        hash.build(s, DIAMETER);
+        int[] seen = new int[s.size()];
+        for(int h = 0; h + 1 < hash.bucketStart.length; h++){
+            for(int p = hash.bucketStart[h]; p < hash.bucketStart[h + 1]; p++){
+                int i = hash.particles[p];
+                assertEquals(h, hash.hash(hash.cell(s.x[i]), hash.cell(s.y[i])));
+                seen[i]++;
+            }
+        }
+        for(int count : seen){
+            assertEquals(1, count);
+        }
+    }
+
+    @Test
+    public void resolveSeparatesEveryTouchingPair(){
+        //Pairs far apart from each other, so resolving one pair can not change another
+        Random random = new Random(11);
+        ParticleStore s = new ParticleStore();
+        for(int cell = 0; cell < 400; cell++){
+            double x = (cell % 20) * 10 * DIAMETER - 2;
+            double y = (cell / 20) * 10 * DIAMETER - 2;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double distance = random.nextDouble() * DIAMETER * 1.5 + 1e-3;
+            s.add(x, y, 1);
+            s.add(x + Math.cos(angle) * distance, y + Math.sin(angle) * distance, 1 + random.nextInt(3));
+        }
+        int expected = bruteForcePairs(s).size();
+        assertTrue(expected > 0 && expected < 400);
+
+        ParticleCollisions collisions = new ParticleCollisions();
+        assertEquals(expected, collisions.resolve(s, new SleepTracker(), RADIUS, 0.5));
+        for(int i = 0; i < s.size(); i += 2){
+            assertTrue(Math.hypot(s.x[i + 1] - s.x[i], s.y[i + 1] - s.y[i]) >= DIAMETER - 1e-9);
+        }
+    }
+
+    @Test
+    public void connectedParticlesDoNotCollide(){
+        ParticleStore s = new ParticleStore();
+        s.add(0, 0, 1);
+        s.add(RADIUS, 0, 1);
+        s.add(0, RADIUS, 1);
+        ParticleCollisions collisions = new ParticleCollisions();
+        collisions.connect(0, 1);
+        collisions.connect(2, 0);
+        collisions.finishConnections(s.size());
+        //Only 1 and 2 touch without being joined
+        assertEquals(1, collisions.resolve(s, new SleepTracker(), RADIUS, 0));
+        assertEquals(0, s.x[0], 0);
+        assertEquals(0, s.y[0], 0);
+        assertEquals(DIAMETER, Math.hypot(s.x[2] - s.x[1], s.y[2] - s.y[1]), 1e-9);
+    }
+}
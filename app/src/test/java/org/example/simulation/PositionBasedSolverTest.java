@@ -0,0 +1,91 @@
+package org.example.simulation;
+
+import org.example.EConstraintSolver;
+import org.example.Vector2;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PositionBasedSolverTest {
+    private static final float DT = 1f / 60;
+    private static final float GRAVITY = 9.82f;
+
+    //A mass hanging one meter below a pinned particle, released with a sideways push
+    private static ParticleSystem createPendulum(double compliance, float drag){
+        ParticleSystem system = new ParticleSystem(new Vector2(10, 10), 0.1f);
+        system.setConstraintSolver(EConstraintSolver.PositionBased);
+        SimulationParticle anchor = new SimulationParticle(new Particle(new Vector2(5, 1), 1));
+        SimulationParticle bob = new SimulationParticle(new Particle(new Vector2(5, 2), 1));
+        system.addParticle(anchor);
+        system.addParticle(bob);
+        bob.getParticle().store.vx[bob.getIndex()] = 2;
+        system.addConstraints(new ImmovableConstraint(anchor));
+        system.addConstraints(new DistanceConstraint(anchor, bob, 1, compliance));
+        system.addForce(new GravitationalForce(GRAVITY));
+        if(drag > 0){
+            system.addForce(new ViscousDragForce(drag));
+        }
+        return system;
+    }
+
+    private static double length(ParticleSystem system){
+        return system.getParticles().get(1).getPosition().sub(system.getParticles().get(0).getPosition()).length();
+    }
+
+    private static void run(ParticleSystem system, double seconds){
+        for(int k = 0; k < Math.round(seconds / DT); k++){
+            system.step(DT);
+        }
+    }
+
+    @Test
+    public void stiffLinkKeepsItsRestLength(){
+        ParticleSystem system = createPendulum(0, 0);
+        for(int k = 0; k < 300; k++){
+            system.step(DT);
+            assertEquals(1, length(system), 1e-3);
+        }
+        //It swung, so the length was held while moving
+        assertTrue(Math.abs(system.getParticles().get(1).getPosition().getX() - 5) > 0.01);
+        assertEquals(5, system.getParticles().get(0).getPosition().getX(), 0);
+    }
+
+    @Test
+    public void compliantLinkStretchesToItsStaticLength(){
+        //At rest the constraint force balances gravity: d * (d^2 - 1) / 2 / compliance = m * g
+        double[] compliances = {1e-3, 1e-2};
+        double previous = 1;
+        for(double compliance : compliances){
+            ParticleSystem system = createPendulum(compliance, 2);
+            run(system, 20);
+            double stretched = length(system);
+
+            double expected = 1;
+            for(int k = 0; k < 50; k++){
+                double residual = expected * (expected * expected - 1) / 2 - compliance * GRAVITY;
+                expected -= residual / ((3 * expected * expected - 1) / 2);
+            }
+            assertEquals("Compliance " + compliance, expected, stretched, (expected - 1) * 0.05);
+            assertTrue(stretched > previous);
+            previous = stretched;
+        }
+    }
+
+    @Test
+    public void emptyStepChangesNothing(){
+        ParticleSystem system = createPendulum(0, 0);
+        run(system, 0.5);
+        SimulationParticle bob = system.getParticles().get(1);
+        Vector2 position = bob.getPosition();
+        Vector2 velocity = bob.getVelocity();
+
+        system.step(0);
+        assertEquals(position.getX(), bob.getPosition().getX(), 0);
+        assertEquals(position.getY(), bob.getPosition().getY(), 0);
+        assertEquals(velocity.getX(), bob.getVelocity().getX(), 0);
+        assertEquals(velocity.getY(), bob.getVelocity().getY(), 0);
+
+        system.step(DT);
+        assertTrue(Double.isFinite(bob.getVelocity().getX()));
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.simulation;
+
+import org.example.Force;
+import org.example.Vector2;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SceneBuilderTest {
+    private static final float SPACING = 0.5f;
+
+    @Test
+    public void gridParticlesFollowRowByRow(){
+        SceneBuilder builder = new SceneBuilder(0);
+        builder.addRope(new Vector2(0, 0), new Vector2(1, 0), 3);
+        int columns = 4;
+        int rows = 3;
+        int first = builder.addLattice(new Vector2(1, 2), columns, rows, SPACING);
+        assertEquals(3, first);
+        assertEquals(first + columns * rows, builder.getParticleCount());
+        for(int row = 0; row < rows; row++){
+            for(int column = 0; column < columns; column++){
+                Vector2 position = builder.getPosition(first + row * columns + column);
+                assertEquals(1 + column * SPACING, position.getX(), 1e-6);
+                assertEquals(2 + row * SPACING, position.getY(), 1e-6);
+            }
+        }
+
+        int cloth = builder.addCloth(new Vector2(0, 0), columns, rows, SPACING);
+        assertEquals(first + columns * rows, cloth);
+        assertEquals(SPACING * 2, builder.getPosition(cloth + 2 * columns + 3).getX() - builder.getPosition(cloth + 2 * columns + 1).getX(), 1e-6);
+    }
+
+    @Test
+    public void clothHasStructuralShearAndBendLinks(){
+        int columns = 5;
+        int rows = 4;
+        SceneBuilder builder = new SceneBuilder(0);
+        builder.addCloth(new Vector2(0, 0), columns, rows, SPACING);
+
+        int structural = 0;
+        int shear = 0;
+        int bend = 0;
+        for(int k = 0; k < builder.getLinkCount(); k++){
+            float length = builder.getLinkLength(k);
+            if(Math.abs(length - SPACING) < 1e-5){
+                structural++;
+            }else if(Math.abs(length - SPACING * Math.sqrt(2)) < 1e-5){
+                shear++;
+            }else if(Math.abs(length - 2 * SPACING) < 1e-5){
+                bend++;
+            }else{
+                fail("Unexpected link length " + length);
+            }
+            assertFalse(builder.isLinkStiff(k));
+            assertEquals(SceneBuilder.DEFAULT_SPRING_CONSTANT, builder.getLinkSpringConstant(k), 0);
+        }
+        assertEquals((columns - 1) * rows + columns * (rows - 1), structural);
+        assertEquals(2 * (columns - 1) * (rows - 1), shear);
+        assertEquals((columns - 2) * rows + columns * (rows - 2), bend);
+        assertEquals(structural + shear + bend, builder.getLinkCount());
+    }
+
+    @Test
+    public void sameSeedGivesSamePointCloud(){
+        SceneBuilder a = new SceneBuilder(99);
+        SceneBuilder b = new SceneBuilder(99);
+        SceneBuilder other = new SceneBuilder(100);
+        Vector2 topLeft = new Vector2(1, 1);
+        Vector2 size = new Vector2(4, 3);
+        a.addPointCloud(topLeft, size, 500);
+        b.addPointCloud(topLeft, size, 500);
+        other.addPointCloud(topLeft, size, 500);
+
+        boolean differs = false;
+        for(int i = 0; i < 500; i++){
+            Vector2 position = a.getPosition(i);
+            assertEquals(position.getX(), b.getPosition(i).getX(), 0);
+            assertEquals(position.getY(), b.getPosition(i).getY(), 0);
+            assertTrue(position.getX() >= 1 && position.getX() <= 5);
+            assertTrue(position.getY() >= 1 && position.getY() <= 4);
+            differs |= position.getX() != other.getPosition(i).getX();
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    public void buildAddsParticlesInBuilderOrder(){
+        SceneBuilder builder = new SceneBuilder(0);
+        builder.setMass(2);
+        builder.addCloth(new Vector2(1, 1), 3, 3, SPACING);
+        builder.setStiff(true);
+        builder.link(0, 8);
+        builder.pin(0);
+
+        ParticleSystem system = new ParticleSystem(new Vector2(10, 10), 0.1f);
+        List<SimulationParticle> particles = builder.build(system);
+        assertEquals(builder.getParticleCount(), particles.size());
+        for(int i = 0; i < particles.size(); i++){
+            assertEquals(builder.getPosition(i).getX(), particles.get(i).getPosition().getX(), 0);
+            assertEquals(builder.getPosition(i).getY(), particles.get(i).getPosition().getY(), 0);
+            assertEquals(2, system.getStore().mass[particles.get(i).getIndex()], 0);
+        }
+        //Every link but the stiff one ends up in a single spring network
+        int springs = 0;
+        for(Force force : system.getForces()){
+            if(force instanceof SpringNetwork network){
+                springs += network.size();
+            }
+        }
+        assertEquals(builder.getLinkCount() - 1, springs);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLinksToMissingParticles(){
+        SceneBuilder builder = new SceneBuilder(0);
+        builder.addParticle(new Vector2(0, 0));
+        builder.link(0, 1);
+    }
+}
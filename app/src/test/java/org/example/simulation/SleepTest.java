@@ -0,0 +1,98 @@
+package org.example.simulation;
+
+import org.example.Vector2;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SleepTest {
+    private static final float DT = 1f / 60;
+    private static final double THRESHOLD = 0.01;
+
+    private static ParticleSystem createSystem(){
+        ParticleSystem system = new ParticleSystem(new Vector2(10, 10), 0.1f);
+        system.setParticleCollisions(true);
+        return system;
+    }
+
+    private static SimulationParticle add(ParticleSystem system, float x, float y){
+        SimulationParticle particle = new SimulationParticle(new Particle(new Vector2(x, y), 1));
+        system.addParticle(particle);
+        return particle;
+    }
+
+    private static void setVelocity(SimulationParticle particle, double vx, double vy){
+        Particle p = particle.getParticle();
+        p.store.vx[p.getIndex()] = vx;
+        p.store.vy[p.getIndex()] = vy;
+    }
+
+    private static void run(ParticleSystem system, double seconds){
+        for(int k = 0; k < Math.round(seconds / DT); k++){
+            system.step(DT);
+        }
+    }
+
+    @Test
+    public void sleepingIsOffByDefault(){
+        ParticleSystem system = createSystem();
+        SimulationParticle resting = add(system, 5, 5);
+        assertEquals(0, system.getSleepThreshold(), 0);
+        run(system, 2);
+        assertFalse(system.isSleeping(resting));
+        assertEquals(1, system.getAwakeParticleCount());
+    }
+
+    @Test
+    public void restingGroupFallsAsleepBelowTheThreshold(){
+        ParticleSystem system = createSystem();
+        system.setSleepThreshold(THRESHOLD);
+        SimulationParticle resting = add(system, 5, 5);
+        SimulationParticle moving = add(system, 1, 1);
+        setVelocity(moving, 1, 0);
+
+        run(system, 0.25);
+        assertFalse(system.isSleeping(resting));
+        run(system, 0.5);
+        assertTrue(system.isSleeping(resting));
+        assertFalse(system.isSleeping(moving));
+        system.step(DT);
+        assertEquals(1, system.getAwakeParticleCount());
+
+        system.setSleepThreshold(0);
+        assertFalse(system.isSleeping(resting));
+    }
+
+    @Test
+    public void contactWakesASleepingGroup(){
+        ParticleSystem system = createSystem();
+        system.setSleepThreshold(THRESHOLD);
+        SimulationParticle resting = add(system, 5, 5);
+        SimulationParticle moving = add(system, 3, 5);
+        setVelocity(moving, 2, 0);
+
+        run(system, 0.6);
+        assertTrue(system.isSleeping(resting));
+        assertEquals(5, resting.getPosition().getX(), 0);
+
+        //Touches at x = 4.8, after 0.9 s. The sleeping particle is woken and acts as a wall for that contact
+        run(system, 0.5);
+        assertFalse(system.isSleeping(resting));
+        assertTrue(moving.getVelocity().getX() < 0);
+    }
+
+    @Test
+    public void addedForceWakesASleepingGroup(){
+        ParticleSystem system = createSystem();
+        system.setSleepThreshold(THRESHOLD);
+        SimulationParticle resting = add(system, 5, 5);
+
+        run(system, 0.6);
+        assertTrue(system.isSleeping(resting));
+
+        system.addForce(new GravitationalForce(9.82f));
+        assertFalse(system.isSleeping(resting));
+        run(system, 0.1);
+        assertTrue(resting.getPosition().getY() > 5);
+    }
+}
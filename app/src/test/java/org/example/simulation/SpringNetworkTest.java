@@ -0,0 +1,92 @@
+package org.example.simulation;
+
+import org.example.Force;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SpringNetworkTest {
+    private static final int PARTICLES = 200;
+    private static final int SPRINGS = 600;
+
+    private final Random random = new Random(11);
+    private final ParticleStore store = new ParticleStore();
+    private final SpringNetwork network = new SpringNetwork();
+    private final List<Force> springs = new ArrayList<>();
+
+    //Random particles joined by random springs, once as a network and once as single SpringForces
+    public SpringNetworkTest(){
+        List<SimulationParticle> particles = new ArrayList<>();
+        for(int i = 0; i < PARTICLES; i++){
+            int index = store.add(random.nextDouble() * 5, random.nextDouble() * 5, 1);
+            store.vx[index] = random.nextGaussian();
+            store.vy[index] = random.nextGaussian();
+            particles.add(new SimulationParticle(new Particle(store, index)));
+        }
+        for(int k = 0; k < SPRINGS; k++){
+            SimulationParticle a = particles.get(random.nextInt(PARTICLES));
+            SimulationParticle b = particles.get(random.nextInt(PARTICLES));
+            if(a == b){
+                continue;
+            }
+            float length = (float) (random.nextDouble() * 2);
+            float stiffness = (float) (100 + random.nextDouble() * 1000);
+            float damping = (float) (random.nextDouble() * 10);
+            network.add(a, b, length, stiffness, damping);
+            springs.add(new SpringForce(a, b, length, stiffness, damping));
+        }
+        network.bind();
+    }
+
+    private static void assertClose(double[] expected, double[] actual, int length){
+        for(int i = 0; i < length; i++){
+            assertEquals("Entry " + i, expected[i], actual[i], 1e-9 * (1 + Math.abs(expected[i])));
+        }
+    }
+
+    @Test
+    public void networkForcesMatchSingleSprings(){
+        store.clearForces();
+        for(Force spring : springs){
+            spring.apply(store);
+        }
+        double[] expectedX = store.fx.clone();
+        double[] expectedY = store.fy.clone();
+
+        store.clearForces();
+        network.apply(store);
+        assertEquals(springs.size(), network.size());
+        assertClose(expectedX, store.fx, PARTICLES);
+        assertClose(expectedY, store.fy, PARTICLES);
+    }
+
+    @Test
+    public void networkJacobianMatchesSingleSprings(){
+        double[] dx = new double[PARTICLES * 2];
+        double[] dv = new double[PARTICLES * 2];
+        for(int i = 0; i < dx.length; i++){
+            dx[i] = random.nextGaussian();
+            dv[i] = random.nextGaussian();
+        }
+
+        ForceJacobian single = new ForceJacobian();
+        single.clear(PARTICLES);
+        for(Force spring : springs){
+            ((SpringForce) spring).addJacobian(store, single);
+        }
+        double[] expected = new double[PARTICLES * 2];
+        single.multiply(dx, dv, expected);
+
+        ForceJacobian combined = new ForceJacobian();
+        combined.clear(PARTICLES);
+        network.addJacobian(store, combined);
+        double[] actual = new double[PARTICLES * 2];
+        combined.multiply(dx, dv, actual);
+
+        assertClose(expected, actual, PARTICLES * 2);
+    }
+}
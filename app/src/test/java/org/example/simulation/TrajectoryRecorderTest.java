@@ -0,0 +1,159 @@
+package org.example.simulation;
+
+import org.example.Line;
+import org.example.Vector2;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class TrajectoryRecorderTest {
+    private static final int COLUMNS = 5;
+    private static final int ROWS = 4;
+    private static final int FRAMES = 25;
+    private static final float STEP = 0.01f;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static SceneBuilder createCloth(){
+        SceneBuilder builder = new SceneBuilder(1);
+        builder.addCloth(new Vector2(2, 1), COLUMNS, ROWS, 0.3f);
+        builder.pin(0);
+        builder.pin(COLUMNS - 1);
+        return builder;
+    }
+
+    private static ParticleSystem createSystem(SceneBuilder builder){
+        ParticleSystem system = new ParticleSystem(new Vector2(8, 6), 0.1f);
+        builder.build(system);
+        system.addForce(new GravitationalForce(9.82f));
+        system.setWalls();
+        return system;
+    }
+
+    private static void assertVector(float x, float y, Vector2 actual){
+        assertEquals(x, actual.getX(), 0);
+        assertEquals(y, actual.getY(), 0);
+    }
+
+    private void assertRoundTrip(boolean velocities) throws IOException {
+        SceneBuilder builder = createCloth();
+        ParticleSystem system = createSystem(builder);
+        ParticleStore s = system.getStore();
+        int n = s.size();
+        float[][] expected = new float[FRAMES][4 * n];
+
+        File file = folder.newFile(velocities ? "velocities.ptraj" : "positions.ptraj");
+        try (TrajectoryRecorder recorder = new TrajectoryRecorder(file, system, velocities, 2)){
+            assertEquals(velocities, recorder.isRecordingVelocities());
+            for(int frame = 0; frame < FRAMES; frame++){
+                for(int i = 0; i < n; i++){
+                    expected[frame][i] = (float) s.x[i];
+                    expected[frame][n + i] = (float) s.y[i];
+                    expected[frame][2 * n + i] = (float) s.vx[i];
+                    expected[frame][3 * n + i] = (float) s.vy[i];
+                }
+                recorder.record(system, frame * STEP);
+                system.step(STEP);
+            }
+            recorder.close();
+            assertEquals(FRAMES, recorder.getFrameCount());
+        }
+
+        try (TrajectoryPlayback playback = new TrajectoryPlayback(file)){
+            assertEquals(FRAMES, playback.getFrameCount());
+            assertEquals(velocities, playback.hasVelocities());
+
+            assertEquals(builder.getLinkCount(), playback.getSpringCount());
+            for(int k = 0; k < builder.getLinkCount(); k++){
+                assertEquals(builder.getLinkA(k), playback.getSpringA(k));
+                assertEquals(builder.getLinkB(k), playback.getSpringB(k));
+            }
+            assertEquals(system.getColliders().size(), playback.getColliders().size());
+            for(int k = 0; k < system.getColliders().size(); k++){
+                Line line = system.getColliders().get(k);
+                Line read = playback.getColliders().get(k);
+                assertVector(line.start.getX(), line.start.getY(), read.start);
+                assertVector(line.end.getX(), line.end.getY(), read.end);
+            }
+
+            //Read back out of order, frames are found through the index
+            for(int frame = FRAMES - 1; frame >= 0; frame -= 3){
+                assertEquals(frame * STEP, playback.getTime(frame), 0);
+                assertEquals(n, playback.getParticleCount(frame));
+                for(int i = 0; i < n; i++){
+                    assertVector(expected[frame][i], expected[frame][n + i], playback.getPosition(frame, i));
+                    if(velocities){
+                        assertVector(expected[frame][2 * n + i], expected[frame][3 * n + i], playback.getVelocity(frame, i));
+                    }
+                }
+                double[] x = new double[n];
+                double[] y = new double[n];
+                assertEquals(n, playback.read(frame, x, y));
+                assertEquals(expected[frame][n - 1], x[n - 1], 0);
+                assertEquals(expected[frame][2 * n - 1], y[n - 1], 0);
+            }
+            if(!velocities){
+                assertThrows(IllegalStateException.class, () -> playback.getVelocity(0, 0));
+            }
+            assertThrows(IllegalArgumentException.class, () -> playback.getTime(FRAMES));
+            assertThrows(IllegalArgumentException.class, () -> playback.getPosition(0, n));
+            assertThrows(IllegalArgumentException.class, () -> playback.read(FRAMES, new double[n], new double[n]));
+            assertThrows(IllegalArgumentException.class, () -> playback.read(-1, new double[n], new double[n]));
+            assertThrows(IllegalArgumentException.class, () -> playback.read(0, new double[n - 1], new double[n]));
+            assertThrows(IllegalArgumentException.class, () -> playback.read(0, new double[n], new double[n - 1]));
+        }
+    }
+
+    @Test
+    public void roundTripWithVelocities() throws IOException {
+        assertRoundTrip(true);
+    }
+
+    @Test
+    public void roundTripWithoutVelocities() throws IOException {
+        assertRoundTrip(false);
+    }
+
+    @Test
+    public void unclosedFileIsRejected() throws IOException {
+        ParticleSystem system = createSystem(createCloth());
+        File file = folder.newFile("unclosed.ptraj");
+        TrajectoryRecorder recorder = new TrajectoryRecorder(file, system, false);
+        recorder.record(system, 0);
+        recorder.record(system, STEP);
+        try {
+            //The index is only written on close
+            IOException e = assertThrows(IOException.class, () -> new TrajectoryPlayback(file));
+            assertTrue(e.getMessage().startsWith("Trajectory was not closed properly"));
+        } finally {
+            recorder.close();
+        }
+        try (TrajectoryPlayback playback = new TrajectoryPlayback(file)){
+            assertEquals(2, playback.getFrameCount());
+        }
+    }
+
+    @Test
+    public void recordingAnotherSystemFails() throws IOException {
+        ParticleSystem system = createSystem(createCloth());
+        ParticleSystem other = createSystem(createCloth());
+        try (TrajectoryRecorder recorder = new TrajectoryRecorder(folder.newFile("other.ptraj"), system, false)){
+            recorder.record(system, 0);
+            assertThrows(IllegalArgumentException.class, () -> recorder.record(other, STEP));
+        }
+    }
+
+    @Test
+    public void recordingAfterCloseFails() throws IOException {
+        ParticleSystem system = createSystem(createCloth());
+        TrajectoryRecorder recorder = new TrajectoryRecorder(folder.newFile("closed.ptraj"), system, true);
+        recorder.close();
+        assertThrows(IllegalStateException.class, () -> recorder.record(system, 0));
+    }
+}